@@ -0,0 +1,26 @@
+package github.javaguide.benchmark.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * @author shuang.kou
+ * @createTime 2026年10月19日 10:12:00
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class Customer implements Serializable {
+    private static final long serialVersionUID = 3120864153364583718L;
+    private long id;
+    private String name;
+    private String email;
+    private String address;
+}
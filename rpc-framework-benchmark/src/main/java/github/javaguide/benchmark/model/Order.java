@@ -0,0 +1,31 @@
+package github.javaguide.benchmark.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个比较"真实"的 DTO 对象图，用来衡量序列化器处理嵌套对象、集合时的表现
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 10:12:00
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class Order implements Serializable {
+    private static final long serialVersionUID = 5437722418935186392L;
+    private String orderId;
+    private long createTime;
+    private Customer customer;
+    private List<OrderItem> items;
+    private Map<String, String> tags;
+}
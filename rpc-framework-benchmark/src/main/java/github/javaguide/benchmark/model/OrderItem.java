@@ -0,0 +1,26 @@
+package github.javaguide.benchmark.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * @author shuang.kou
+ * @createTime 2026年10月19日 10:12:00
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class OrderItem implements Serializable {
+    private static final long serialVersionUID = -6270178325014325127L;
+    private long skuId;
+    private String title;
+    private int quantity;
+    private double price;
+}
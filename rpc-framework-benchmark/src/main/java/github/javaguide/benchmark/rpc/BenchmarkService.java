@@ -0,0 +1,49 @@
+package github.javaguide.benchmark.rpc;
+
+import github.javaguide.Hello;
+
+import java.util.Iterator;
+
+/**
+ * 端到端压测用的服务接口，几个方法分别对应不同的请求/响应大小组合
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 11:20:00
+ */
+public interface BenchmarkService {
+
+    /**
+     * request and response both carry the payload
+     */
+    byte[] echo(byte[] payload);
+
+    /**
+     * large request, tiny response
+     */
+    int upload(byte[] payload);
+
+    /**
+     * tiny request, large response
+     */
+    byte[] download(int size);
+
+    /**
+     * the call used by the examples
+     */
+    String hello(Hello hello);
+
+    /**
+     * event logging, called oneway: no response at all
+     */
+    void log(byte[] payload);
+
+    /**
+     * server streaming: count items of the given size
+     */
+    Iterator<byte[]> stream(int count, int size);
+
+    /**
+     * client streaming: reads all items, returns their total size
+     */
+    long consume(Iterator<byte[]> items);
+}
@@ -0,0 +1,51 @@
+package github.javaguide.benchmark.rpc;
+
+import github.javaguide.Hello;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * @author shuang.kou
+ * @createTime 2026年10月19日 11:20:00
+ */
+public class BenchmarkServiceImpl implements BenchmarkService {
+
+    @Override
+    public byte[] echo(byte[] payload) {
+        return payload;
+    }
+
+    @Override
+    public int upload(byte[] payload) {
+        return payload.length;
+    }
+
+    @Override
+    public byte[] download(int size) {
+        return new byte[size];
+    }
+
+    @Override
+    public String hello(Hello hello) {
+        return "Hello description is " + hello.getDescription();
+    }
+
+    @Override
+    public void log(byte[] payload) {
+    }
+
+    @Override
+    public Iterator<byte[]> stream(int count, int size) {
+        return Stream.generate(() -> new byte[size]).limit(count).iterator();
+    }
+
+    @Override
+    public long consume(Iterator<byte[]> items) {
+        long total = 0;
+        while (items.hasNext()) {
+            total += items.next().length;
+        }
+        return total;
+    }
+}
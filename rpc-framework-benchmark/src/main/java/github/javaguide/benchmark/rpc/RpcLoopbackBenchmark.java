@@ -0,0 +1,303 @@
+package github.javaguide.benchmark.rpc;
+
+import github.javaguide.Hello;
+import github.javaguide.config.RpcServiceConfig;
+import github.javaguide.enums.ServiceDiscoveryEnum;
+import github.javaguide.enums.ServiceRegistryEnum;
+import github.javaguide.extension.ExtensionLoader;
+import github.javaguide.factory.SingletonFactory;
+import github.javaguide.metrics.MethodMetrics;
+import github.javaguide.metrics.RpcMetrics;
+import github.javaguide.metrics.TransportMetrics;
+import github.javaguide.provider.ServiceProvider;
+import github.javaguide.provider.impl.ZkServiceProviderImpl;
+import github.javaguide.proxy.RpcClientProxy;
+import github.javaguide.registry.ProviderMetadata;
+import github.javaguide.registry.ServiceDiscovery;
+import github.javaguide.registry.ServiceRegistry;
+import github.javaguide.remoting.transport.netty.client.NettyRpcClient;
+import github.javaguide.remoting.transport.netty.server.NettyRpcServer;
+import github.javaguide.utils.concurrent.threadpool.ThreadPoolFactoryUtil;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 端到端压测：在同一个进程里启动 NettyRpcServer 和 NettyRpcClient，用进程内的注册中心代替 ZooKeeper，
+ * 用固定并发的闭环调用压测，最后输出吞吐和 HdrHistogram 统计的延迟分位数
+ * <p>
+ * End-to-end throughput/latency benchmark over loopback. Options are passed as {@code key=value} arguments:
+ * <pre>
+ *   concurrency=32    number of closed-loop caller threads
+ *   payload=1024      payload size in bytes
+ *   warmup=10         warm-up seconds, results are discarded
+ *   duration=30       measurement seconds
+ *   mix=echo:1        weighted call mix, e.g. echo:6,upload:2,download:1,hello:1,log:1 (log is oneway,
+ *                     stream/consume send 100 payloads from the server/client)
+ *   protocol=2        frame version the provider advertises, 1 to compare with the old frame
+ *   batch=false       pack concurrent calls into batch frames (protocol 2 only)
+ * </pre>
+ * <pre>
+ *   java -cp rpc-framework-benchmark/target/benchmarks.jar github.javaguide.benchmark.rpc.RpcLoopbackBenchmark concurrency=64 payload=4096
+ * </pre>
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 11:30:00
+ */
+public class RpcLoopbackBenchmark {
+
+    private static final String GROUP = "benchmark";
+    private static final String VERSION = "version1";
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final int concurrency;
+    private final int payloadSize;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final CallType[] callMix;
+    private final int protocol;
+    private final boolean batch;
+    private final Recorder totalRecorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+    private final Map<CallType, Recorder> callRecorders = new EnumMap<>(CallType.class);
+    private final LongAdder errors = new LongAdder();
+    private volatile boolean running = true;
+
+    RpcLoopbackBenchmark(Map<String, String> options) {
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        this.payloadSize = Integer.parseInt(options.getOrDefault("payload", "1024"));
+        this.warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        this.callMix = CallType.parseMix(options.getOrDefault("mix", "echo:1"));
+        this.protocol = Integer.parseInt(options.getOrDefault("protocol", "2"));
+        this.batch = Boolean.parseBoolean(options.getOrDefault("batch", "false"));
+        for (CallType callType : CallType.values()) {
+            callRecorders.put(callType, new Recorder(HIGHEST_TRACKABLE_NANOS, 3));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // the framework logs every message at info level, which would dominate the measurement
+        if (System.getProperty("org.slf4j.simpleLogger.defaultLogLevel") == null) {
+            System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
+        }
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int i = arg.indexOf('=');
+            if (i > 0) {
+                options.put(arg.substring(0, i).trim(), arg.substring(i + 1).trim());
+            }
+        }
+        new RpcLoopbackBenchmark(options).run();
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        InetSocketAddress serverAddress = startServer();
+        NettyRpcClient nettyRpcClient = new NettyRpcClient(
+                ExtensionLoader.getExtensionLoader(ServiceDiscovery.class).getExtension(ServiceDiscoveryEnum.LOCAL.getName()));
+        RpcServiceConfig rpcServiceConfig = RpcServiceConfig.builder().group(GROUP).version(VERSION).oneway(true).batch(batch).build();
+        BenchmarkService benchmarkService = new RpcClientProxy(nettyRpcClient, rpcServiceConfig).getProxy(BenchmarkService.class);
+        byte[] payload = new byte[payloadSize];
+        ThreadLocalRandom.current().nextBytes(payload);
+
+        System.out.printf("server=%s protocol=%d batch=%s concurrency=%d payload=%dB warmup=%ds duration=%ds%n",
+                serverAddress, protocol, batch, concurrency, payloadSize, warmupSeconds, durationSeconds);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency,
+                ThreadPoolFactoryUtil.createThreadFactory("rpc-benchmark-worker", true));
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> callLoop(benchmarkService, payload));
+        }
+
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        // drop everything recorded during warm-up
+        totalRecorder.getIntervalHistogram();
+        callRecorders.values().forEach(Recorder::getIntervalHistogram);
+        errors.reset();
+        RpcMetrics.getInstance().getServerMethodMetrics().forEach(MethodMetrics::reset);
+        RpcMetrics.getInstance().getTransportMetrics().reset();
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        Histogram total = totalRecorder.getIntervalHistogram();
+        Map<CallType, Histogram> perCall = new EnumMap<>(CallType.class);
+        callRecorders.forEach((callType, recorder) -> perCall.put(callType, recorder.getIntervalHistogram()));
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        long errorCount = errors.sum();
+        running = false;
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+        nettyRpcClient.close();
+
+        System.out.printf("%-10s %12s %12s %10s %10s %10s %10s %10s %10s%n",
+                "call", "count", "ops/s", "mean(us)", "p50(us)", "p90(us)", "p99(us)", "p999(us)", "max(us)");
+        perCall.forEach((callType, histogram) -> {
+            if (histogram.getTotalCount() > 0) {
+                print(callType.name().toLowerCase(), histogram, elapsedSeconds);
+            }
+        });
+        print("total", total, elapsedSeconds);
+        System.out.printf("errors=%d%n", errorCount);
+        printServerMetrics();
+    }
+
+    private void callLoop(BenchmarkService benchmarkService, byte[] payload) {
+        Hello hello = new Hello("111", "222");
+        while (running) {
+            CallType callType = callMix[ThreadLocalRandom.current().nextInt(callMix.length)];
+            long begin = System.nanoTime();
+            try {
+                callType.call(benchmarkService, payload, hello);
+            } catch (Exception e) {
+                errors.increment();
+                continue;
+            }
+            long latency = Math.min(System.nanoTime() - begin, HIGHEST_TRACKABLE_NANOS);
+            totalRecorder.recordValue(latency);
+            callRecorders.get(callType).recordValue(latency);
+        }
+    }
+
+    private InetSocketAddress startServer() throws Exception {
+        ServiceProvider serviceProvider = SingletonFactory.getInstance(ZkServiceProviderImpl.class);
+        RpcServiceConfig rpcServiceConfig = RpcServiceConfig.builder().group(GROUP).version(VERSION)
+                .service(new BenchmarkServiceImpl()).build();
+        serviceProvider.addService(rpcServiceConfig);
+        Thread serverThread = new Thread(() -> new NettyRpcServer().start(), "rpc-benchmark-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        InetSocketAddress serverAddress = new InetSocketAddress(InetAddress.getLocalHost().getHostAddress(), NettyRpcServer.PORT);
+        // the client goes through the same discovery path as with ZooKeeper, only backed by the in-JVM registry
+        ExtensionLoader.getExtensionLoader(ServiceRegistry.class).getExtension(ServiceRegistryEnum.LOCAL.getName())
+                .registerService(rpcServiceConfig.getRpcServiceName(), serverAddress, ProviderMetadata.builder().protocol(protocol).build());
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(serverAddress, 1000);
+                return serverAddress;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("NettyRpcServer did not start in time", e);
+                }
+                TimeUnit.MILLISECONDS.sleep(100);
+            }
+        }
+    }
+
+    private static void print(String name, Histogram histogram, double elapsedSeconds) {
+        System.out.printf("%-10s %12d %12.1f %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                name, histogram.getTotalCount(), histogram.getTotalCount() / elapsedSeconds,
+                histogram.getMean() / 1000.0,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * where the time goes on the provider side, taken from {@link RpcMetrics}
+     */
+    private static void printServerMetrics() {
+        System.out.printf("%n%-10s %14s %14s %14s %14s%n", "server", "exec p50(us)", "exec p99(us)", "queue p50(us)", "queue p99(us)");
+        for (MethodMetrics methodMetrics : RpcMetrics.getInstance().getServerMethodMetrics()) {
+            if (methodMetrics.getCalls() > 0) {
+                System.out.printf("%-10s %14.1f %14.1f %14.1f %14.1f%n", methodMetrics.getMethodName(),
+                        methodMetrics.getLatencyP50Micros(), methodMetrics.getLatencyP99Micros(),
+                        methodMetrics.getQueueWaitP50Micros(), methodMetrics.getQueueWaitP99Micros());
+            }
+        }
+        TransportMetrics transportMetrics = RpcMetrics.getInstance().getTransportMetrics();
+        System.out.printf("frames encoded=%d decoded=%d, bytes encoded=%d decoded=%d, compression ratio=%.2f%n",
+                transportMetrics.getEncodedFrames(), transportMetrics.getDecodedFrames(),
+                transportMetrics.getEncodedBytes(), transportMetrics.getDecodedBytes(), transportMetrics.getCompressionRatio());
+    }
+
+    enum CallType {
+        ECHO {
+            @Override
+            void call(BenchmarkService benchmarkService, byte[] payload, Hello hello) {
+                benchmarkService.echo(payload);
+            }
+        },
+        UPLOAD {
+            @Override
+            void call(BenchmarkService benchmarkService, byte[] payload, Hello hello) {
+                benchmarkService.upload(payload);
+            }
+        },
+        DOWNLOAD {
+            @Override
+            void call(BenchmarkService benchmarkService, byte[] payload, Hello hello) {
+                benchmarkService.download(payload.length);
+            }
+        },
+        HELLO {
+            @Override
+            void call(BenchmarkService benchmarkService, byte[] payload, Hello hello) {
+                benchmarkService.hello(hello);
+            }
+        },
+        LOG {
+            @Override
+            void call(BenchmarkService benchmarkService, byte[] payload, Hello hello) {
+                benchmarkService.log(payload);
+            }
+        },
+        STREAM {
+            @Override
+            void call(BenchmarkService benchmarkService, byte[] payload, Hello hello) {
+                Iterator<byte[]> items = benchmarkService.stream(STREAM_ITEMS, payload.length);
+                while (items.hasNext()) {
+                    items.next();
+                }
+            }
+        },
+        CONSUME {
+            @Override
+            void call(BenchmarkService benchmarkService, byte[] payload, Hello hello) {
+                benchmarkService.consume(Collections.nCopies(STREAM_ITEMS, payload).iterator());
+            }
+        };
+
+        /**
+         * items per streamed call
+         */
+        private static final int STREAM_ITEMS = 100;
+
+        abstract void call(BenchmarkService benchmarkService, byte[] payload, Hello hello);
+
+        /**
+         * parse "echo:6,hello:1" into a lookup table where every call type appears as often as its weight
+         */
+        static CallType[] parseMix(String mix) {
+            List<CallType> table = new ArrayList<>();
+            for (String item : mix.split(",")) {
+                String[] nameAndWeight = item.trim().split(":");
+                CallType callType = CallType.valueOf(nameAndWeight[0].trim().toUpperCase());
+                int weight = nameAndWeight.length > 1 ? Integer.parseInt(nameAndWeight[1].trim()) : 1;
+                for (int i = 0; i < weight; i++) {
+                    table.add(callType);
+                }
+            }
+            if (table.isEmpty()) {
+                throw new IllegalArgumentException("empty call mix: " + mix);
+            }
+            return table.toArray(new CallType[0]);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package github.javaguide.benchmark.serialize;
+
+import github.javaguide.Hello;
+import github.javaguide.benchmark.model.Customer;
+import github.javaguide.benchmark.model.Order;
+import github.javaguide.benchmark.model.OrderItem;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * 压测用的消息体，覆盖了小对象、对象图、大字节数组和集合几种典型场景
+ * Typical payloads carried by RpcRequest/RpcResponse in benchmarks.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 10:20:00
+ */
+public enum Payload {
+
+    /**
+     * the HelloService call used by the examples
+     */
+    HELLO {
+        @Override
+        Object argument() {
+            return new Hello("111", "222");
+        }
+
+        @Override
+        Object result() {
+            return "Hello description is 222";
+        }
+    },
+    /**
+     * nested DTO graph, about 10 KB once serialized
+     */
+    DTO_10K {
+        @Override
+        Object argument() {
+            return order(260);
+        }
+
+        @Override
+        Object result() {
+            return order(260);
+        }
+    },
+    /**
+     * 1 MB of incompressible bytes, e.g. file chunks
+     */
+    BYTES_1M {
+        @Override
+        Object argument() {
+            return bytes(1024 * 1024);
+        }
+
+        @Override
+        Object result() {
+            return bytes(1024 * 1024);
+        }
+    },
+    /**
+     * list and map of small values
+     */
+    COLLECTION {
+        @Override
+        Object argument() {
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                keys.add("user:" + i);
+            }
+            return keys;
+        }
+
+        @Override
+        Object result() {
+            Map<String, Long> values = new HashMap<>();
+            for (int i = 0; i < 500; i++) {
+                values.put("user:" + i, (long) i * 31);
+            }
+            return values;
+        }
+    };
+
+    private static final long SEED = 20201002L;
+
+    abstract Object argument();
+
+    abstract Object result();
+
+    public RpcRequest request() {
+        Object argument = argument();
+        return RpcRequest.builder().methodName("call")
+                .parameters(new Object[]{argument})
+                .interfaceName("github.javaguide.benchmark.BenchmarkService")
+                .paramTypes(new Class<?>[]{argument.getClass()})
+                .requestId(UUID.randomUUID().toString())
+                .group("benchmark")
+                .version("version1")
+                .build();
+    }
+
+    public RpcResponse<Object> response() {
+        return RpcResponse.success(result(), UUID.randomUUID().toString());
+    }
+
+    private static Order order(int itemCount) {
+        Random random = new Random(SEED);
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new OrderItem(random.nextLong(), "sku title " + i, random.nextInt(10) + 1, random.nextInt(100000) / 100.0));
+        }
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("channel", "app");
+        tags.put("region", "cn-east");
+        tags.put("promotion", "double-eleven");
+        Customer customer = new Customer(random.nextLong(), "guide", "guide@javaguide.cn", "No. 1 Street, Hangzhou");
+        return new Order(UUID.randomUUID().toString(), System.currentTimeMillis(), customer, items, tags);
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(SEED).nextBytes(bytes);
+        return bytes;
+    }
+}
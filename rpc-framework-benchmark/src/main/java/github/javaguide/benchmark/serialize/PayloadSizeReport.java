@@ -0,0 +1,37 @@
+package github.javaguide.benchmark.serialize;
+
+import github.javaguide.compress.Compress;
+import github.javaguide.extension.ExtensionLoader;
+import github.javaguide.serialize.Serializer;
+
+/**
+ * 打印每种序列化器 + 压缩方式下消息体的大小，作为 {@link SerializerBenchmark} 吞吐数据的补充
+ * Prints the encoded body size of every payload for every serializer/compress combination.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 10:50:00
+ */
+public class PayloadSizeReport {
+
+    private static final String[] SERIALIZERS = {"kyro", "protostuff", "hessian"};
+    private static final String[] COMPRESSES = {SerializerBenchmark.NO_COMPRESS, "gzip"};
+
+    public static void main(String[] args) {
+        System.out.printf("%-12s %-10s %-12s %-6s %12s%n", "payload", "message", "serializer", "gzip", "bytes");
+        for (Payload payload : Payload.values()) {
+            Object[][] messages = {{"request", payload.request()}, {"response", payload.response()}};
+            for (Object[] message : messages) {
+                for (String serializerName : SERIALIZERS) {
+                    Serializer serializer = ExtensionLoader.getExtensionLoader(Serializer.class).getExtension(serializerName);
+                    for (String compressName : COMPRESSES) {
+                        Compress compress = SerializerBenchmark.NO_COMPRESS.equals(compressName) ? null
+                                : ExtensionLoader.getExtensionLoader(Compress.class).getExtension(compressName);
+                        byte[] body = SerializerBenchmark.encode(serializer, compress, message[1]);
+                        System.out.printf("%-12s %-10s %-12s %-6s %12d%n",
+                                payload, message[0], serializerName, compress != null, body.length);
+                    }
+                }
+            }
+        }
+    }
+}
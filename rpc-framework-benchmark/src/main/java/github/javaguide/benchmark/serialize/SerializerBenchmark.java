@@ -0,0 +1,112 @@
+package github.javaguide.benchmark.serialize;
+
+import github.javaguide.compress.Compress;
+import github.javaguide.extension.ExtensionLoader;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+import github.javaguide.serialize.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 衡量编解码链路（序列化 + 压缩）的吞吐，和 RpcMessageEncoder/RpcMessageDecoder 对消息体的处理方式保持一致
+ * <p>
+ * Measures serialize/deserialize throughput of every {@link Serializer} combined with every {@link Compress}.
+ * Run with the gc profiler to get the allocation rate:
+ * <pre>
+ *   java -jar rpc-framework-benchmark/target/benchmarks.jar SerializerBenchmark -prof gc
+ * </pre>
+ * Output sizes are printed by {@link PayloadSizeReport}.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 10:35:00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+
+    /**
+     * compress name used when the body is not compressed at all
+     */
+    static final String NO_COMPRESS = "none";
+
+    @Param({"kyro", "protostuff", "hessian"})
+    private String serializerName;
+
+    @Param({NO_COMPRESS, "gzip"})
+    private String compressName;
+
+    @Param({"HELLO", "DTO_10K", "BYTES_1M", "COLLECTION"})
+    private Payload payload;
+
+    @Param({"request", "response"})
+    private String messageType;
+
+    private Serializer serializer;
+    private Compress compress;
+    private Object message;
+    private Class<?> messageClass;
+    private byte[] encodedBody;
+
+    @Setup
+    public void setup() {
+        serializer = ExtensionLoader.getExtensionLoader(Serializer.class).getExtension(serializerName);
+        compress = NO_COMPRESS.equals(compressName) ? null
+                : ExtensionLoader.getExtensionLoader(Compress.class).getExtension(compressName);
+        if ("request".equals(messageType)) {
+            message = payload.request();
+            messageClass = RpcRequest.class;
+        } else {
+            message = payload.response();
+            messageClass = RpcResponse.class;
+        }
+        encodedBody = encode(serializer, compress, message);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return encode(serializer, compress, message);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return decode(serializer, compress, encodedBody, messageClass);
+    }
+
+    static byte[] encode(Serializer serializer, Compress compress, Object message) {
+        byte[] bytes = serializer.serialize(message);
+        return compress == null ? bytes : compress.compress(bytes);
+    }
+
+    static Object decode(Serializer serializer, Compress compress, byte[] body, Class<?> messageClass) {
+        byte[] bytes = compress == null ? body : compress.decompress(body);
+        return serializer.deserialize(bytes, messageClass);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SerializerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
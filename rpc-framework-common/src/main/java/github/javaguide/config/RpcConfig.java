@@ -0,0 +1,172 @@
+package github.javaguide.config;
+
+import github.javaguide.enums.RpcConfigEnum;
+import github.javaguide.utils.concurrent.threadpool.ThreadPoolFactoryUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 框架的全部配置，进程内只加载一次，之后所有组件都从内存里读，不会再在请求路径上读磁盘
+ * <p>
+ * A value is looked up in this order, the first one found wins:
+ * <ol>
+ *   <li>JVM system property, e.g. {@code -Drpc.registry=local}</li>
+ *   <li>environment variable, upper case with '.' replaced by '_', e.g. {@code RPC_REGISTRY=local}</li>
+ *   <li>rpc.properties on the classpath</li>
+ * </ol>
+ * If {@code rpc.config.watch.interval} (milliseconds) is set and rpc.properties is a plain file, the file is
+ * reloaded when its modification time changes.
+ * <p>
+ * 热加载只影响之后再读配置的地方：所有组件都只在创建时读一次配置，已经创建好的组件（客户端、服务端、负载均衡、熔断器、
+ * 限流器等）继续用旧的值。A reload only reaches components created after it, e.g. the handlers of a new
+ * connection or the proxy of a new @RpcReference, everything built before keeps the values it started with.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 19:10:00
+ */
+@Slf4j
+public final class RpcConfig {
+
+    private static final RpcConfig INSTANCE = new RpcConfig(RpcConfigEnum.RPC_CONFIG_PATH.getPropertyValue());
+
+    /**
+     * rpc.properties as a file if it can be watched, null if it is missing or inside a jar
+     */
+    private final File file;
+    private volatile Properties properties;
+    private volatile long lastModified;
+
+    RpcConfig(String fileName) {
+        URL url = Thread.currentThread().getContextClassLoader().getResource(fileName);
+        this.file = toFile(url);
+        this.lastModified = file == null ? 0 : file.lastModified();
+        this.properties = load(url);
+        long watchInterval = getLong(RpcConfigEnum.CONFIG_WATCH_INTERVAL, 0);
+        if (file != null && watchInterval > 0) {
+            ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(
+                    ThreadPoolFactoryUtil.createThreadFactory("rpc-config-watcher", true));
+            watcher.scheduleWithFixedDelay(this::reloadIfModified, watchInterval, watchInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static RpcConfig getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the value, null if it is not configured anywhere
+     */
+    public String getString(RpcConfigEnum key) {
+        String name = key.getPropertyValue();
+        String value = System.getProperty(name);
+        if (value == null) {
+            value = System.getenv(name.toUpperCase().replace('.', '_'));
+        }
+        if (value == null) {
+            value = properties.getProperty(name);
+        }
+        return value == null ? null : value.trim();
+    }
+
+    /**
+     * @return the value, {@code defaultValue} if it is not configured or blank
+     */
+    public String getString(RpcConfigEnum key, String defaultValue) {
+        String value = getString(key);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    /**
+     * @return the value, {@code defaultValue} if it is not configured or not a number
+     */
+    public int getInt(RpcConfigEnum key, int defaultValue) {
+        String value = getString(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            log.error("invalid [{}]: [{}], use the default [{}]", key.getPropertyValue(), value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return the value, {@code defaultValue} if it is not configured or not a number
+     */
+    public long getLong(RpcConfigEnum key, long defaultValue) {
+        String value = getString(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            log.error("invalid [{}]: [{}], use the default [{}]", key.getPropertyValue(), value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return the value, {@code defaultValue} if it is not configured or blank
+     */
+    public boolean getBoolean(RpcConfigEnum key, boolean defaultValue) {
+        String value = getString(key);
+        return value == null || value.isEmpty() ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    void reloadIfModified() {
+        long modified = file.lastModified();
+        if (modified == lastModified) {
+            return;
+        }
+        try {
+            Properties reloaded = load(file.toURI().toURL());
+            lastModified = modified;
+            properties = reloaded;
+            log.info("Reloaded [{}]", file);
+        } catch (IOException e) {
+            log.error("occur exception when reload [{}]", file, e);
+        }
+    }
+
+    private static Properties load(URL url) {
+        Properties properties = new Properties();
+        if (url == null) {
+            log.info("[{}] not found on the classpath, only system properties and environment variables are used",
+                    RpcConfigEnum.RPC_CONFIG_PATH.getPropertyValue());
+            return properties;
+        }
+        try (InputStream inputStream = url.openStream();
+             Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            log.error("occur exception when read properties file [{}]", url, e);
+        }
+        return properties;
+    }
+
+    private static File toFile(URL url) {
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+}
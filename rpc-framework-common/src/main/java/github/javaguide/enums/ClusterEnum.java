@@ -0,0 +1,20 @@
+package github.javaguide.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * @author shuang.kou
+ * @createTime 2026年10月19日 20:30:00
+ */
+@AllArgsConstructor
+@Getter
+public enum ClusterEnum {
+
+    FAILOVER("failover"),
+    FAILFAST("failfast"),
+    FAILSAFE("failsafe"),
+    FORKING("forking");
+
+    private final String name;
+}
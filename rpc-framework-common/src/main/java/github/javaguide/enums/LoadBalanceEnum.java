@@ -11,7 +11,13 @@ import lombok.Getter;
 @Getter
 public enum LoadBalanceEnum {
 
-    LOADBALANCE("loadBalance");
+    LOADBALANCE("loadBalance"),
+    RANDOM("random"),
+    CONSISTENT_HASH("consistentHash"),
+    ROUND_ROBIN("roundRobin"),
+    LEAST_ACTIVE("leastActive"),
+    SHORTEST_RESPONSE("shortestResponse"),
+    P2C("p2c");
 
     private final String name;
 }
@@ -0,0 +1,17 @@
+package github.javaguide.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * @author shuang.kou
+ * @createTime 2026年10月19日 17:40:00
+ */
+@AllArgsConstructor
+@Getter
+public enum RouterEnum {
+
+    ZONE("zone");
+
+    private final String name;
+}
@@ -8,7 +8,33 @@ import lombok.Getter;
 public enum RpcConfigEnum {
 
     RPC_CONFIG_PATH("rpc.properties"),
-    ZK_ADDRESS("rpc.zookeeper.address");
+    CONFIG_WATCH_INTERVAL("rpc.config.watch.interval"),
+    ZK_ADDRESS("rpc.zookeeper.address"),
+    ZK_SESSION_TIMEOUT("rpc.zookeeper.session.timeout"),
+    REGISTRY("rpc.registry"),
+    REGISTRY_ADDRESS("rpc.registry.address"),
+    REGISTRY_FILE("rpc.registry.file"),
+    LOADBALANCE("rpc.loadbalance"),
+    PROVIDER_ZONE("rpc.provider.zone"),
+    PROVIDER_WARMUP("rpc.provider.warmup"),
+    PROVIDER_MAX_CONCURRENCY("rpc.provider.maxconcurrency"),
+    PROVIDER_ADAPTIVE_LIMIT("rpc.provider.adaptivelimit"),
+    PROVIDER_ADAPTIVE_LIMIT_MIN("rpc.provider.adaptivelimit.min"),
+    PROVIDER_ADAPTIVE_LIMIT_MAX("rpc.provider.adaptivelimit.max"),
+    CONSUMER_ZONE("rpc.consumer.zone"),
+    CONSUMER_TIMEOUT("rpc.consumer.timeout"),
+    CONSUMER_BATCH_SIZE("rpc.consumer.batch.size"),
+    CONSUMER_BATCH_DELAY("rpc.consumer.batch.delay"),
+    STREAM_WINDOW("rpc.stream.window"),
+    ROUTER_ZONE_MIN_PROVIDERS("rpc.router.zone.minproviders"),
+    CONSISTENT_HASH_ARGUMENTS("rpc.loadbalance.consistenthash.arguments"),
+    RETRY_BUDGET("rpc.retry.budget"),
+    CLUSTER("rpc.cluster"),
+    CIRCUIT_BREAKER_MIN_CALLS("rpc.circuitbreaker.mincalls"),
+    CIRCUIT_BREAKER_ERROR_RATE("rpc.circuitbreaker.errorrate"),
+    CIRCUIT_BREAKER_SLOW_CALL("rpc.circuitbreaker.slowcall"),
+    CIRCUIT_BREAKER_SLOW_CALL_RATE("rpc.circuitbreaker.slowcallrate"),
+    CIRCUIT_BREAKER_OPEN_TIME("rpc.circuitbreaker.opentime");
 
     private final String propertyValue;
 
@@ -16,7 +16,12 @@ public enum RpcErrorMessageEnum {
     SERVICE_INVOCATION_FAILURE("服务调用失败"),
     SERVICE_CAN_NOT_BE_FOUND("没有找到指定的服务"),
     SERVICE_NOT_IMPLEMENT_ANY_INTERFACE("注册的服务没有实现任何接口"),
-    REQUEST_NOT_MATCH_RESPONSE("返回结果错误！请求和返回的相应不匹配");
+    REQUEST_NOT_MATCH_RESPONSE("返回结果错误！请求和返回的相应不匹配"),
+    REQUEST_TIMEOUT("请求超时"),
+    REQUEST_NOT_SENT("请求没有发送到服务提供方"),
+    STREAM_NOT_SUPPORTED("服务提供方不支持流式调用"),
+    STREAM_BROKEN("流式调用的连接已经断开"),
+    STREAM_CANCELLED("流式调用已经被对方取消");
 
     private final String message;
 
@@ -14,7 +14,15 @@ import lombok.ToString;
 public enum RpcResponseCodeEnum {
 
     SUCCESS(200, "The remote call is successful"),
-    FAIL(500, "The remote call is fail");
+    FAIL(500, "The remote call is fail"),
+    /**
+     * rejected by the concurrency limiter before it was executed, safe to retry on another provider
+     */
+    OVERLOADED(503, "The server is overloaded"),
+    /**
+     * over a rate limit of the service, rejected before it was executed
+     */
+    RATE_LIMITED(429, "The request is over the rate limit");
     private final int code;
 
     private final String message;
@@ -11,7 +11,15 @@ import lombok.Getter;
 @Getter
 public enum ServiceRegistryEnum {
 
-    ZK("zk");
+    ZK("zk"),
+    /**
+     * providers registered in this JVM, for tests and benchmarks
+     */
+    LOCAL("local"),
+    /**
+     * fixed provider addresses from rpc.properties or a watched file
+     */
+    DIRECT("direct");
 
     private final String name;
 }
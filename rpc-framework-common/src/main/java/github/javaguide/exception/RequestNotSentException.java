@@ -0,0 +1,16 @@
+package github.javaguide.exception;
+
+import github.javaguide.enums.RpcErrorMessageEnum;
+
+/**
+ * 请求没有发到服务提供方：连不上、连接已经断开或者写失败，服务端肯定没有执行过，可以放心地换一台重试
+ * The request never reached the provider, so it was not executed there
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月20日 10:30:00
+ */
+public class RequestNotSentException extends RpcException {
+    public RequestNotSentException(String address, Throwable cause) {
+        super(RpcErrorMessageEnum.REQUEST_NOT_SENT.getMessage() + ":" + address, cause);
+    }
+}
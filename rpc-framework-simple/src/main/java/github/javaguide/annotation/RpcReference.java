@@ -11,6 +11,12 @@ import java.lang.annotation.Target;
 /**
  * RpcReference注解用于自动装配RPC实现类，是RPC框架下的@Autowired替代方案
  * RPC reference annotation, autowire the service implementation class
+ * <p>
+ * 参数或返回值是 {@link java.util.Iterator} 的方法自动按流调用（需要 protocol v2 的服务提供方）：
+ * Iterator parameters are sent item by item while the provider reads them, Iterator results are received while
+ * the caller reads them. Both sides only send what the other side granted (rpc.stream.window items at most), a
+ * result that is not read to the end should be closed ({@link java.io.Closeable}) to cancel the stream. The
+ * timeout covers the whole call, streamed calls are neither retried nor hedged nor batched.
  *
  * @author smile2coder
  * @createTime 2020年09月16日 21:42:00
@@ -31,4 +37,63 @@ public @interface RpcReference {
      */
     String group() default "";
 
+    /**
+     * Milliseconds to wait for a call, retries included, 0 means the rpc.consumer.timeout property (no timeout by
+     * default). The remaining time travels with the request, the provider drops it once the caller has given up
+     */
+    long timeout() default 0;
+
+    /**
+     * Hedge requests: if no response arrives within {@link #hedgeDelay()}, send the same request to another
+     * provider and take whichever response comes first. Only turn it on for idempotent methods
+     */
+    boolean hedge() default false;
+
+    /**
+     * Milliseconds to wait before hedging, 0 means the observed p95 latency of the method
+     */
+    long hedgeDelay() default 0;
+
+    /**
+     * Methods to hedge, empty means all methods of the service
+     */
+    String[] hedgeMethods() default {};
+
+    /**
+     * Oneway calls: void methods return as soon as the request is written, the provider sends no response and
+     * failures on its side are never reported. Only providers speaking protocol v2 support it, older ones are
+     * called the usual way
+     */
+    boolean oneway() default false;
+
+    /**
+     * void methods called oneway, empty means all void methods of the service when {@link #oneway()} is set
+     */
+    String[] onewayMethods() default {};
+
+    /**
+     * Batch calls: calls made to the same provider at about the same time (e.g. a fan-out of per-item lookups from
+     * a thread pool) are packed into one frame and answered with one frame, see rpc.consumer.batch.size and
+     * rpc.consumer.batch.delay. Only providers speaking protocol v2 support it
+     */
+    boolean batch() default false;
+
+    /**
+     * Cluster policy: failover, failfast, failsafe or forking, empty means the rpc.cluster property (failfast by default).
+     * failfast makes exactly one attempt, a request rejected as OVERLOADED or RATE_LIMITED is only retried on another
+     * provider by failover
+     */
+    String cluster() default "";
+
+    /**
+     * Failover retries after the first attempt, each goes to a provider not tried yet. Only requests that were
+     * never executed (not sent, rejected as overloaded or rate limited) are retried
+     */
+    int retries() default 2;
+
+    /**
+     * Providers called in parallel by the forking policy
+     */
+    int forks() default 2;
+
 }
@@ -34,4 +34,24 @@ public @interface RpcService {
      */
     String group() default "";
 
+    /**
+     * Weight used by the client side load balancers, default value is 100
+     */
+    int weight() default 100;
+
+    /**
+     * Requests per second the whole service accepts, 0 means no limit
+     */
+    int rateLimit() default 0;
+
+    /**
+     * Requests per second the service accepts from each caller (client IP), 0 means no limit
+     */
+    int callerRateLimit() default 0;
+
+    /**
+     * Limits of single methods, {@code method=permits} or {@code method=permits/callerPermits}, e.g. {@code "search=100/10"}
+     */
+    String[] methodRateLimits() default {};
+
 }
@@ -0,0 +1,62 @@
+package github.javaguide.cluster;
+
+import github.javaguide.config.RpcServiceConfig;
+import github.javaguide.enums.RpcErrorMessageEnum;
+import github.javaguide.enums.RpcResponseCodeEnum;
+import github.javaguide.exception.RpcException;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 每次调用向重试预算存入令牌，子类里的每一次额外请求都要先从预算里取
+ * Abstract class for a cluster, every call makes a deposit into the retry budget
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 20:30:00
+ */
+public abstract class AbstractCluster implements Cluster {
+
+    @Override
+    public RpcResponse<Object> invoke(RpcRequest rpcRequest, Invoker invoker, RpcServiceConfig rpcServiceConfig) {
+        invoker.getRetryBudget().deposit();
+        return doInvoke(rpcRequest, invoker, rpcServiceConfig);
+    }
+
+    protected abstract RpcResponse<Object> doInvoke(RpcRequest rpcRequest, Invoker invoker, RpcServiceConfig rpcServiceConfig);
+
+    protected static boolean isSuccess(RpcResponse<Object> rpcResponse) {
+        return rpcResponse != null && rpcResponse.getCode() != null
+                && rpcResponse.getCode() == RpcResponseCodeEnum.SUCCESS.getCode();
+    }
+
+    /**
+     * @return true if the provider rejected the request without executing it, because of its concurrency limit
+     * or a rate limit
+     */
+    protected static boolean isRejected(RpcResponse<Object> rpcResponse) {
+        return rpcResponse != null && rpcResponse.getCode() != null
+                && (rpcResponse.getCode() == RpcResponseCodeEnum.OVERLOADED.getCode()
+                || rpcResponse.getCode() == RpcResponseCodeEnum.RATE_LIMITED.getCode());
+    }
+
+    /**
+     * wait for an attempt, its failure is rethrown as an unchecked exception
+     */
+    protected static RpcResponse<Object> await(CompletableFuture<RpcResponse<Object>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE.getMessage(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE.getMessage(), cause);
+        }
+    }
+}
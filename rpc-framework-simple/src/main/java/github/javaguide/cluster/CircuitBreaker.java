@@ -0,0 +1,235 @@
+package github.javaguide.cluster;
+
+import github.javaguide.config.RpcConfig;
+import github.javaguide.enums.RpcConfigEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 熔断器，每个服务的每个服务提供方一个：最近 10 秒内错误率或者慢调用比例超过阈值就打开（OPEN），
+ * 打开期间服务发现不再选它；opentime 之后进入半开（HALF_OPEN），放几个请求过去探测，都正常就关闭，有一个不正常就再打开
+ * <p>
+ * The window is a ring of one second buckets, a stale bucket is replaced with a CAS, so recording a call never
+ * takes a lock. Thresholds come from the rpc.circuitbreaker.* properties:
+ * <ul>
+ * <li>mincalls: calls in the window before the rates mean anything, default 20</li>
+ * <li>errorrate: percentage of failed calls that opens the breaker, default 50, 0 disables it</li>
+ * <li>slowcall: milliseconds above which a call is slow, default 1000</li>
+ * <li>slowcallrate: percentage of slow calls that opens the breaker, default 80, 0 disables it</li>
+ * <li>opentime: milliseconds before an open breaker lets probes through, default 5000</li>
+ * </ul>
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 21:10:00
+ */
+@Slf4j
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, CircuitBreaker>> BREAKERS = new ConcurrentHashMap<>();
+    /**
+     * bumped on every state change, lets the service discovery cache the providers that are not ejected
+     */
+    private static final AtomicLong STATE_VERSION = new AtomicLong();
+
+    private static final int BUCKETS = 10;
+    private static final long BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * successful probes that close a half open breaker
+     */
+    private static final int HALF_OPEN_CALLS = 5;
+
+    private static final int MIN_CALLS;
+    private static final int ERROR_RATE;
+    private static final long SLOW_CALL_NANOS;
+    private static final int SLOW_CALL_RATE;
+    private static final long OPEN_NANOS;
+
+    static {
+        RpcConfig rpcConfig = RpcConfig.getInstance();
+        MIN_CALLS = Math.max(rpcConfig.getInt(RpcConfigEnum.CIRCUIT_BREAKER_MIN_CALLS, 20), 1);
+        ERROR_RATE = rpcConfig.getInt(RpcConfigEnum.CIRCUIT_BREAKER_ERROR_RATE, 50);
+        SLOW_CALL_NANOS = TimeUnit.MILLISECONDS.toNanos(rpcConfig.getLong(RpcConfigEnum.CIRCUIT_BREAKER_SLOW_CALL, 1000));
+        SLOW_CALL_RATE = rpcConfig.getInt(RpcConfigEnum.CIRCUIT_BREAKER_SLOW_CALL_RATE, 80);
+        OPEN_NANOS = TimeUnit.MILLISECONDS.toNanos(rpcConfig.getLong(RpcConfigEnum.CIRCUIT_BREAKER_OPEN_TIME, 5000));
+    }
+
+    private final String name;
+    private final int minCalls;
+    private final int errorRate;
+    private final long slowCallNanos;
+    private final int slowCallRate;
+    private final long openNanos;
+
+    private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKETS);
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private volatile long openUntilNanos;
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    CircuitBreaker(String name, int minCalls, int errorRate, long slowCallNanos, int slowCallRate, long openNanos) {
+        this.name = name;
+        this.minCalls = minCalls;
+        this.errorRate = errorRate;
+        this.slowCallNanos = slowCallNanos;
+        this.slowCallRate = slowCallRate;
+        this.openNanos = openNanos;
+    }
+
+    /**
+     * @param rpcServiceName interface name + group + version
+     * @param address        host:port of the provider
+     */
+    public static CircuitBreaker of(String rpcServiceName, String address) {
+        ConcurrentHashMap<String, CircuitBreaker> breakers = BREAKERS.get(rpcServiceName);
+        if (breakers == null) {
+            breakers = BREAKERS.computeIfAbsent(rpcServiceName, k -> new ConcurrentHashMap<>());
+        }
+        CircuitBreaker breaker = breakers.get(address);
+        return breaker != null ? breaker : breakers.computeIfAbsent(address,
+                k -> new CircuitBreaker(rpcServiceName + "@" + address, MIN_CALLS, ERROR_RATE, SLOW_CALL_NANOS, SLOW_CALL_RATE, OPEN_NANOS));
+    }
+
+    public static long stateVersion() {
+        return STATE_VERSION.get();
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * only meaningful while the breaker is open
+     */
+    public long getOpenUntilNanos() {
+        return openUntilNanos;
+    }
+
+    /**
+     * @return false while the breaker is open, an expired open breaker turns half open here
+     */
+    public boolean isAvailable() {
+        return isAvailable(System.nanoTime());
+    }
+
+    boolean isAvailable(long nowNanos) {
+        if (state.get() != State.OPEN) {
+            return true;
+        }
+        if (nowNanos - openUntilNanos < 0) {
+            return false;
+        }
+        halfOpenSuccesses.set(0);
+        transition(State.OPEN, State.HALF_OPEN);
+        return true;
+    }
+
+    /**
+     * record the outcome of a call to the provider
+     *
+     * @param latencyNanos time from sending the request to its completion
+     */
+    public void record(long latencyNanos, boolean success) {
+        record(latencyNanos, success, System.nanoTime());
+    }
+
+    void record(long latencyNanos, boolean success, long nowNanos) {
+        boolean slow = slowCallRate > 0 && latencyNanos >= slowCallNanos;
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            if (!success || slow) {
+                open(State.HALF_OPEN, nowNanos);
+            } else if (halfOpenSuccesses.incrementAndGet() >= HALF_OPEN_CALLS && transition(State.HALF_OPEN, State.CLOSED)) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    buckets.set(i, null);
+                }
+            }
+            return;
+        }
+        if (current == State.OPEN) {
+            // a late response of a request sent before the breaker opened
+            return;
+        }
+        currentBucket(nowNanos).add(success, slow);
+        // sum the window
+        long oldest = nowNanos / BUCKET_NANOS - BUCKETS;
+        int calls = 0;
+        int failures = 0;
+        int slowCalls = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.index > oldest) {
+                calls += bucket.calls.get();
+                failures += bucket.failures.get();
+                slowCalls += bucket.slowCalls.get();
+            }
+        }
+        if (calls < minCalls) {
+            return;
+        }
+        if ((errorRate > 0 && failures * 100L >= (long) errorRate * calls)
+                || (slowCallRate > 0 && slowCalls * 100L >= (long) slowCallRate * calls)) {
+            open(State.CLOSED, nowNanos);
+        }
+    }
+
+    private Bucket currentBucket(long nowNanos) {
+        long index = nowNanos / BUCKET_NANOS;
+        int slot = (int) Math.floorMod(index, (long) BUCKETS);
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.index == index) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(index);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private void open(State from, long nowNanos) {
+        openUntilNanos = nowNanos + openNanos;
+        if (transition(from, State.OPEN)) {
+            log.warn("circuit breaker of [{}] is open for {} ms", name, TimeUnit.NANOSECONDS.toMillis(openNanos));
+        }
+    }
+
+    private boolean transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return false;
+        }
+        STATE_VERSION.incrementAndGet();
+        log.info("circuit breaker of [{}]: {} -> {}", name, from, to);
+        return true;
+    }
+
+    private static final class Bucket {
+        private final long index;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger slowCalls = new AtomicInteger();
+
+        private Bucket(long index) {
+            this.index = index;
+        }
+
+        private void add(boolean success, boolean slow) {
+            calls.incrementAndGet();
+            if (!success) {
+                failures.incrementAndGet();
+            }
+            if (slow) {
+                slowCalls.incrementAndGet();
+            }
+        }
+    }
+}
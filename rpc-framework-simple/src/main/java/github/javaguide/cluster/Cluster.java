@@ -0,0 +1,22 @@
+package github.javaguide.cluster;
+
+import github.javaguide.config.RpcServiceConfig;
+import github.javaguide.extension.SPI;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+
+/**
+ * 集群容错：一次调用失败之后怎么办，换一台重试（failover）、直接报错（failfast）、忽略（failsafe）或者一开始就并行发给多台（forking）
+ * Invocation policy of a call across the providers of a service
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 20:30:00
+ */
+@SPI
+public interface Cluster {
+    /**
+     * @param rpcServiceConfig the @RpcReference of the call, carries retries and forks
+     * @return the response of the call, a failed response is checked by the caller
+     */
+    RpcResponse<Object> invoke(RpcRequest rpcRequest, Invoker invoker, RpcServiceConfig rpcServiceConfig);
+}
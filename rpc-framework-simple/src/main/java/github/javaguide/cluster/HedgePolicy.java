@@ -0,0 +1,78 @@
+package github.javaguide.cluster;
+
+import github.javaguide.config.RpcServiceConfig;
+import github.javaguide.metrics.MethodMetrics;
+import org.HdrHistogram.Histogram;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对冲请求策略：一个请求在 delay 之内没有响应，就再发一份给另一个服务提供方，谁先返回用谁的
+ * 只适合幂等（只读）的方法，在 @RpcReference 上按服务或者按方法打开
+ * <p>
+ * The delay is either fixed or the p95 latency the method has shown during the last half minute or so, which is
+ * recomputed at most once per {@link #REFRESH_INTERVAL_NANOS} since reading the histogram is not free. Only recent
+ * calls count, a p95 over the whole history would stop following the provider after the warm-up.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 19:40:00
+ */
+public final class HedgePolicy {
+
+    public static final HedgePolicy NONE = new HedgePolicy(-1, null);
+
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * below this many recent calls the p95 means nothing, do not hedge
+     */
+    private static final long MIN_CALLS = 100;
+    private static final double PERCENTILE = 95;
+
+    /**
+     * fixed delay, 0 for the observed p95, negative if hedging is off
+     */
+    private final long delayNanos;
+    private final MethodMetrics methodMetrics;
+    private volatile long adaptiveDelayNanos;
+    private volatile long nextRefreshNanos;
+
+    private HedgePolicy(long delayNanos, MethodMetrics methodMetrics) {
+        this.delayNanos = delayNanos;
+        this.methodMetrics = methodMetrics;
+    }
+
+    /**
+     * @param methodMetrics client side metrics of the method, used for the observed p95
+     */
+    public static HedgePolicy of(RpcServiceConfig rpcServiceConfig, String methodName, MethodMetrics methodMetrics) {
+        if (!rpcServiceConfig.isHedge()) {
+            return NONE;
+        }
+        String[] hedgeMethods = rpcServiceConfig.getHedgeMethods();
+        if (hedgeMethods != null && hedgeMethods.length > 0 && !Arrays.asList(hedgeMethods).contains(methodName)) {
+            return NONE;
+        }
+        return new HedgePolicy(TimeUnit.MILLISECONDS.toNanos(Math.max(rpcServiceConfig.getHedgeDelay(), 0)), methodMetrics);
+    }
+
+    public boolean isEnabled() {
+        return delayNanos >= 0;
+    }
+
+    /**
+     * @return how long to wait before sending the hedged request, 0 if there should be none this time
+     */
+    public long getDelayNanos() {
+        if (delayNanos != 0) {
+            return Math.max(delayNanos, 0);
+        }
+        long now = System.nanoTime();
+        if (now - nextRefreshNanos >= 0) {
+            nextRefreshNanos = now + REFRESH_INTERVAL_NANOS;
+            Histogram recentLatency = methodMetrics.getRecentLatency();
+            adaptiveDelayNanos = recentLatency.getTotalCount() < MIN_CALLS ? 0 : recentLatency.getValueAtPercentile(PERCENTILE);
+        }
+        return adaptiveDelayNanos;
+    }
+}
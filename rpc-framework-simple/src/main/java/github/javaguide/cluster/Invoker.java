@@ -0,0 +1,34 @@
+package github.javaguide.cluster;
+
+import github.javaguide.registry.Endpoint;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 集群容错策略看到的客户端：选一个服务提供方、把请求发给它
+ * What a {@link Cluster} needs from the transport: pick a provider and send one attempt to it
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 20:30:00
+ */
+public interface Invoker {
+
+    /**
+     * @param excludedAddresses host:port of providers already tried
+     * @return the selected provider, null if every provider is excluded
+     */
+    Endpoint select(RpcRequest rpcRequest, Set<String> excludedAddresses);
+
+    /**
+     * send one attempt, a failure to reach the provider completes the future exceptionally or is thrown
+     */
+    CompletableFuture<RpcResponse<Object>> invoke(RpcRequest rpcRequest, Endpoint endpoint);
+
+    /**
+     * budget of the extra requests, shared by all services of the client
+     */
+    RetryBudget getRetryBudget();
+}
@@ -0,0 +1,62 @@
+package github.javaguide.cluster;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 额外请求（重试、对冲请求）的令牌桶：每个正常请求存入 ratio 个令牌，每个额外请求取出一个，
+ * 下游过载、大量请求失败时额外请求最多只占正常请求的 ratio，不会把过载放大
+ * <p>
+ * Token bucket shared by retries and hedged requests. Tokens are kept in thousandths so a deposit of e.g.
+ * 0.1 is exact, all operations are lock-free.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 19:40:00
+ */
+public final class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    /**
+     * @param ratio      extra requests allowed per normal request, e.g. 0.1 for 10%
+     * @param maxBalance most extra requests that can be saved up for a burst, also the initial balance
+     */
+    public RetryBudget(double ratio, int maxBalance) {
+        this.depositPerRequest = (long) (Math.max(ratio, 0) * SCALE);
+        this.maxBalance = Math.max(maxBalance, 1) * SCALE;
+        this.balance = new AtomicLong(this.maxBalance);
+    }
+
+    /**
+     * called once for every normal request
+     */
+    public void deposit() {
+        if (depositPerRequest == 0) {
+            return;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(current + depositPerRequest, maxBalance)));
+    }
+
+    /**
+     * @return true if an extra request may be sent, its token is taken
+     */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
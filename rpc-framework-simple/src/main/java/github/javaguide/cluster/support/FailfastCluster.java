@@ -0,0 +1,27 @@
+package github.javaguide.cluster.support;
+
+import github.javaguide.cluster.AbstractCluster;
+import github.javaguide.cluster.Invoker;
+import github.javaguide.config.RpcServiceConfig;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+
+import java.util.Collections;
+
+/**
+ * 只调用一次，失败立即报错，用于非幂等的写操作，也是默认的集群容错策略。服务端过载拒绝的请求也不重试，需要的话用 failover
+ * One attempt only, for non-idempotent calls. Rejections (OVERLOADED, RATE_LIMITED) are returned as they are,
+ * failover retries them on another provider
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 20:30:00
+ */
+public class FailfastCluster extends AbstractCluster {
+
+    @Override
+    protected RpcResponse<Object> doInvoke(RpcRequest rpcRequest, Invoker invoker, RpcServiceConfig rpcServiceConfig) {
+        Endpoint endpoint = invoker.select(rpcRequest, Collections.emptySet());
+        return await(invoker.invoke(rpcRequest, endpoint));
+    }
+}
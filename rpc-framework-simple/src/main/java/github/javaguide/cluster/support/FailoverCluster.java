@@ -0,0 +1,69 @@
+package github.javaguide.cluster.support;
+
+import github.javaguide.cluster.AbstractCluster;
+import github.javaguide.cluster.Invoker;
+import github.javaguide.config.RpcServiceConfig;
+import github.javaguide.exception.RequestNotSentException;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 失败自动切换，失败后换一台没试过的服务提供方重试，最多重试 retries 次
+ * 每次重试都要先从重试预算里取令牌，下游整体过载时重试不会把流量放大
+ * <p>
+ * Only failures that prove the request was not executed are retried: it could not be sent (connect or write
+ * failure, see {@link RequestNotSentException}) or the provider rejected it with OVERLOADED or RATE_LIMITED.
+ * A timeout or a FAIL response may come after the method has run and is returned to the caller as it is.
+ * Retries go to providers not tried yet, a provider restart costs a retry instead of a failed call.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 20:30:00
+ */
+@Slf4j
+public class FailoverCluster extends AbstractCluster {
+
+    @Override
+    protected RpcResponse<Object> doInvoke(RpcRequest rpcRequest, Invoker invoker, RpcServiceConfig rpcServiceConfig) {
+        int retries = Math.max(rpcServiceConfig.getRetries(), 0);
+        Set<String> tried = new HashSet<>();
+        RpcResponse<Object> lastResponse = null;
+        RuntimeException lastException = null;
+        for (int attempt = 0; attempt <= retries; attempt++) {
+            if (attempt > 0 && rpcRequest.getDeadlineNanos() != 0 && System.nanoTime() - rpcRequest.getDeadlineNanos() >= 0) {
+                // the caller has given up
+                break;
+            }
+            if (attempt > 0 && !invoker.getRetryBudget().tryWithdraw()) {
+                log.warn("retry budget exhausted, give up [{}] after {} attempts", rpcRequest.getRequestId(), attempt);
+                break;
+            }
+            Endpoint endpoint = invoker.select(rpcRequest, tried);
+            if (endpoint == null) {
+                // every provider has been tried
+                break;
+            }
+            tried.add(endpoint.getAddress());
+            try {
+                RpcResponse<Object> rpcResponse = await(invoker.invoke(rpcRequest, endpoint));
+                if (isSuccess(rpcResponse) || !isRejected(rpcResponse)) {
+                    return rpcResponse;
+                }
+                lastResponse = rpcResponse;
+                lastException = null;
+            } catch (RequestNotSentException e) {
+                lastException = e;
+                lastResponse = null;
+            }
+            log.warn("attempt {} of [{}] to [{}] failed", attempt + 1, rpcRequest.getRequestId(), endpoint, lastException);
+        }
+        if (lastException != null) {
+            throw lastException;
+        }
+        return lastResponse;
+    }
+}
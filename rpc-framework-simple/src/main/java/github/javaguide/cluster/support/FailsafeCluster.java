@@ -0,0 +1,35 @@
+package github.javaguide.cluster.support;
+
+import github.javaguide.cluster.AbstractCluster;
+import github.javaguide.cluster.Invoker;
+import github.javaguide.config.RpcServiceConfig;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+
+/**
+ * 失败安全，出错时只打日志并返回 null，用于写审计日志之类可以丢的调用
+ * Failures are logged and the call returns null
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 20:30:00
+ */
+@Slf4j
+public class FailsafeCluster extends AbstractCluster {
+
+    @Override
+    protected RpcResponse<Object> doInvoke(RpcRequest rpcRequest, Invoker invoker, RpcServiceConfig rpcServiceConfig) {
+        try {
+            RpcResponse<Object> rpcResponse = await(invoker.invoke(rpcRequest, invoker.select(rpcRequest, Collections.emptySet())));
+            if (isSuccess(rpcResponse)) {
+                return rpcResponse;
+            }
+            log.warn("ignore the failed response of [{}]: [{}]", rpcRequest.getRequestId(), rpcResponse);
+        } catch (Exception e) {
+            log.warn("ignore the failure of [{}]", rpcRequest.getRequestId(), e);
+        }
+        return RpcResponse.success(null, rpcRequest.getRequestId());
+    }
+}
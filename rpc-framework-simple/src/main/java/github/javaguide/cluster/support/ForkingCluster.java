@@ -0,0 +1,74 @@
+package github.javaguide.cluster.support;
+
+import github.javaguide.cluster.AbstractCluster;
+import github.javaguide.cluster.Invoker;
+import github.javaguide.config.RpcServiceConfig;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并行调用 forks 台服务提供方，第一个成功的响应就是结果，全部失败才算失败，用于实时性要求高的读操作
+ * 除第一个以外的请求都要从重试预算里取令牌
+ * <p>
+ * Each copy gets its own requestId (the original id with a suffix) since the pending responses are keyed by it.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 20:30:00
+ */
+public class ForkingCluster extends AbstractCluster {
+
+    private static final int DEFAULT_FORKS = 2;
+
+    @Override
+    protected RpcResponse<Object> doInvoke(RpcRequest rpcRequest, Invoker invoker, RpcServiceConfig rpcServiceConfig) {
+        int forks = rpcServiceConfig.getForks() > 0 ? rpcServiceConfig.getForks() : DEFAULT_FORKS;
+        Set<String> selected = new HashSet<>();
+        List<Endpoint> endpoints = new ArrayList<>(forks);
+        for (int i = 0; i < forks; i++) {
+            if (i > 0 && !invoker.getRetryBudget().tryWithdraw()) {
+                break;
+            }
+            Endpoint endpoint = invoker.select(rpcRequest, selected);
+            if (endpoint == null) {
+                break;
+            }
+            selected.add(endpoint.getAddress());
+            endpoints.add(endpoint);
+        }
+        CompletableFuture<RpcResponse<Object>> resultFuture = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(endpoints.size());
+        for (int i = 0; i < endpoints.size(); i++) {
+            RpcRequest fork = i == 0 ? rpcRequest
+                    : rpcRequest.toBuilder().requestId(rpcRequest.getRequestId() + "-" + i).build();
+            CompletableFuture<RpcResponse<Object>> future;
+            try {
+                future = invoker.invoke(fork, endpoints.get(i));
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((rpcResponse, throwable) -> {
+                if (throwable == null && isSuccess(rpcResponse)) {
+                    // the response belongs to the original request whichever copy won
+                    rpcResponse.setRequestId(rpcRequest.getRequestId());
+                    resultFuture.complete(rpcResponse);
+                } else if (pending.decrementAndGet() == 0) {
+                    if (throwable != null) {
+                        resultFuture.completeExceptionally(throwable);
+                    } else {
+                        resultFuture.complete(rpcResponse);
+                    }
+                }
+            });
+        }
+        return await(resultFuture);
+    }
+}
@@ -34,11 +34,14 @@ public class CustomShutdownHook {
     public void clearAll() {
         log.info("addShutdownHook for clearAll");
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            try {
-                // 关闭网络服务
-                InetSocketAddress inetSocketAddress = new InetSocketAddress(InetAddress.getLocalHost().getHostAddress(), NettyRpcServer.PORT);
-                CuratorUtils.clearRegistry(CuratorUtils.getZkClient(), inetSocketAddress);
-            } catch (UnknownHostException ignored) {
+            // 没有向注册中心注册过服务（比如在本地压测时），就不需要再去连接 ZooKeeper 了
+            if (CuratorUtils.hasRegisteredPath()) {
+                try {
+                    // 关闭网络服务
+                    InetSocketAddress inetSocketAddress = new InetSocketAddress(InetAddress.getLocalHost().getHostAddress(), NettyRpcServer.PORT);
+                    CuratorUtils.clearRegistry(CuratorUtils.getZkClient(), inetSocketAddress);
+                } catch (UnknownHostException ignored) {
+                }
             }
             ThreadPoolFactoryUtil.shutDownAllThreadPool();
         }));
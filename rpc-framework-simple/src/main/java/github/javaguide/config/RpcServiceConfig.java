@@ -28,6 +28,64 @@ public class RpcServiceConfig {
      */
     private String group = "";
 
+    /**
+     * weight published to the registry, 0 means the default weight
+     */
+    private int weight;
+    /**
+     * server side: requests per second of the whole service, 0 means no limit
+     */
+    private int rateLimit;
+    /**
+     * server side: requests per second of each caller, 0 means no limit
+     */
+    private int callerRateLimit;
+    /**
+     * server side: method=permits or method=permits/callerPermits
+     */
+    private String[] methodRateLimits;
+
+    /**
+     * client side: milliseconds the caller waits for a call including its retries, 0 means rpc.consumer.timeout
+     */
+    private long timeout;
+    /**
+     * client side: send a hedged request to another provider when a response is late, only for idempotent methods
+     */
+    private boolean hedge;
+    /**
+     * milliseconds to wait before hedging, 0 means the observed p95 latency of the method
+     */
+    private long hedgeDelay;
+    /**
+     * methods to hedge, empty means all methods of the service
+     */
+    private String[] hedgeMethods;
+    /**
+     * client side: void methods return once the request is written and get no response, see {@link #onewayMethods}
+     */
+    private boolean oneway;
+    /**
+     * void methods to call oneway, empty means all of them
+     */
+    private String[] onewayMethods;
+    /**
+     * client side: pack concurrent calls to the same provider into one frame
+     */
+    private boolean batch;
+    /**
+     * client side: cluster policy, see ClusterEnum, empty means rpc.cluster (failfast by default)
+     */
+    private String cluster;
+    /**
+     * failover: retries after the first attempt, each to a provider not tried yet, only for requests never executed
+     */
+    private int retries;
+    /**
+     * forking: providers called in parallel, 0 means the default
+     */
+    private int forks;
+
     /**
      * target service
      */
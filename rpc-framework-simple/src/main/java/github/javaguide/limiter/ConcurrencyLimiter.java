@@ -0,0 +1,171 @@
+package github.javaguide.limiter;
+
+import github.javaguide.config.RpcConfig;
+import github.javaguide.enums.RpcConfigEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务端按服务的自适应并发限制（gradient 算法）：根据请求的耗时（排队 + 执行）自动调整同时处理的请求数上限，
+ * 超过上限的请求在 IO 线程上直接拒绝，不进业务线程池排队。耗时比长期平均值涨得多就减小上限，没有变慢而且上限被用满就慢慢加大。
+ * 上限从最大值开始，刚启动的服务不会因为上限太小拒绝突发的请求，真的变慢了才往下调
+ * <p>
+ * Every window (at least {@link #WINDOW_SAMPLES} samples and {@link #WINDOW_NANOS}) the short term average latency is
+ * compared with a long term moving average: {@code newLimit = limit * min(1, 1.5 * longRtt / shortRtt) + sqrt(limit)},
+ * smoothed and kept between rpc.provider.adaptivelimit.min (default 20) and rpc.provider.adaptivelimit.max (default
+ * rpc.provider.maxconcurrency, or 1000). Acquire and release are lock-free, only the thread that closes a window
+ * takes a lock to update the limit.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 21:40:00
+ */
+@Slf4j
+public final class ConcurrencyLimiter {
+
+    private static final ConcurrentHashMap<String, ConcurrencyLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    private static final int WINDOW_SAMPLES = 10;
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /**
+     * weight of a window in the long term latency average, about the last 600 windows
+     */
+    private static final double LONG_RTT_ALPHA = 2.0 / 601;
+    /**
+     * latency may grow by this factor before the limit is cut
+     */
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+
+    private static final int MIN_LIMIT;
+    private static final int MAX_LIMIT;
+
+    static {
+        RpcConfig rpcConfig = RpcConfig.getInstance();
+        MIN_LIMIT = Math.max(rpcConfig.getInt(RpcConfigEnum.PROVIDER_ADAPTIVE_LIMIT_MIN, 20), 1);
+        int maxConcurrency = rpcConfig.getInt(RpcConfigEnum.PROVIDER_MAX_CONCURRENCY, 0);
+        MAX_LIMIT = Math.max(rpcConfig.getInt(RpcConfigEnum.PROVIDER_ADAPTIVE_LIMIT_MAX,
+                maxConcurrency > 0 ? maxConcurrency : 1000), MIN_LIMIT);
+    }
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // current window, reset by the thread that closes it
+    private final AtomicLong windowRttSum = new AtomicLong();
+    private final AtomicInteger windowSamples = new AtomicInteger();
+    private volatile int windowMaxInFlight;
+    private volatile long windowStartNanos;
+
+    // guarded by this
+    private double estimatedLimit;
+    private double longRtt;
+
+    ConcurrencyLimiter(String name, int minLimit, int maxLimit, long nowNanos) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = maxLimit;
+        this.limit = maxLimit;
+        this.windowStartNanos = nowNanos;
+    }
+
+    /**
+     * @param rpcServiceName interface name + group + version
+     */
+    public static ConcurrencyLimiter of(String rpcServiceName) {
+        ConcurrencyLimiter limiter = LIMITERS.get(rpcServiceName);
+        return limiter != null ? limiter : LIMITERS.computeIfAbsent(rpcServiceName,
+                k -> new ConcurrencyLimiter(k, MIN_LIMIT, MAX_LIMIT, System.nanoTime()));
+    }
+
+    /**
+     * @return false if the request has to be rejected, otherwise {@link #release(long, boolean)} must follow
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        if (current + 1 > windowMaxInFlight) {
+            windowMaxInFlight = current + 1;
+        }
+        return true;
+    }
+
+    /**
+     * @param latencyNanos time from receiving the request to the end of its execution, queueing included
+     * @param success      failed executions release the slot without a latency sample
+     */
+    public void release(long latencyNanos, boolean success) {
+        release(latencyNanos, success, System.nanoTime());
+    }
+
+    void release(long latencyNanos, boolean success, long nowNanos) {
+        inFlight.decrementAndGet();
+        if (!success) {
+            return;
+        }
+        windowRttSum.addAndGet(latencyNanos);
+        if (windowSamples.incrementAndGet() >= WINDOW_SAMPLES && nowNanos - windowStartNanos >= WINDOW_NANOS) {
+            closeWindow(nowNanos);
+        }
+    }
+
+    private synchronized void closeWindow(long nowNanos) {
+        int samples = windowSamples.get();
+        if (samples < WINDOW_SAMPLES || nowNanos - windowStartNanos < WINDOW_NANOS) {
+            // closed by another thread in the meantime
+            return;
+        }
+        double shortRtt = (double) windowRttSum.getAndSet(0) / samples;
+        windowSamples.set(0);
+        int maxInFlight = windowMaxInFlight;
+        windowMaxInFlight = inFlight.get();
+        windowStartNanos = nowNanos;
+        update(shortRtt, maxInFlight);
+    }
+
+    private void update(double shortRtt, int maxInFlight) {
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt = longRtt * (1 - LONG_RTT_ALPHA) + shortRtt * LONG_RTT_ALPHA;
+        }
+        if (longRtt > shortRtt * 2) {
+            // recovering from an overload, the long term average is still inflated by it
+            longRtt *= 0.95;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        if (newLimit > estimatedLimit && maxInFlight < estimatedLimit / 2) {
+            // the traffic does not use the limit, raising it would prove nothing
+            return;
+        }
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        int next = (int) estimatedLimit;
+        if (next != limit) {
+            log.debug("concurrency limit of [{}]: {} -> {}, rtt {} us, long rtt {} us", name, limit, next,
+                    (long) (shortRtt / 1000), (long) (longRtt / 1000));
+            limit = next;
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,139 @@
+package github.javaguide.limiter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import github.javaguide.config.RpcServiceConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务端一个服务的限流规则：整个服务、每个调用方、某个方法、某个方法的每个调用方，每个维度一个令牌桶，
+ * 用于保护开销大的方法，不让一个异常的调用方把整个服务提供方拖垮
+ * <p>
+ * Rules come from {@link RpcServiceConfig}: rateLimit and callerRateLimit for the whole service, methodRateLimits
+ * entries like {@code search=100} (the method) or {@code search=100/10} (the method, and each caller of it). 0 means
+ * no limit. The most specific bucket is checked first, so a caller over its own limit does not use up the shared ones,
+ * and a request rejected by a later bucket gives back the tokens it has taken. A caller is the IP address of the
+ * client, the bucket of a caller that has been idle for a while is dropped.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 22:10:00
+ */
+@Slf4j
+public final class ServiceRateLimiter {
+
+    private static final ConcurrentHashMap<String, ServiceRateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    private final Rule serviceRule;
+    private final Map<String, Rule> methodRules;
+
+    private ServiceRateLimiter(Rule serviceRule, Map<String, Rule> methodRules) {
+        this.serviceRule = serviceRule;
+        this.methodRules = methodRules;
+    }
+
+    /**
+     * called when a service is published, does nothing if the service has no limit
+     */
+    public static void register(RpcServiceConfig rpcServiceConfig) {
+        Map<String, Rule> methodRules = new HashMap<>();
+        String[] methodRateLimits = rpcServiceConfig.getMethodRateLimits();
+        if (methodRateLimits != null) {
+            for (String methodRateLimit : methodRateLimits) {
+                parse(methodRules, methodRateLimit);
+            }
+        }
+        Rule serviceRule = new Rule(rpcServiceConfig.getRateLimit(), rpcServiceConfig.getCallerRateLimit());
+        if (serviceRule.isEmpty() && methodRules.isEmpty()) {
+            return;
+        }
+        LIMITERS.put(rpcServiceConfig.getRpcServiceName(), new ServiceRateLimiter(serviceRule, methodRules));
+        log.info("rate limits of [{}]: service [{}/{}], methods {}", rpcServiceConfig.getRpcServiceName(),
+                rpcServiceConfig.getRateLimit(), rpcServiceConfig.getCallerRateLimit(), methodRules.keySet());
+    }
+
+    private static void parse(Map<String, Rule> methodRules, String methodRateLimit) {
+        int eq = methodRateLimit.indexOf('=');
+        try {
+            String[] permits = methodRateLimit.substring(eq + 1).split("/");
+            if (eq <= 0 || permits.length > 2) {
+                throw new IllegalArgumentException();
+            }
+            int total = Integer.parseInt(permits[0].trim());
+            int perCaller = permits.length == 2 ? Integer.parseInt(permits[1].trim()) : 0;
+            methodRules.put(methodRateLimit.substring(0, eq).trim(), new Rule(total, perCaller));
+        } catch (IllegalArgumentException e) {
+            log.error("ignore invalid method rate limit [{}], expected method=permits or method=permits/callerPermits", methodRateLimit);
+        }
+    }
+
+    /**
+     * @param rpcServiceName interface name + group + version
+     * @return the limiter of the service, null if it has no limit
+     */
+    public static ServiceRateLimiter get(String rpcServiceName) {
+        return LIMITERS.get(rpcServiceName);
+    }
+
+    /**
+     * @param caller the client, its IP address
+     * @return false if the request is over one of the limits
+     */
+    public boolean tryAcquire(String methodName, String caller) {
+        Rule methodRule = methodRules.get(methodName);
+        TokenBucket[] buckets = {
+                methodRule == null ? null : methodRule.callerBucket(caller),
+                serviceRule.callerBucket(caller),
+                methodRule == null ? null : methodRule.bucket,
+                serviceRule.bucket};
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != null && !buckets[i].tryAcquire()) {
+                // 被拒绝的请求不占用令牌，已经拿到的还回去
+                for (int j = 0; j < i; j++) {
+                    if (buckets[j] != null) {
+                        buckets[j].refund();
+                    }
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Rule {
+        /**
+         * a bucket left alone for a second is full again, dropping it later than that loses nothing
+         */
+        private static final long CALLER_IDLE_SECONDS = 10;
+
+        private final TokenBucket bucket;
+        private final int callerPermits;
+        private final Cache<String, TokenBucket> callerBuckets = CacheBuilder.newBuilder()
+                .expireAfterAccess(CALLER_IDLE_SECONDS, TimeUnit.SECONDS).build();
+
+        private Rule(int permits, int callerPermits) {
+            this.bucket = permits > 0 ? new TokenBucket(permits) : null;
+            this.callerPermits = callerPermits;
+        }
+
+        private boolean isEmpty() {
+            return bucket == null && callerPermits <= 0;
+        }
+
+        /**
+         * @return null if callers have no limit of their own
+         */
+        private TokenBucket callerBucket(String caller) {
+            if (callerPermits <= 0) {
+                return null;
+            }
+            TokenBucket callerBucket = callerBuckets.getIfPresent(caller);
+            return callerBucket != null ? callerBucket
+                    : callerBuckets.asMap().computeIfAbsent(caller, k -> new TokenBucket(callerPermits));
+        }
+    }
+}
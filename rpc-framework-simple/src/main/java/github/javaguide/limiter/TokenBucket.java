@@ -0,0 +1,60 @@
+package github.javaguide.limiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶：每秒 permitsPerSecond 个令牌，最多攒一秒的量
+ * <p>
+ * Implemented as the equivalent GCRA: instead of a token count it keeps the time at which the bucket would be full
+ * again, so taking a token is a single CAS and there is no refill thread.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 22:10:00
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    /**
+     * theoretical arrival time of the next request, at or before now means the bucket is full
+     */
+    private final AtomicLong nextFreeNanos;
+
+    public TokenBucket(int permitsPerSecond) {
+        this(permitsPerSecond, System.nanoTime());
+    }
+
+    TokenBucket(int permitsPerSecond, long nowNanos) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+        }
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.capacityNanos = intervalNanos * permitsPerSecond;
+        this.nextFreeNanos = new AtomicLong(nowNanos);
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    boolean tryAcquire(long nowNanos) {
+        long current;
+        long next;
+        do {
+            current = nextFreeNanos.get();
+            next = (current - nowNanos < 0 ? nowNanos : current) + intervalNanos;
+            if (next - nowNanos > capacityNanos) {
+                return false;
+            }
+        } while (!nextFreeNanos.compareAndSet(current, next));
+        return true;
+    }
+
+    /**
+     * give back a token taken by {@link #tryAcquire()} for a request that was rejected after all
+     */
+    public void refund() {
+        nextFreeNanos.addAndGet(-intervalNanos);
+    }
+}
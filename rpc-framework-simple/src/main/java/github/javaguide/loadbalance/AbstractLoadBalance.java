@@ -1,5 +1,7 @@
 package github.javaguide.loadbalance;
 
+import github.javaguide.registry.Endpoint;
+import github.javaguide.registry.ProviderMetadata;
 import github.javaguide.remoting.dto.RpcRequest;
 import github.javaguide.utils.CollectionUtil;
 
@@ -15,20 +17,39 @@ import java.util.List;
  */
 public abstract class AbstractLoadBalance implements LoadBalance {
     @Override
-    public String selectServiceAddress(List<String> serviceAddresses, RpcRequest rpcRequest) {
+    public Endpoint selectServiceAddress(List<Endpoint> endpoints, RpcRequest rpcRequest) {
         // 如果可选服务列表为空，那就直接返回null
-        if (CollectionUtil.isEmpty(serviceAddresses)) {
+        if (CollectionUtil.isEmpty(endpoints)) {
             return null;
         }
         // 只有一个RPC服务可选，直接返回
-        if (serviceAddresses.size() == 1) {
-            return serviceAddresses.get(0);
+        if (endpoints.size() == 1) {
+            return endpoints.get(0);
         }
         // 执行负载均衡算法，RandomLoadBalance是随机负载均衡，从列表中随机选出来一个
-        // ConsistentHashLoadBalance是一致性哈希负载均衡
-        return doSelect(serviceAddresses, rpcRequest);
+        // ConsistentHashLoadBalance是一致性哈希负载均衡，其他几种见 LoadBalanceEnum
+        return doSelect(endpoints, rpcRequest);
     }
 
-    protected abstract String doSelect(List<String> serviceAddresses, RpcRequest rpcRequest);
+    protected abstract Endpoint doSelect(List<Endpoint> endpoints, RpcRequest rpcRequest);
+
+    /**
+     * 服务提供方发布的权重，刚启动的服务器还在预热（JIT 没编译完、缓存是冷的），权重按启动时长线性增加
+     * weight of a provider, ramped up during its warm-up period
+     */
+    protected int getWeight(Endpoint endpoint, RpcRequest rpcRequest) {
+        int weight = endpoint.getWeight();
+        ProviderMetadata metadata = endpoint.getMetadata();
+        if (weight > 0 && metadata.getTimestamp() > 0 && metadata.getWarmup() > 0) {
+            long uptime = System.currentTimeMillis() - metadata.getTimestamp();
+            if (uptime < 0) {
+                return 1;
+            }
+            if (uptime < metadata.getWarmup()) {
+                return (int) Math.max(1, uptime * weight / metadata.getWarmup());
+            }
+        }
+        return weight;
+    }
 
 }
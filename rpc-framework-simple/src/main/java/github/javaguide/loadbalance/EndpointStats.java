@@ -0,0 +1,112 @@
+package github.javaguide.loadbalance;
+
+import com.google.common.collect.MapMaker;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端视角下某个服务提供方地址的实时负载：正在处理中的请求数和响应时间的 peak EWMA
+ * <p>
+ * Maintained by the client transport ({@link #begin()} before a request is written, {@link #end(long, boolean)}
+ * when its future completes) and read by the stats based load balancers. All updates are lock-free.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 15:10:00
+ */
+public final class EndpointStats {
+
+    /**
+     * weak values: the stats of an address live as long as an Endpoint (of any service) or an in-flight request
+     * holds them, addresses that have left the registry do not pile up here
+     */
+    private static final ConcurrentMap<String, EndpointStats> STATS = new MapMaker().weakValues().makeMap();
+    /**
+     * decay time of the response time average, a sample older than this weighs about 1/e
+     */
+    private static final double DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final String address;
+    /**
+     * a plain atomic rather than a LongAdder: it is read on every selection, and LongAdder.sum() walks all cells
+     */
+    private final AtomicInteger active = new AtomicInteger();
+    /**
+     * Double.doubleToRawLongBits of the moving average in nanoseconds
+     */
+    private final AtomicLong ewmaBits = new AtomicLong(Double.doubleToRawLongBits(0));
+    private volatile long lastUpdateNanos = System.nanoTime();
+
+    private EndpointStats(String address) {
+        this.address = address;
+    }
+
+    /**
+     * @param address host:port as published in the registry
+     */
+    public static EndpointStats of(String address) {
+        EndpointStats stats = STATS.get(address);
+        return stats != null ? stats : STATS.computeIfAbsent(address, EndpointStats::new);
+    }
+
+    /**
+     * @return the start time to pass to {@link #end(long, boolean)}
+     */
+    public long begin() {
+        active.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void end(long beginNanos, boolean success) {
+        active.decrementAndGet();
+        long now = System.nanoTime();
+        // a failed call tells nothing about the response time, it only releases the slot
+        if (success) {
+            observe(now - beginNanos, now);
+        }
+    }
+
+    /**
+     * peak EWMA: a sample above the average replaces it at once, lower samples are blended in with a time based decay
+     */
+    private void observe(long rttNanos, long now) {
+        double weight = Math.exp(-Math.max(now - lastUpdateNanos, 0) / DECAY_NANOS);
+        lastUpdateNanos = now;
+        long current;
+        double next;
+        do {
+            current = ewmaBits.get();
+            double decayed = Double.longBitsToDouble(current) * weight;
+            next = rttNanos > decayed ? rttNanos : decayed + rttNanos * (1 - weight);
+        } while (!ewmaBits.compareAndSet(current, Double.doubleToRawLongBits(next)));
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * @return requests sent to this address that have not completed yet
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * @return the response time moving average in nanoseconds, 0 if nothing has been observed.
+     * It keeps decaying while no response comes back, so an address that was slow once gets probed again later
+     */
+    public double getEwmaNanos() {
+        double idleNanos = Math.max(System.nanoTime() - lastUpdateNanos, 0);
+        return Double.longBitsToDouble(ewmaBits.get()) * Math.exp(-idleNanos / DECAY_NANOS);
+    }
+
+    /**
+     * expected cost of sending one more request here: the moving average scaled by the requests already queued
+     */
+    public double getCost() {
+        return getEwmaNanos() * (getActive() + 1);
+    }
+}
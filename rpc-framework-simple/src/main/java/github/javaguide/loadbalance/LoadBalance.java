@@ -1,6 +1,7 @@
 package github.javaguide.loadbalance;
 
 import github.javaguide.extension.SPI;
+import github.javaguide.registry.Endpoint;
 import github.javaguide.remoting.dto.RpcRequest;
 
 import java.util.List;
@@ -16,11 +17,11 @@ import java.util.List;
 @SPI
 public interface LoadBalance {
     /**
-     * Choose one from the list of existing service addresses list
+     * Choose one from the list of existing service providers
      *
-     * @param serviceUrlList Service address list
+     * @param endpoints  service providers
      * @param rpcRequest
-     * @return target service address
+     * @return target service provider
      */
-    String selectServiceAddress(List<String> serviceUrlList, RpcRequest rpcRequest);
+    Endpoint selectServiceAddress(List<Endpoint> endpoints, RpcRequest rpcRequest);
 }
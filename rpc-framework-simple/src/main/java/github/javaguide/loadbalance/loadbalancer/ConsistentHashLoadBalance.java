@@ -1,95 +1,354 @@
 package github.javaguide.loadbalance.loadbalancer;
 
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import github.javaguide.config.RpcConfig;
+import github.javaguide.enums.RpcConfigEnum;
 import github.javaguide.loadbalance.AbstractLoadBalance;
+import github.javaguide.registry.Endpoint;
 import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.utils.concurrent.threadpool.ThreadPoolFactoryUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 /**
- * 一致性哈希负载均衡，即来自同一个IP的请求总会被转发到同一台服务器
+ * 一致性哈希负载均衡，参数相同的请求总会被转发到同一台服务器
  * refer to dubbo consistent hash load balance: https://github.com/apache/dubbo/blob/2d9583adf26a2d8bd6fb646243a9fe80a77e65d5/dubbo-cluster/src/main/java/org/apache/dubbo/rpc/cluster/loadbalance/ConsistentHashLoadBalance.java
+ * <p>
+ * 哈希环用有序的 long[] 保存虚拟节点，二分查找定位；哈希函数用 murmur3 代替 MD5。
+ * 参与哈希的参数位置通过 rpc.loadbalance.consistenthash.arguments 配置（如 "0,2"），默认只用第一个参数，
+ * 参数需要有基于值的 toString()，数组会按内容展开
+ * <p>
+ * 每个服务的环是不可变的快照，通过 AtomicReference 整体替换。服务列表的内容变化后，在后台线程里只增删变化节点的虚拟节点，
+ * 新环就绪前请求继续使用旧环，并跳过已经下线的节点
  *
  * @author RicardoZ
  * @createTime 2020年10月20日 18:15:20
  */
 @Slf4j
 public class ConsistentHashLoadBalance extends AbstractLoadBalance {
-    private final ConcurrentHashMap<String, ConsistentHashSelector> selectors = new ConcurrentHashMap<>();
+    private static final int VIRTUAL_NODES = 160;
+    private static final int[] DEFAULT_HASH_ARGUMENTS = {0};
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final ExecutorService REBUILD_EXECUTOR = Executors.newSingleThreadExecutor(
+            ThreadPoolFactoryUtil.createThreadFactory("consistent-hash-rebuild", true));
+
+    private final ConcurrentHashMap<String, Ring> rings = new ConcurrentHashMap<>();
+    private final int[] hashArguments;
+
+    public ConsistentHashLoadBalance() {
+        this.hashArguments = parseHashArguments(RpcConfig.getInstance().getString(RpcConfigEnum.CONSISTENT_HASH_ARGUMENTS));
+    }
 
     @Override
-    protected String doSelect(List<String> serviceAddresses, RpcRequest rpcRequest) {
-        // 所有的服务器列表映射为一个哈希值
-        int identityHashCode = System.identityHashCode(serviceAddresses);
+    protected Endpoint doSelect(List<Endpoint> endpoints, RpcRequest rpcRequest) {
         // build rpc service name by rpcRequest，这个 rpcServiceName 由 服务接口名+集群+版本号 组成，这就是一个服务提供方的唯一标识了
         String rpcServiceName = rpcRequest.getRpcServiceName();
-        // 根据唯一标识获取目标服务器
-        ConsistentHashSelector selector = selectors.get(rpcServiceName);
-        // check for updates
-        if (selector == null || selector.identityHashCode != identityHashCode) {
-            selectors.put(rpcServiceName, new ConsistentHashSelector(serviceAddresses, 160, identityHashCode));
-            selector = selectors.get(rpcServiceName);
-        }
-        return selector.select(rpcServiceName + Arrays.stream(rpcRequest.getParameters()));
+        Ring ring = rings.computeIfAbsent(rpcServiceName, k -> new Ring());
+        // 每个服务有自己的环，所以 key 里不需要再带上服务名
+        long hash = hash(hashKey(rpcRequest.getParameters()));
+        ConsistentHashSelector selector = ring.selector.get();
+        if (selector == null) {
+            // 第一次调用没有旧环可用，只能在当前线程里构建
+            selector = ring.initialize(endpoints);
+        } else if (ring.lastSeen != endpoints) {
+            // CuratorUtils 每次 ZooKeeper 事件都会换一个新的 List，只有内容真的变了才需要重建
+            if (selector.hasSameInvokers(endpoints)) {
+                ring.lastSeen = endpoints;
+            } else {
+                Map<String, Endpoint> available = scheduleRebuild(ring, endpoints);
+                return selector.selectForKey(hash, available, endpoints);
+            }
+        }
+        return selector.selectForKey(hash);
     }
 
-    static class ConsistentHashSelector {
-        private final TreeMap<Long, String> virtualInvokers;
+    /**
+     * @return the endpoints the ring is being rebuilt for, by address
+     */
+    private static Map<String, Endpoint> scheduleRebuild(Ring ring, List<Endpoint> endpoints) {
+        PendingEndpoints pending = ring.latest;
+        if (pending == null || pending.endpoints != endpoints) {
+            pending = new PendingEndpoints(endpoints);
+            ring.latest = pending;
+        }
+        if (ring.rebuilding.compareAndSet(false, true)) {
+            try {
+                REBUILD_EXECUTOR.execute(() -> rebuild(ring));
+            } catch (RejectedExecutionException e) {
+                // shutting down, nobody else is going to rebuild it
+                rebuild(ring);
+            }
+        }
+        // otherwise the running rebuild picks up ring.latest before it finishes
+        return pending.byAddress;
+    }
 
-        private final int identityHashCode;
+    private static void rebuild(Ring ring) {
+        try {
+            List<Endpoint> target;
+            do {
+                target = ring.latest.endpoints;
+                ConsistentHashSelector current = ring.selector.get();
+                if (!current.hasSameInvokers(target)) {
+                    ring.selector.set(current.withInvokers(target));
+                }
+                ring.lastSeen = target;
+            } while (target != ring.latest.endpoints);
+        } catch (Throwable e) {
+            log.error("rebuild consistent hash ring failed", e);
+        } finally {
+            ring.rebuilding.set(false);
+        }
+    }
 
-        ConsistentHashSelector(List<String> invokers, int replicaNumber, int identityHashCode) {
-            this.virtualInvokers = new TreeMap<>();
-            this.identityHashCode = identityHashCode;
+    /**
+     * 按配置的参数位置拼出哈希 key，不存在的位置直接跳过
+     */
+    String hashKey(Object[] parameters) {
+        if (parameters == null || parameters.length == 0) {
+            return "";
+        }
+        Object[] selected = new Object[hashArguments.length];
+        for (int i = 0; i < hashArguments.length; i++) {
+            int position = hashArguments[i];
+            selected[i] = position < parameters.length ? parameters[position] : null;
+        }
+        // deepToString expands nested arrays (e.g. byte[]) by content instead of identity
+        return Arrays.deepToString(selected);
+    }
 
-            for (String invoker : invokers) {
-                for (int i = 0; i < replicaNumber / 4; i++) {
-                    byte[] digest = md5(invoker + i);
-                    for (int h = 0; h < 4; h++) {
-                        long m = hash(digest, h);
-                        virtualInvokers.put(m, invoker);
-                    }
-                }
+    static int[] parseHashArguments(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_HASH_ARGUMENTS;
+        }
+        try {
+            int[] positions = Arrays.stream(value.split(","))
+                    .map(String::trim)
+                    .filter(s -> !s.isEmpty())
+                    .mapToInt(Integer::parseInt)
+                    .toArray();
+            if (positions.length == 0 || Arrays.stream(positions).anyMatch(p -> p < 0)) {
+                throw new NumberFormatException(value);
             }
+            return positions;
+        } catch (NumberFormatException e) {
+            log.error("invalid [{}]: [{}], fall back to the first argument",
+                    RpcConfigEnum.CONSISTENT_HASH_ARGUMENTS.getPropertyValue(), value);
+            return DEFAULT_HASH_ARGUMENTS;
         }
+    }
 
-        static byte[] md5(String key) {
-            MessageDigest md;
-            try {
-                md = MessageDigest.getInstance("MD5");
-                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
-                md.update(bytes);
-            } catch (NoSuchAlgorithmException e) {
-                throw new IllegalStateException(e.getMessage(), e);
+    static long hash(String key) {
+        return HASH_FUNCTION.hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+
+    /**
+     * 一个服务当前生效的环，以及后台重建需要的状态
+     */
+    private static final class Ring {
+        private final AtomicReference<ConsistentHashSelector> selector = new AtomicReference<>();
+        private final AtomicBoolean rebuilding = new AtomicBoolean();
+        /**
+         * the address list instance the current selector was checked against, lets the hot path skip the content comparison
+         */
+        private volatile List<Endpoint> lastSeen;
+        /**
+         * the newest address list waiting to be applied by the rebuild thread
+         */
+        private volatile PendingEndpoints latest;
+
+        private synchronized ConsistentHashSelector initialize(List<Endpoint> endpoints) {
+            ConsistentHashSelector current = selector.get();
+            if (current == null) {
+                current = ConsistentHashSelector.of(endpoints, VIRTUAL_NODES);
+                selector.set(current);
+                lastSeen = endpoints;
             }
+            return current;
+        }
+    }
+
+    private static final class PendingEndpoints {
+        private final List<Endpoint> endpoints;
+        private final Map<String, Endpoint> byAddress;
+
+        private PendingEndpoints(List<Endpoint> endpoints) {
+            this.endpoints = endpoints;
+            this.byAddress = new HashMap<>(endpoints.size() * 2);
+            endpoints.forEach(endpoint -> byAddress.put(endpoint.getAddress(), endpoint));
+        }
+    }
+
+    /**
+     * 不可变的哈希环快照
+     */
+    static final class ConsistentHashSelector {
+        private static final long[] NO_POINTS = new long[0];
+        private static final int[] NO_OWNERS = new int[0];
 
-            return md.digest();
+        /**
+         * 虚拟节点在环上的位置，升序
+         */
+        private final long[] points;
+        /**
+         * points[i] 对应的服务器在 invokers 中的下标
+         */
+        private final int[] owners;
+        private final Endpoint[] invokers;
+        /**
+         * address -> index in invokers
+         */
+        private final Map<String, Integer> indexes;
+        private final int replicaNumber;
+
+        private ConsistentHashSelector(long[] points, int[] owners, Endpoint[] invokers, Map<String, Integer> indexes, int replicaNumber) {
+            this.points = points;
+            this.owners = owners;
+            this.invokers = invokers;
+            this.indexes = indexes;
+            this.replicaNumber = replicaNumber;
         }
 
-        static long hash(byte[] digest, int idx) {
-            return ((long) (digest[3 + idx * 4] & 255) << 24 | (long) (digest[2 + idx * 4] & 255) << 16 | (long) (digest[1 + idx * 4] & 255) << 8 | (long) (digest[idx * 4] & 255)) & 4294967295L;
+        static ConsistentHashSelector of(List<Endpoint> invokers, int replicaNumber) {
+            return new ConsistentHashSelector(NO_POINTS, NO_OWNERS, new Endpoint[0], Collections.emptyMap(), replicaNumber)
+                    .withInvokers(invokers);
         }
 
-        public String select(String rpcServiceKey) {
-            byte[] digest = md5(rpcServiceKey);
-            return selectForKey(hash(digest, 0));
+        /**
+         * 比较的是 Endpoint 对象本身：地址没变但 Endpoint 被替换了（例如元数据变化），也要换成新的对象
+         */
+        boolean hasSameInvokers(List<Endpoint> other) {
+            if (other.size() != invokers.length) {
+                return false;
+            }
+            for (Endpoint endpoint : other) {
+                Integer index = indexes.get(endpoint.getAddress());
+                if (index == null || invokers[index] != endpoint) {
+                    return false;
+                }
+            }
+            return true;
         }
 
-        public String selectForKey(long hashCode) {
-            Map.Entry<Long, String> entry = virtualInvokers.tailMap(hashCode, true).firstEntry();
+        /**
+         * 生成一个新的环：删掉下线节点的虚拟节点，只为新增节点计算哈希，再和保留下来的部分做一次有序归并
+         */
+        ConsistentHashSelector withInvokers(List<Endpoint> newInvokers) {
+            Map<String, Endpoint> distinct = new LinkedHashMap<>(newInvokers.size() * 2);
+            newInvokers.forEach(endpoint -> distinct.putIfAbsent(endpoint.getAddress(), endpoint));
+            Endpoint[] nextInvokers = distinct.values().toArray(new Endpoint[0]);
+            Map<String, Integer> nextIndex = new HashMap<>(nextInvokers.length * 2);
+            for (int i = 0; i < nextInvokers.length; i++) {
+                nextIndex.put(nextInvokers[i].getAddress(), i);
+            }
+            // old owner index -> new owner index, -1 if the invoker was removed
+            int[] remap = new int[invokers.length];
+            for (int i = 0; i < invokers.length; i++) {
+                remap[i] = nextIndex.getOrDefault(invokers[i].getAddress(), -1);
+            }
+            List<Integer> added = new ArrayList<>();
+            for (int i = 0; i < nextInvokers.length; i++) {
+                if (!indexes.containsKey(nextInvokers[i].getAddress())) {
+                    added.add(i);
+                }
+            }
 
-            if (entry == null) {
-                entry = virtualInvokers.firstEntry();
+            // virtual nodes of the new invokers, sorted together with their owners
+            int addedSize = added.size() * replicaNumber;
+            long[] unsortedPoints = new long[addedSize];
+            int[] unsortedOwners = new int[addedSize];
+            for (int a = 0; a < added.size(); a++) {
+                int owner = added.get(a);
+                for (int i = 0; i < replicaNumber; i++) {
+                    unsortedPoints[a * replicaNumber + i] = hash(nextInvokers[owner].getAddress() + "#" + i);
+                    unsortedOwners[a * replicaNumber + i] = owner;
+                }
             }
+            int[] order = IntStream.range(0, addedSize).boxed()
+                    .sorted(Comparator.comparingLong(i -> unsortedPoints[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
 
-            return entry.getValue();
+            // merge the surviving points with the new ones
+            int keptSize = 0;
+            for (int owner : owners) {
+                if (remap[owner] >= 0) {
+                    keptSize++;
+                }
+            }
+            long[] nextPoints = new long[keptSize + addedSize];
+            int[] nextOwners = new int[keptSize + addedSize];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (k < nextPoints.length) {
+                while (i < points.length && remap[owners[i]] < 0) {
+                    i++;
+                }
+                if (i < points.length && (j == addedSize || points[i] <= unsortedPoints[order[j]])) {
+                    nextPoints[k] = points[i];
+                    nextOwners[k++] = remap[owners[i++]];
+                } else {
+                    nextPoints[k] = unsortedPoints[order[j]];
+                    nextOwners[k++] = unsortedOwners[order[j++]];
+                }
+            }
+            return new ConsistentHashSelector(nextPoints, nextOwners, nextInvokers, Collections.unmodifiableMap(nextIndex), replicaNumber);
+        }
+
+        public Endpoint select(String key) {
+            return selectForKey(hash(key));
+        }
+
+        public Endpoint selectForKey(long hashCode) {
+            return invokers[owners[indexOf(hashCode)]];
+        }
+
+        /**
+         * 环还没来得及重建时使用：顺时针跳过已经下线的节点，都下线了就直接按哈希值在新列表里取一个
+         *
+         * @param available the new endpoints by address
+         */
+        Endpoint selectForKey(long hashCode, Map<String, Endpoint> available, List<Endpoint> fallback) {
+            if (points.length > 0) {
+                int start = indexOf(hashCode);
+                for (int n = 0; n < points.length; n++) {
+                    Endpoint invoker = available.get(invokers[owners[(start + n) % points.length]].getAddress());
+                    if (invoker != null) {
+                        return invoker;
+                    }
+                }
+            }
+            return fallback.get((int) Math.floorMod(hashCode, (long) fallback.size()));
+        }
+
+        private int indexOf(long hashCode) {
+            int index = Arrays.binarySearch(points, hashCode);
+            if (index < 0) {
+                // 没有正好落在虚拟节点上，取顺时针方向的下一个节点
+                index = -index - 1;
+                if (index == points.length) {
+                    index = 0;
+                }
+            }
+            return index;
         }
     }
 }
@@ -0,0 +1,57 @@
+package github.javaguide.loadbalance.loadbalancer;
+
+import github.javaguide.loadbalance.AbstractLoadBalance;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.remoting.dto.RpcRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 最少活跃数负载均衡，选择当前正在处理的请求最少的服务器，处理得快的服务器自然会分到更多请求
+ * 活跃数相同的服务器之间按权重随机选择
+ * Implementation of least active load balancing strategy
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 15:30:00
+ */
+public class LeastActiveLoadBalance extends AbstractLoadBalance {
+    @Override
+    protected Endpoint doSelect(List<Endpoint> endpoints, RpcRequest rpcRequest) {
+        int size = endpoints.size();
+        int leastActive = Integer.MAX_VALUE;
+        int leastCount = 0;
+        int[] leastIndexes = new int[size];
+        int[] weights = new int[size];
+        int totalWeight = 0;
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get(i);
+            int active = endpoint.getStats().getActive();
+            int weight = getWeight(endpoint, rpcRequest);
+            if (active < leastActive) {
+                leastActive = active;
+                leastCount = 0;
+                totalWeight = 0;
+            }
+            if (active == leastActive) {
+                leastIndexes[leastCount++] = i;
+                weights[i] = weight;
+                totalWeight += weight;
+            }
+        }
+        if (leastCount == 1) {
+            return endpoints.get(leastIndexes[0]);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (totalWeight > 0) {
+            int offset = random.nextInt(totalWeight);
+            for (int i = 0; i < leastCount; i++) {
+                offset -= weights[leastIndexes[i]];
+                if (offset < 0) {
+                    return endpoints.get(leastIndexes[i]);
+                }
+            }
+        }
+        return endpoints.get(leastIndexes[random.nextInt(leastCount)]);
+    }
+}
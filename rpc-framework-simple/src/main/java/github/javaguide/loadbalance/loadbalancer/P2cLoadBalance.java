@@ -0,0 +1,39 @@
+package github.javaguide.loadbalance.loadbalancer;
+
+import github.javaguide.loadbalance.AbstractLoadBalance;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.remoting.dto.RpcRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power of two choices 负载均衡：随机挑两台服务器，选 (正在处理的请求数 + 1) / 权重 小的那台
+ * 和最少活跃数相比只需要 O(1) 的代价，而且很多客户端看到的活跃数不准时，也不会一窝蜂地打到同一台服务器上
+ * Implementation of power of two choices load balancing strategy
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 16:20:00
+ */
+public class P2cLoadBalance extends AbstractLoadBalance {
+    @Override
+    protected Endpoint doSelect(List<Endpoint> endpoints, RpcRequest rpcRequest) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = endpoints.size();
+        int first = random.nextInt(size);
+        // pick a second index different from the first one
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint firstEndpoint = endpoints.get(first);
+        Endpoint secondEndpoint = endpoints.get(second);
+        // compare (active + 1) / weight without dividing
+        long firstLoad = (firstEndpoint.getStats().getActive() + 1L) * Math.max(getWeight(secondEndpoint, rpcRequest), 1);
+        long secondLoad = (secondEndpoint.getStats().getActive() + 1L) * Math.max(getWeight(firstEndpoint, rpcRequest), 1);
+        if (firstLoad == secondLoad) {
+            return random.nextBoolean() ? firstEndpoint : secondEndpoint;
+        }
+        return firstLoad < secondLoad ? firstEndpoint : secondEndpoint;
+    }
+}
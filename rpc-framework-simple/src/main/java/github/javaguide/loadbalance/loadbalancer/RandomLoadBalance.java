@@ -1,13 +1,14 @@
 package github.javaguide.loadbalance.loadbalancer;
 
 import github.javaguide.loadbalance.AbstractLoadBalance;
+import github.javaguide.registry.Endpoint;
 import github.javaguide.remoting.dto.RpcRequest;
 
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * 随机负载均衡，直接从所有服务器地址里面随机拿出来一个
+ * 随机负载均衡，按权重从所有服务器地址里面随机拿出来一个，权重都一样时就是普通的随机
  * Implementation of random load balancing strategy
  *
  * @author shuang.kou
@@ -15,8 +16,27 @@ import java.util.Random;
  */
 public class RandomLoadBalance extends AbstractLoadBalance {
     @Override
-    protected String doSelect(List<String> serviceAddresses, RpcRequest rpcRequest) {
-        Random random = new Random();
-        return serviceAddresses.get(random.nextInt(serviceAddresses.size()));
+    protected Endpoint doSelect(List<Endpoint> endpoints, RpcRequest rpcRequest) {
+        int size = endpoints.size();
+        int[] weights = new int[size];
+        int totalWeight = 0;
+        boolean sameWeight = true;
+        for (int i = 0; i < size; i++) {
+            weights[i] = getWeight(endpoints.get(i), rpcRequest);
+            totalWeight += weights[i];
+            sameWeight = sameWeight && weights[i] == weights[0];
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (sameWeight || totalWeight <= 0) {
+            return endpoints.get(random.nextInt(size));
+        }
+        int offset = random.nextInt(totalWeight);
+        for (int i = 0; i < size; i++) {
+            offset -= weights[i];
+            if (offset < 0) {
+                return endpoints.get(i);
+            }
+        }
+        return endpoints.get(size - 1);
     }
 }
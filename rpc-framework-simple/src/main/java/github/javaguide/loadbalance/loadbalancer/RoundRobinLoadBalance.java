@@ -0,0 +1,56 @@
+package github.javaguide.loadbalance.loadbalancer;
+
+import github.javaguide.loadbalance.AbstractLoadBalance;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.remoting.dto.RpcRequest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 加权轮询负载均衡，使用平滑加权轮询（和 nginx 一样），权重高的服务器不会连续被选中
+ * 每台服务器的 current weight 是一个 AtomicLong，整个选择过程不加锁；并发下会有轻微的不均匀，但会很快收敛
+ * Implementation of lock-free smooth weighted round robin load balancing strategy
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 15:50:00
+ */
+public class RoundRobinLoadBalance extends AbstractLoadBalance {
+    /**
+     * rpcServiceName -> service address -> current weight
+     */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, AtomicLong>> currentWeights = new ConcurrentHashMap<>();
+
+    @Override
+    protected Endpoint doSelect(List<Endpoint> endpoints, RpcRequest rpcRequest) {
+        ConcurrentHashMap<String, AtomicLong> weights = currentWeights.computeIfAbsent(rpcRequest.getRpcServiceName(), k -> new ConcurrentHashMap<>());
+        if (weights.size() > endpoints.size()) {
+            // some providers went offline, forget their state
+            Set<String> addresses = endpoints.stream().map(Endpoint::getAddress).collect(Collectors.toSet());
+            weights.keySet().retainAll(addresses);
+        }
+        long totalWeight = 0;
+        long maxCurrent = Long.MIN_VALUE;
+        Endpoint selected = null;
+        AtomicLong selectedCurrent = null;
+        for (Endpoint endpoint : endpoints) {
+            int weight = getWeight(endpoint, rpcRequest);
+            AtomicLong current = weights.get(endpoint.getAddress());
+            if (current == null) {
+                current = weights.computeIfAbsent(endpoint.getAddress(), k -> new AtomicLong());
+            }
+            long value = current.addAndGet(weight);
+            totalWeight += weight;
+            if (value > maxCurrent) {
+                maxCurrent = value;
+                selected = endpoint;
+                selectedCurrent = current;
+            }
+        }
+        selectedCurrent.addAndGet(-totalWeight);
+        return selected;
+    }
+}
@@ -0,0 +1,41 @@
+package github.javaguide.loadbalance.loadbalancer;
+
+import github.javaguide.loadbalance.AbstractLoadBalance;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.remoting.dto.RpcRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 最短响应时间负载均衡，按 响应时间的 peak EWMA * (活跃数 + 1) / 权重 估算每台服务器的代价，选代价最小的
+ * 还没有响应过的服务器代价为 0，会先被探测到；代价相同的服务器之间随机选择
+ * Implementation of peak EWMA shortest response time load balancing strategy
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 15:40:00
+ */
+public class ShortestResponseLoadBalance extends AbstractLoadBalance {
+    @Override
+    protected Endpoint doSelect(List<Endpoint> endpoints, RpcRequest rpcRequest) {
+        int size = endpoints.size();
+        double shortestCost = Double.MAX_VALUE;
+        int shortestCount = 0;
+        int[] shortestIndexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get(i);
+            double cost = endpoint.getStats().getCost() / Math.max(getWeight(endpoint, rpcRequest), 1);
+            if (cost < shortestCost) {
+                shortestCost = cost;
+                shortestCount = 0;
+            }
+            if (cost == shortestCost) {
+                shortestIndexes[shortestCount++] = i;
+            }
+        }
+        if (shortestCount == 1) {
+            return endpoints.get(shortestIndexes[0]);
+        }
+        return endpoints.get(shortestIndexes[ThreadLocalRandom.current().nextInt(shortestCount)]);
+    }
+}
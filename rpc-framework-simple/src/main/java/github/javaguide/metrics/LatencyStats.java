@@ -0,0 +1,88 @@
+package github.javaguide.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 延迟统计：写入走 HdrHistogram 的 {@link Recorder}（wait-free，不会阻塞请求线程），
+ * 读取时才把间隔直方图累加到总的直方图里
+ * <p>
+ * Besides the totals it can keep the last {@link #RECENT_SLOTS} slots of {@link #RECENT_SLOT_NANOS} each, for
+ * decisions that have to follow the current latency rather than the whole history. The slots are only
+ * allocated once {@link #recentSnapshot()} has been called, values are put into the slot of the read that
+ * drains them.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 14:05:00
+ */
+public class LatencyStats {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final long RECENT_SLOT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int RECENT_SLOTS = 3;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private final Histogram accumulated = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private Histogram interval;
+    private Histogram[] recentSlots;
+    private long currentSlot;
+
+    public void record(long nanos) {
+        recorder.recordValue(Math.min(Math.max(nanos, 0), HIGHEST_TRACKABLE_NANOS));
+    }
+
+    /**
+     * @return a copy of everything recorded since creation or the last {@link #reset()}
+     */
+    public synchronized Histogram snapshot() {
+        drain();
+        return accumulated.copy();
+    }
+
+    /**
+     * @return a copy of what was recorded during roughly the last 20 to 30 seconds
+     */
+    public synchronized Histogram recentSnapshot() {
+        if (recentSlots == null) {
+            recentSlots = new Histogram[RECENT_SLOTS];
+            for (int i = 0; i < RECENT_SLOTS; i++) {
+                recentSlots[i] = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+            }
+            currentSlot = Math.floorDiv(System.nanoTime(), RECENT_SLOT_NANOS);
+        }
+        drain();
+        Histogram recent = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        for (Histogram slot : recentSlots) {
+            recent.add(slot);
+        }
+        return recent;
+    }
+
+    public synchronized void reset() {
+        interval = recorder.getIntervalHistogram(interval);
+        accumulated.reset();
+        if (recentSlots != null) {
+            for (Histogram slot : recentSlots) {
+                slot.reset();
+            }
+        }
+    }
+
+    private void drain() {
+        interval = recorder.getIntervalHistogram(interval);
+        accumulated.add(interval);
+        if (recentSlots == null) {
+            return;
+        }
+        long slot = Math.floorDiv(System.nanoTime(), RECENT_SLOT_NANOS);
+        // the slots skipped since the last read are stale, at most all of them
+        for (long s = Math.max(currentSlot + 1, slot - RECENT_SLOTS + 1); s <= slot; s++) {
+            recentSlots[(int) Math.floorMod(s, RECENT_SLOTS)].reset();
+        }
+        currentSlot = Math.max(currentSlot, slot);
+        recentSlots[(int) Math.floorMod(currentSlot, RECENT_SLOTS)].add(interval);
+    }
+}
@@ -0,0 +1,129 @@
+package github.javaguide.metrics;
+
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 某个服务方法（rpcServiceName + methodName）的调用指标
+ * <p>
+ * On the client side latency is the whole call as seen by the caller, on the server side it is the execution
+ * time of the service method, and queue wait is the time a decoded request waited for a business thread.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 14:05:00
+ */
+public class MethodMetrics implements MethodMetricsMXBean {
+
+    @Getter
+    private final String side;
+    @Getter
+    private final String rpcServiceName;
+    @Getter
+    private final String methodName;
+    private final LongAdder callCounter = new LongAdder();
+    private final LongAdder errorCounter = new LongAdder();
+    private final LongAdder inFlightCounter = new LongAdder();
+    @Getter
+    private final LatencyStats latency = new LatencyStats();
+    @Getter
+    private final LatencyStats queueWait = new LatencyStats();
+
+    MethodMetrics(String side, String rpcServiceName, String methodName) {
+        this.side = side;
+        this.rpcServiceName = rpcServiceName;
+        this.methodName = methodName;
+    }
+
+    /**
+     * @return the start time to pass to {@link #end(long, boolean)}
+     */
+    public long begin() {
+        inFlightCounter.increment();
+        return System.nanoTime();
+    }
+
+    public void end(long beginNanos, boolean success) {
+        inFlightCounter.decrement();
+        callCounter.increment();
+        if (!success) {
+            errorCounter.increment();
+        }
+        latency.record(System.nanoTime() - beginNanos);
+    }
+
+    public void recordQueueWait(long nanos) {
+        queueWait.record(nanos);
+    }
+
+    @Override
+    public long getCalls() {
+        return callCounter.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errorCounter.sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlightCounter.sum();
+    }
+
+    @Override
+    public double getLatencyMeanMicros() {
+        return latency.snapshot().getMean() / 1000.0;
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return percentileMicros(latency, 50);
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return percentileMicros(latency, 99);
+    }
+
+    @Override
+    public double getLatencyP999Micros() {
+        return percentileMicros(latency, 99.9);
+    }
+
+    /**
+     * @return the calls and latencies of roughly the last half minute, see {@link LatencyStats#recentSnapshot()}
+     */
+    public Histogram getRecentLatency() {
+        return latency.recentSnapshot();
+    }
+
+    @Override
+    public double getLatencyMaxMicros() {
+        return latency.snapshot().getMaxValue() / 1000.0;
+    }
+
+    @Override
+    public double getQueueWaitP50Micros() {
+        return percentileMicros(queueWait, 50);
+    }
+
+    @Override
+    public double getQueueWaitP99Micros() {
+        return percentileMicros(queueWait, 99);
+    }
+
+    @Override
+    public void reset() {
+        callCounter.reset();
+        errorCounter.reset();
+        latency.reset();
+        queueWait.reset();
+    }
+
+    private static double percentileMicros(LatencyStats stats, double percentile) {
+        Histogram histogram = stats.snapshot();
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,38 @@
+package github.javaguide.metrics;
+
+/**
+ * JMX view of {@link MethodMetrics}. All latencies are in microseconds.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 14:05:00
+ */
+public interface MethodMetricsMXBean {
+
+    String getSide();
+
+    String getRpcServiceName();
+
+    String getMethodName();
+
+    long getCalls();
+
+    long getErrors();
+
+    long getInFlight();
+
+    double getLatencyMeanMicros();
+
+    double getLatencyP50Micros();
+
+    double getLatencyP99Micros();
+
+    double getLatencyP999Micros();
+
+    double getLatencyMaxMicros();
+
+    double getQueueWaitP50Micros();
+
+    double getQueueWaitP99Micros();
+
+    void reset();
+}
@@ -0,0 +1,102 @@
+package github.javaguide.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RPC 指标的入口，客户端代理、服务端处理器和编解码器都往这里记录数据
+ * <p>
+ * Metrics are kept per rpcServiceName + methodName for each side and can be pulled through
+ * {@link #getClientMethodMetrics()}/{@link #getServerMethodMetrics()}/{@link #getTransportMetrics()},
+ * or read through JMX under the {@value #JMX_DOMAIN} domain.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 14:20:00
+ */
+@Slf4j
+public final class RpcMetrics {
+
+    public static final String JMX_DOMAIN = "github.javaguide.rpc";
+    public static final String CLIENT_SIDE = "client";
+    public static final String SERVER_SIDE = "server";
+    private static final RpcMetrics INSTANCE = new RpcMetrics();
+
+    /**
+     * key: rpc service name, value: (key: method name, value: metrics)
+     */
+    private final Map<String, Map<String, MethodMetrics>> clientMethods = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, MethodMetrics>> serverMethods = new ConcurrentHashMap<>();
+    private final TransportMetrics transportMetrics = new TransportMetrics();
+
+    private RpcMetrics() {
+        registerMBean(transportMetrics, JMX_DOMAIN + ":type=Transport");
+    }
+
+    public static RpcMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public MethodMetrics clientMethod(String rpcServiceName, String methodName) {
+        return getOrCreate(clientMethods, CLIENT_SIDE, rpcServiceName, methodName);
+    }
+
+    public MethodMetrics serverMethod(String rpcServiceName, String methodName) {
+        return getOrCreate(serverMethods, SERVER_SIDE, rpcServiceName, methodName);
+    }
+
+    public TransportMetrics getTransportMetrics() {
+        return transportMetrics;
+    }
+
+    public Collection<MethodMetrics> getClientMethodMetrics() {
+        return flatten(clientMethods);
+    }
+
+    public Collection<MethodMetrics> getServerMethodMetrics() {
+        return flatten(serverMethods);
+    }
+
+    private MethodMetrics getOrCreate(Map<String, Map<String, MethodMetrics>> methods, String side,
+                                      String rpcServiceName, String methodName) {
+        Map<String, MethodMetrics> serviceMethods = methods.get(rpcServiceName);
+        if (serviceMethods == null) {
+            serviceMethods = methods.computeIfAbsent(rpcServiceName, k -> new ConcurrentHashMap<>());
+        }
+        MethodMetrics methodMetrics = serviceMethods.get(methodName);
+        if (methodMetrics == null) {
+            methodMetrics = serviceMethods.computeIfAbsent(methodName, k -> {
+                MethodMetrics created = new MethodMetrics(side, rpcServiceName, methodName);
+                registerMBean(created, JMX_DOMAIN + ":type=Method,side=" + side
+                        + ",service=" + ObjectName.quote(rpcServiceName) + ",method=" + ObjectName.quote(methodName));
+                return created;
+            });
+        }
+        return methodMetrics;
+    }
+
+    private static Collection<MethodMetrics> flatten(Map<String, Map<String, MethodMetrics>> methods) {
+        List<MethodMetrics> result = new ArrayList<>();
+        methods.values().forEach(serviceMethods -> result.addAll(serviceMethods.values()));
+        return result;
+    }
+
+    private static void registerMBean(Object mbean, String name) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(mbean, objectName);
+            }
+        } catch (Exception e) {
+            log.warn("register mbean [{}] fail", name, e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package github.javaguide.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 编解码层的指标：帧数、字节数、压缩率，以及客户端还没收到响应的请求数
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 14:05:00
+ */
+public class TransportMetrics implements TransportMetricsMXBean {
+
+    private final LongAdder encodedFrames = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
+    private final LongAdder decodedFrames = new LongAdder();
+    private final LongAdder decodedBytes = new LongAdder();
+    private final LongAdder uncompressedBodyBytes = new LongAdder();
+    private final LongAdder compressedBodyBytes = new LongAdder();
+    private volatile LongSupplier pendingRequests = () -> 0;
+
+    public void recordEncode(int frameLength, int uncompressedBodyLength, int compressedBodyLength) {
+        encodedFrames.increment();
+        encodedBytes.add(frameLength);
+        recordBody(uncompressedBodyLength, compressedBodyLength);
+    }
+
+    public void recordDecode(int frameLength, int uncompressedBodyLength, int compressedBodyLength) {
+        decodedFrames.increment();
+        decodedBytes.add(frameLength);
+        recordBody(uncompressedBodyLength, compressedBodyLength);
+    }
+
+    public void setPendingRequests(LongSupplier pendingRequests) {
+        this.pendingRequests = pendingRequests;
+    }
+
+    @Override
+    public long getEncodedFrames() {
+        return encodedFrames.sum();
+    }
+
+    @Override
+    public long getEncodedBytes() {
+        return encodedBytes.sum();
+    }
+
+    @Override
+    public long getDecodedFrames() {
+        return decodedFrames.sum();
+    }
+
+    @Override
+    public long getDecodedBytes() {
+        return decodedBytes.sum();
+    }
+
+    @Override
+    public double getCompressionRatio() {
+        long compressed = compressedBodyBytes.sum();
+        return compressed == 0 ? 1.0 : (double) uncompressedBodyBytes.sum() / compressed;
+    }
+
+    @Override
+    public long getPendingRequests() {
+        return pendingRequests.getAsLong();
+    }
+
+    @Override
+    public void reset() {
+        encodedFrames.reset();
+        encodedBytes.reset();
+        decodedFrames.reset();
+        decodedBytes.reset();
+        uncompressedBodyBytes.reset();
+        compressedBodyBytes.reset();
+    }
+
+    private void recordBody(int uncompressedBodyLength, int compressedBodyLength) {
+        if (compressedBodyLength > 0) {
+            uncompressedBodyBytes.add(uncompressedBodyLength);
+            compressedBodyBytes.add(compressedBodyLength);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package github.javaguide.metrics;
+
+/**
+ * JMX view of {@link TransportMetrics}.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 14:05:00
+ */
+public interface TransportMetricsMXBean {
+
+    long getEncodedFrames();
+
+    long getEncodedBytes();
+
+    long getDecodedFrames();
+
+    long getDecodedBytes();
+
+    /**
+     * uncompressed body bytes / compressed body bytes, over both directions
+     */
+    double getCompressionRatio();
+
+    long getPendingRequests();
+
+    void reset();
+}
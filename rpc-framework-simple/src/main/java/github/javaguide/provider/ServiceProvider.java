@@ -2,6 +2,8 @@ package github.javaguide.provider;
 
 import github.javaguide.config.RpcServiceConfig;
 
+import java.net.InetSocketAddress;
+
 /**
  * 一个Service的提供者需要调用的所有函数
  * store and provide service object.
@@ -27,4 +29,12 @@ public interface ServiceProvider {
      */
     void publishService(RpcServiceConfig rpcServiceConfig);
 
+    /**
+     * 服务端端口监听成功之后调用：之前 publishService 的服务在这里一次性注册到注册中心，之后再 publishService 的服务直接注册
+     * called by the server once it is listening, so clients are never sent to a port that is not open yet
+     *
+     * @param serviceAddress the address the server is listening on
+     */
+    void exportServices(InetSocketAddress serviceAddress);
+
 }
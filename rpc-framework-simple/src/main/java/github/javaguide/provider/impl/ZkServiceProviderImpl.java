@@ -1,21 +1,28 @@
 package github.javaguide.provider.impl;
 
+import github.javaguide.config.RpcConfig;
 import github.javaguide.config.RpcServiceConfig;
+import github.javaguide.enums.CompressTypeEnum;
+import github.javaguide.enums.RpcConfigEnum;
 import github.javaguide.enums.RpcErrorMessageEnum;
-import github.javaguide.enums.ServiceRegistryEnum;
+import github.javaguide.enums.SerializationTypeEnum;
 import github.javaguide.exception.RpcException;
-import github.javaguide.extension.ExtensionLoader;
+import github.javaguide.limiter.ServiceRateLimiter;
 import github.javaguide.provider.ServiceProvider;
+import github.javaguide.registry.ProviderMetadata;
+import github.javaguide.registry.RegistryFactory;
 import github.javaguide.registry.ServiceRegistry;
-import github.javaguide.remoting.transport.netty.server.NettyRpcServer;
+import github.javaguide.remoting.constants.RpcConstants;
 import lombok.extern.slf4j.Slf4j;
 
-import java.net.InetAddress;
+import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
-import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * @author shuang.kou
@@ -31,11 +38,38 @@ public class ZkServiceProviderImpl implements ServiceProvider {
     private final Map<String, Object> serviceMap;
     private final Set<String> registeredService;
     private final ServiceRegistry serviceRegistry;
+    /**
+     * metadata shared by all services of this process, the weight is filled in per service
+     */
+    private final ProviderMetadata providerMetadata;
+    /**
+     * services published before the server is listening, registered together by {@link #exportServices(InetSocketAddress)}
+     */
+    private final Map<String, ProviderMetadata> pendingServices = new LinkedHashMap<>();
+    /**
+     * the address the server is listening on, null until it is
+     */
+    private InetSocketAddress serviceAddress;
 
     public ZkServiceProviderImpl() {
         serviceMap = new ConcurrentHashMap<>();
         registeredService = ConcurrentHashMap.newKeySet();
-        serviceRegistry = ExtensionLoader.getExtensionLoader(ServiceRegistry.class).getExtension(ServiceRegistryEnum.ZK.getName());
+        serviceRegistry = RegistryFactory.getServiceRegistry();
+        providerMetadata = buildProviderMetadata();
+    }
+
+    private static ProviderMetadata buildProviderMetadata() {
+        RpcConfig rpcConfig = RpcConfig.getInstance();
+        return ProviderMetadata.builder()
+                // the JVM start time, clients ramp the weight up while the provider is still cold
+                .timestamp(ManagementFactory.getRuntimeMXBean().getStartTime())
+                .zone(rpcConfig.getString(RpcConfigEnum.PROVIDER_ZONE, ""))
+                .warmup(rpcConfig.getLong(RpcConfigEnum.PROVIDER_WARMUP, ProviderMetadata.DEFAULT_WARMUP_MILLIS))
+                .maxConcurrency(rpcConfig.getInt(RpcConfigEnum.PROVIDER_MAX_CONCURRENCY, 0))
+                .serializers(Arrays.stream(SerializationTypeEnum.values()).map(SerializationTypeEnum::getName).collect(Collectors.toList()))
+                .compressors(Arrays.stream(CompressTypeEnum.values()).map(CompressTypeEnum::getName).collect(Collectors.toList()))
+                .protocol(RpcConstants.VERSION_2)
+                .build();
     }
 
     /**
@@ -57,6 +91,7 @@ public class ZkServiceProviderImpl implements ServiceProvider {
         }
         registeredService.add(rpcServiceName);
         serviceMap.put(rpcServiceName, rpcServiceConfig.getService());
+        ServiceRateLimiter.register(rpcServiceConfig);
         log.info("Add service: {} and interfaces:{}", rpcServiceName, rpcServiceConfig.getService().getClass().getInterfaces());
     }
 
@@ -75,17 +110,37 @@ public class ZkServiceProviderImpl implements ServiceProvider {
     }
 
     /**
-     * 将服务注册到ZooKeeper
+     * 将服务注册到ZooKeeper：服务端还没有开始监听端口时先记下来，等 {@link #exportServices(InetSocketAddress)} 一起注册
      * @param rpcServiceConfig rpc service related attributes
      */
     @Override
     public void publishService(RpcServiceConfig rpcServiceConfig) {
-        try {
-            String host = InetAddress.getLocalHost().getHostAddress();
-            this.addService(rpcServiceConfig);
-            serviceRegistry.registerService(rpcServiceConfig.getRpcServiceName(), new InetSocketAddress(host, NettyRpcServer.PORT));
-        } catch (UnknownHostException e) {
-            log.error("occur exception when getHostAddress", e);
+        this.addService(rpcServiceConfig);
+        int weight = rpcServiceConfig.getWeight() > 0 ? rpcServiceConfig.getWeight() : ProviderMetadata.DEFAULT_WEIGHT;
+        ProviderMetadata metadata = providerMetadata.toBuilder().weight(weight).build();
+        InetSocketAddress address;
+        synchronized (pendingServices) {
+            address = serviceAddress;
+            if (address == null) {
+                pendingServices.put(rpcServiceConfig.getRpcServiceName(), metadata);
+                return;
+            }
+        }
+        serviceRegistry.registerService(rpcServiceConfig.getRpcServiceName(), address, metadata);
+    }
+
+    @Override
+    public void exportServices(InetSocketAddress serviceAddress) {
+        Map<String, ProviderMetadata> services;
+        synchronized (pendingServices) {
+            this.serviceAddress = serviceAddress;
+            services = new LinkedHashMap<>(pendingServices);
+            pendingServices.clear();
+        }
+        if (!services.isEmpty()) {
+            long begin = System.currentTimeMillis();
+            serviceRegistry.registerServices(services, serviceAddress);
+            log.info("Exported [{}] services at [{}] in [{}] ms", services.size(), serviceAddress, System.currentTimeMillis() - begin);
         }
     }
 
@@ -1,22 +1,37 @@
 package github.javaguide.proxy;
 
+import github.javaguide.cluster.Cluster;
+import github.javaguide.cluster.HedgePolicy;
+import github.javaguide.config.RpcConfig;
 import github.javaguide.config.RpcServiceConfig;
+import github.javaguide.enums.ClusterEnum;
+import github.javaguide.enums.RpcConfigEnum;
 import github.javaguide.enums.RpcErrorMessageEnum;
 import github.javaguide.enums.RpcResponseCodeEnum;
 import github.javaguide.exception.RpcException;
+import github.javaguide.extension.ExtensionLoader;
+import github.javaguide.metrics.MethodMetrics;
+import github.javaguide.metrics.RpcMetrics;
+import github.javaguide.remoting.RpcContext;
 import github.javaguide.remoting.dto.RpcRequest;
 import github.javaguide.remoting.dto.RpcResponse;
 import github.javaguide.remoting.transport.RpcRequestTransport;
 import github.javaguide.remoting.transport.netty.client.NettyRpcClient;
 import github.javaguide.remoting.transport.socket.SocketRpcClient;
+import github.javaguide.utils.StringUtil;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 生成动态代理的类，这个动态代理实际上应该是在Consumer端完成
@@ -40,16 +55,31 @@ public class RpcClientProxy implements InvocationHandler {
      */
     private final RpcRequestTransport rpcRequestTransport;  // 发送Http请求的类，可以用Socket和Netty两种方式
     private final RpcServiceConfig rpcServiceConfig;    // 当前这个RPC服务的信息
+    private final Map<Method, MethodMetrics> methodMetricsCache = new ConcurrentHashMap<>();
+    private final Map<Method, HedgePolicy> hedgePolicyCache = new ConcurrentHashMap<>();
+    private final Map<Method, Boolean> onewayCache = new ConcurrentHashMap<>();
+    private final Cluster cluster;  // 集群容错策略，只用于 Netty
+    private final long timeoutMillis;
 
     public RpcClientProxy(RpcRequestTransport rpcRequestTransport, RpcServiceConfig rpcServiceConfig) {
         this.rpcRequestTransport = rpcRequestTransport;
         this.rpcServiceConfig = rpcServiceConfig;
+        this.cluster = getCluster(rpcServiceConfig);
+        this.timeoutMillis = rpcServiceConfig.getTimeout() > 0 ? rpcServiceConfig.getTimeout()
+                : RpcConfig.getInstance().getLong(RpcConfigEnum.CONSUMER_TIMEOUT, 0);
     }
 
 
     public RpcClientProxy(RpcRequestTransport rpcRequestTransport) {
-        this.rpcRequestTransport = rpcRequestTransport;
-        this.rpcServiceConfig = new RpcServiceConfig();
+        this(rpcRequestTransport, new RpcServiceConfig());
+    }
+
+    private static Cluster getCluster(RpcServiceConfig rpcServiceConfig) {
+        String clusterName = rpcServiceConfig.getCluster();
+        if (StringUtil.isBlank(clusterName)) {
+            clusterName = RpcConfig.getInstance().getString(RpcConfigEnum.CLUSTER, ClusterEnum.FAILFAST.getName());
+        }
+        return ExtensionLoader.getExtensionLoader(Cluster.class).getExtension(clusterName);
     }
 
     /**
@@ -73,6 +103,7 @@ public class RpcClientProxy implements InvocationHandler {
     public Object invoke(Object proxy, Method method, Object[] args) {
         log.info("invoked method: [{}]", method.getName());
         // 构造一个RPC请求
+        Map<String, String> attachments = RpcContext.getContext().getAttachments();
         RpcRequest rpcRequest = RpcRequest.builder().methodName(method.getName())
                 .parameters(args)
                 .interfaceName(method.getDeclaringClass().getName())
@@ -80,19 +111,73 @@ public class RpcClientProxy implements InvocationHandler {
                 .requestId(UUID.randomUUID().toString())
                 .group(rpcServiceConfig.getGroup())
                 .version(rpcServiceConfig.getVersion())
+                // 自己的超时时间和当前正在处理的请求剩下的时间，取早的那个
+                .deadlineNanos(RpcContext.deadlineNanos(timeoutMillis))
+                .attachments(attachments.isEmpty() ? null : new HashMap<>(attachments))
+                .batch(rpcServiceConfig.isBatch())
                 .build();
-        RpcResponse<Object> rpcResponse = null;
-        if (rpcRequestTransport instanceof NettyRpcClient) {
-            // 基于Netty发送一个RPC请求
-            CompletableFuture<RpcResponse<Object>> completableFuture = (CompletableFuture<RpcResponse<Object>>) rpcRequestTransport.sendRpcRequest(rpcRequest);
-            rpcResponse = completableFuture.get();
+        MethodMetrics methodMetrics = methodMetricsCache.computeIfAbsent(method,
+                m -> RpcMetrics.getInstance().clientMethod(rpcRequest.getRpcServiceName(), m.getName()));
+        long begin = methodMetrics.begin();
+        boolean success = false;
+        try {
+            int streamParameterIndex = streamParameterIndex(method);
+            boolean streamResult = method.getReturnType() == Iterator.class;
+            if (rpcRequestTransport instanceof NettyRpcClient && (streamParameterIndex >= 0 || streamResult)) {
+                // 流式调用：Iterator 参数边读边发，Iterator 返回值边收边读，两边都按对方给的额度发送
+                Object result = ((NettyRpcClient) rpcRequestTransport).sendStreamRequest(rpcRequest, streamParameterIndex, streamResult);
+                success = true;
+                return result;
+            }
+            if (rpcRequestTransport instanceof NettyRpcClient && onewayCache.computeIfAbsent(method, this::isOneway)) {
+                // 单向调用：请求写到 socket 里就返回，不等响应
+                try {
+                    ((NettyRpcClient) rpcRequestTransport).sendOneway(rpcRequest).join();
+                } catch (CompletionException e) {
+                    throw e.getCause();
+                }
+                success = true;
+                return null;
+            }
+            RpcResponse<Object> rpcResponse = null;
+            if (rpcRequestTransport instanceof NettyRpcClient) {
+                // 基于Netty发送一个RPC请求，失败了怎么办由集群容错策略决定；打开了对冲的方法超过 delay 没有响应会再发一份给另一台机器
+                HedgePolicy hedgePolicy = hedgePolicyCache.computeIfAbsent(method,
+                        m -> HedgePolicy.of(rpcServiceConfig, m.getName(), methodMetrics));
+                long hedgeDelayNanos = hedgePolicy.isEnabled() ? hedgePolicy.getDelayNanos() : 0;
+                rpcResponse = cluster.invoke(rpcRequest, ((NettyRpcClient) rpcRequestTransport).getInvoker(hedgeDelayNanos), rpcServiceConfig);
+            }
+            if (rpcRequestTransport instanceof SocketRpcClient) {
+                // 基于Socket发送一个RPC请求，并传回结果
+                rpcResponse = (RpcResponse<Object>) rpcRequestTransport.sendRpcRequest(rpcRequest);
+            }
+            this.check(rpcResponse, rpcRequest);
+            success = true;
+            return rpcResponse.getData();
+        } finally {
+            methodMetrics.end(begin, success);
         }
-        if (rpcRequestTransport instanceof SocketRpcClient) {
-            // 基于Socket发送一个RPC请求，并传回结果
-            rpcResponse = (RpcResponse<Object>) rpcRequestTransport.sendRpcRequest(rpcRequest);
+    }
+
+    /**
+     * @return index of the first Iterator parameter, -1 if the method takes none
+     */
+    private static int streamParameterIndex(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (parameterTypes[i] == Iterator.class) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isOneway(Method method) {
+        if (!rpcServiceConfig.isOneway() || method.getReturnType() != void.class) {
+            return false;
         }
-        this.check(rpcResponse, rpcRequest);
-        return rpcResponse.getData();
+        String[] onewayMethods = rpcServiceConfig.getOnewayMethods();
+        return onewayMethods == null || onewayMethods.length == 0 || Arrays.asList(onewayMethods).contains(method.getName());
     }
 
     /**
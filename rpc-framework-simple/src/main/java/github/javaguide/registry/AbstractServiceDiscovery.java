@@ -0,0 +1,142 @@
+package github.javaguide.registry;
+
+import github.javaguide.cluster.CircuitBreaker;
+import github.javaguide.config.RpcConfig;
+import github.javaguide.enums.LoadBalanceEnum;
+import github.javaguide.enums.RouterEnum;
+import github.javaguide.enums.RpcConfigEnum;
+import github.javaguide.enums.RpcErrorMessageEnum;
+import github.javaguide.exception.RpcException;
+import github.javaguide.extension.ExtensionLoader;
+import github.javaguide.loadbalance.LoadBalance;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.router.Router;
+import github.javaguide.utils.CollectionUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 服务发现的抽象实现：子类只负责给出某个服务当前的全部提供方，路由和负载均衡在这里统一做
+ * Abstract class for a service discovery, subclasses only provide the endpoints of a service
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 18:20:00
+ */
+@Slf4j
+public abstract class AbstractServiceDiscovery implements ServiceDiscovery {
+
+    // 负载均衡算法，由 rpc.loadbalance 配置，取值见 LoadBalanceEnum，默认是一致性哈希
+    private final LoadBalance loadBalance;
+    // 负载均衡之前的路由，默认同机房优先
+    private final Router router;
+    // rpcServiceName -> 熔断器没有打开的服务提供方，熔断器状态变化或者服务列表变化时才重新计算
+    private final ConcurrentHashMap<String, Ejection> ejections = new ConcurrentHashMap<>();
+
+    protected AbstractServiceDiscovery() {
+        String loadBalanceName = RpcConfig.getInstance().getString(RpcConfigEnum.LOADBALANCE, LoadBalanceEnum.LOADBALANCE.getName());
+        this.loadBalance = ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension(loadBalanceName);
+        this.router = ExtensionLoader.getExtensionLoader(Router.class).getExtension(RouterEnum.ZONE.getName());
+    }
+
+    @Override
+    public Endpoint lookupService(RpcRequest rpcRequest) {
+        return lookupService(rpcRequest, Collections.emptySet());
+    }
+
+    @Override
+    public Endpoint lookupService(RpcRequest rpcRequest, Set<String> excludedAddresses) {
+        // rpcServiceName = interface name + version + group
+        String rpcServiceName = rpcRequest.getRpcServiceName();
+        List<Endpoint> endpoints = getEndpoints(rpcServiceName);
+        if (CollectionUtil.isEmpty(endpoints)) {
+            // 没有该服务
+            throw new RpcException(RpcErrorMessageEnum.SERVICE_CAN_NOT_BE_FOUND, rpcServiceName);
+        }
+        // 先去掉熔断器打开的服务提供方，routing 再按机房等规则缩小范围，最后由负载均衡从里面找一个服务器出来
+        endpoints = removeEjected(rpcServiceName, endpoints);
+        List<Endpoint> routed = router.route(endpoints, rpcRequest);
+        Endpoint target = loadBalance.selectServiceAddress(routed, rpcRequest);
+        if (target != null && excludedAddresses.contains(target.getAddress())) {
+            // 负载均衡总是拿到完整的列表（一致性哈希按列表内容缓存了哈希环），选中了被排除的再从剩下的里面随机选
+            target = selectOther(routed, excludedAddresses);
+            if (target == null && routed != endpoints) {
+                target = selectOther(endpoints, excludedAddresses);
+            }
+        }
+        log.info("Successfully found the service address:[{}]", target);
+        return target;
+    }
+
+    private static Endpoint selectOther(List<Endpoint> endpoints, Set<String> excludedAddresses) {
+        List<Endpoint> others = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            if (!excludedAddresses.contains(endpoint.getAddress())) {
+                others.add(endpoint);
+            }
+        }
+        return others.isEmpty() ? null : others.get(ThreadLocalRandom.current().nextInt(others.size()));
+    }
+
+    private static final class Ejection {
+        private final List<Endpoint> source;
+        private final long version;
+        private final boolean hasEjected;
+        // the earliest time an ejected provider may be probed again
+        private final long nextProbeNanos;
+        private final List<Endpoint> available;
+
+        private Ejection(List<Endpoint> source, long version, boolean hasEjected, long nextProbeNanos, List<Endpoint> available) {
+            this.source = source;
+            this.version = version;
+            this.hasEjected = hasEjected;
+            this.nextProbeNanos = nextProbeNanos;
+            this.available = available;
+        }
+    }
+
+    /**
+     * The result is cached and stays the same list object while nothing changes, so the router and the consistent
+     * hash load balancer keep their own caches. If every provider is ejected none is, a guess is better than no call.
+     */
+    private List<Endpoint> removeEjected(String rpcServiceName, List<Endpoint> endpoints) {
+        long version = CircuitBreaker.stateVersion();
+        long now = System.nanoTime();
+        Ejection ejection = ejections.get(rpcServiceName);
+        if (ejection != null && ejection.source == endpoints && ejection.version == version
+                && (!ejection.hasEjected || now - ejection.nextProbeNanos < 0)) {
+            return ejection.available;
+        }
+        List<Endpoint> available = null;
+        long nextProbeNanos = 0;
+        for (int i = 0; i < endpoints.size(); i++) {
+            Endpoint endpoint = endpoints.get(i);
+            CircuitBreaker circuitBreaker = CircuitBreaker.of(rpcServiceName, endpoint.getAddress());
+            if (!circuitBreaker.isAvailable()) {
+                if (available == null) {
+                    available = new ArrayList<>(endpoints.subList(0, i));
+                    nextProbeNanos = circuitBreaker.getOpenUntilNanos();
+                } else if (circuitBreaker.getOpenUntilNanos() - nextProbeNanos < 0) {
+                    nextProbeNanos = circuitBreaker.getOpenUntilNanos();
+                }
+            } else if (available != null) {
+                available.add(endpoint);
+            }
+        }
+        boolean hasEjected = available != null && !available.isEmpty();
+        List<Endpoint> result = hasEjected ? Collections.unmodifiableList(available) : endpoints;
+        ejections.put(rpcServiceName, new Ejection(endpoints, version, hasEjected, nextProbeNanos, result));
+        return result;
+    }
+
+    /**
+     * @param rpcServiceName interface name + group + version
+     * @return an immutable snapshot of all providers of the service, null or empty if there is none
+     */
+    protected abstract List<Endpoint> getEndpoints(String rpcServiceName);
+}
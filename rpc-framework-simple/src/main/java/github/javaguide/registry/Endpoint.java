@@ -0,0 +1,175 @@
+package github.javaguide.registry;
+
+import github.javaguide.loadbalance.EndpointStats;
+import io.netty.channel.Channel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 服务发现缓存里的一个服务提供方，在服务列表变化时解析一次，之后每次请求直接使用
+ * <p>
+ * The address is parsed and resolved once, so the request path does no string splitting or DNS lookup.
+ * Everything except the cached channel is immutable.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 16:40:00
+ */
+@Slf4j
+@Getter
+public final class Endpoint {
+    /**
+     * host:port, the node name in the registry
+     */
+    private final String address;
+    private final InetSocketAddress inetSocketAddress;
+    private final int weight;
+    private final ProviderMetadata metadata;
+    /**
+     * live load of this address, shared by every service published on it
+     */
+    private final EndpointStats stats;
+    /**
+     * connection to this address, set by the netty client so that it does not need a map lookup per request
+     */
+    private volatile Channel channel;
+
+    private Endpoint(String address, InetSocketAddress inetSocketAddress, ProviderMetadata metadata) {
+        this.address = address;
+        this.inetSocketAddress = inetSocketAddress;
+        this.weight = metadata.getWeight();
+        this.metadata = metadata;
+        this.stats = EndpointStats.of(address);
+    }
+
+    public static Endpoint of(InetSocketAddress inetSocketAddress) {
+        return new Endpoint(inetSocketAddress.getHostString() + ":" + inetSocketAddress.getPort(),
+                inetSocketAddress, ProviderMetadata.EMPTY);
+    }
+
+    /**
+     * @param address host:port, e.g. 127.0.0.1:9998
+     */
+    public static Endpoint parse(String address) {
+        return parse(address, ProviderMetadata.EMPTY);
+    }
+
+    /**
+     * @param address  host:port, e.g. 127.0.0.1:9998
+     * @param metadata what the provider published in its registry node
+     */
+    public static Endpoint parse(String address, ProviderMetadata metadata) {
+        int i = address.lastIndexOf(':');
+        if (i <= 0) {
+            throw new IllegalArgumentException("invalid service address: " + address);
+        }
+        String host = address.substring(0, i);
+        int port = Integer.parseInt(address.substring(i + 1));
+        return new Endpoint(address, new InetSocketAddress(host, port), metadata);
+    }
+
+    /**
+     * 服务列表变化时生成新的 Endpoint 列表，地址和元数据都没有变化的直接复用原来的对象，已经建立的连接不会丢
+     *
+     * @param providers the new provider addresses and their metadata, in order
+     * @param previous  endpoints built for the previous provider list, may be empty
+     * @return an unmodifiable list in the order of {@code providers}, unparsable addresses are skipped
+     */
+    public static List<Endpoint> refresh(Map<String, ProviderMetadata> providers, List<Endpoint> previous) {
+        Map<String, Endpoint> existing = new HashMap<>(previous.size() * 2);
+        for (Endpoint endpoint : previous) {
+            existing.put(endpoint.getAddress(), endpoint);
+        }
+        List<Endpoint> endpoints = new ArrayList<>(providers.size());
+        for (Map.Entry<String, ProviderMetadata> provider : providers.entrySet()) {
+            String address = provider.getKey();
+            Endpoint endpoint = existing.get(address);
+            if (endpoint == null || !endpoint.getMetadata().equals(provider.getValue())) {
+                try {
+                    Endpoint old = endpoint;
+                    endpoint = parse(address, provider.getValue());
+                    if (old != null) {
+                        // only the metadata changed, keep the connection
+                        endpoint.setChannel(old.getChannel());
+                    }
+                } catch (IllegalArgumentException e) {
+                    log.error("skip invalid service address [{}]", address);
+                    continue;
+                }
+            }
+            endpoints.add(endpoint);
+        }
+        return Collections.unmodifiableList(endpoints);
+    }
+
+    /**
+     * 一个提供方上线或者元数据变化：复制一份列表替换或追加这一个，其余 Endpoint 原样复用
+     *
+     * @param endpoints current snapshot, not modified
+     * @return {@code endpoints} itself if nothing changed, otherwise a new unmodifiable list
+     */
+    public static List<Endpoint> put(List<Endpoint> endpoints, String address, ProviderMetadata metadata) {
+        int index = indexOf(endpoints, address);
+        Endpoint old = index < 0 ? null : endpoints.get(index);
+        if (old != null && old.getMetadata().equals(metadata)) {
+            return endpoints;
+        }
+        Endpoint endpoint;
+        try {
+            endpoint = parse(address, metadata);
+        } catch (IllegalArgumentException e) {
+            log.error("skip invalid service address [{}]", address);
+            return endpoints;
+        }
+        List<Endpoint> copy = new ArrayList<>(endpoints.size() + 1);
+        copy.addAll(endpoints);
+        if (old != null) {
+            // only the metadata changed, keep the connection
+            endpoint.setChannel(old.getChannel());
+            copy.set(index, endpoint);
+        } else {
+            copy.add(endpoint);
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * 一个提供方下线：复制一份列表去掉它
+     *
+     * @param endpoints current snapshot, not modified
+     * @return {@code endpoints} itself if the address is not in it, otherwise a new unmodifiable list
+     */
+    public static List<Endpoint> remove(List<Endpoint> endpoints, String address) {
+        int index = indexOf(endpoints, address);
+        if (index < 0) {
+            return endpoints;
+        }
+        List<Endpoint> copy = new ArrayList<>(endpoints);
+        copy.remove(index);
+        return Collections.unmodifiableList(copy);
+    }
+
+    private static int indexOf(List<Endpoint> endpoints, String address) {
+        for (int i = 0; i < endpoints.size(); i++) {
+            if (endpoints.get(i).getAddress().equals(address)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void setChannel(Channel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public String toString() {
+        return address;
+    }
+}
@@ -0,0 +1,139 @@
+package github.javaguide.registry;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 服务提供方发布到注册中心节点数据里的元数据，客户端在服务列表变化时解析一次，放到 Endpoint 里给负载均衡使用
+ * <p>
+ * Encoded as a short query string, e.g.
+ * {@code weight=100&timestamp=1760860800000&warmup=600000&zone=cn-east-1a&serializers=kyro,hessian&compressors=gzip&maxConcurrency=0&protocol=2}.
+ * Unknown keys are ignored and missing keys keep their defaults, so old and new providers can be mixed.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 17:10:00
+ */
+@Slf4j
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public final class ProviderMetadata {
+    public static final int DEFAULT_WEIGHT = 100;
+    public static final long DEFAULT_WARMUP_MILLIS = 10 * 60 * 1000L;
+    /**
+     * providers that publish no protocol only speak v1
+     */
+    public static final int DEFAULT_PROTOCOL = 1;
+    /**
+     * metadata of a provider that published nothing
+     */
+    public static final ProviderMetadata EMPTY = ProviderMetadata.builder().build();
+
+    @Builder.Default
+    private final int weight = DEFAULT_WEIGHT;
+    /**
+     * when the provider process started, 0 if unknown
+     */
+    private final long timestamp;
+    /**
+     * how long after start the weight ramps up to its full value
+     */
+    @Builder.Default
+    private final long warmup = DEFAULT_WARMUP_MILLIS;
+    /**
+     * zone or rack the provider runs in, empty if unknown
+     */
+    @Builder.Default
+    private final String zone = "";
+    @Builder.Default
+    private final List<String> serializers = Collections.emptyList();
+    @Builder.Default
+    private final List<String> compressors = Collections.emptyList();
+    /**
+     * requests the provider is willing to process at the same time, 0 means unlimited
+     */
+    private final int maxConcurrency;
+    /**
+     * newest frame version the provider can decode, clients write v2 frames only to providers that publish 2
+     */
+    @Builder.Default
+    private final int protocol = DEFAULT_PROTOCOL;
+
+    public byte[] encode() {
+        String value = "weight=" + weight +
+                "&timestamp=" + timestamp +
+                "&warmup=" + warmup +
+                "&zone=" + zone +
+                "&serializers=" + String.join(",", serializers) +
+                "&compressors=" + String.join(",", compressors) +
+                "&maxConcurrency=" + maxConcurrency +
+                "&protocol=" + protocol;
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param data node data, may be null or empty for providers that publish no metadata
+     */
+    public static ProviderMetadata decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            return EMPTY;
+        }
+        ProviderMetadataBuilder builder = ProviderMetadata.builder();
+        for (String pair : new String(data, StandardCharsets.UTF_8).split("&")) {
+            int i = pair.indexOf('=');
+            if (i <= 0) {
+                continue;
+            }
+            String key = pair.substring(0, i);
+            String value = pair.substring(i + 1);
+            try {
+                switch (key) {
+                    case "weight":
+                        builder.weight(Math.max(Integer.parseInt(value), 0));
+                        break;
+                    case "timestamp":
+                        builder.timestamp(Long.parseLong(value));
+                        break;
+                    case "warmup":
+                        builder.warmup(Math.max(Long.parseLong(value), 0));
+                        break;
+                    case "zone":
+                        builder.zone(value);
+                        break;
+                    case "serializers":
+                        builder.serializers(split(value));
+                        break;
+                    case "compressors":
+                        builder.compressors(split(value));
+                        break;
+                    case "maxConcurrency":
+                        builder.maxConcurrency(Math.max(Integer.parseInt(value), 0));
+                        break;
+                    case "protocol":
+                        builder.protocol(Integer.parseInt(value));
+                        break;
+                    default:
+                        break;
+                }
+            } catch (NumberFormatException e) {
+                log.error("ignore invalid provider metadata [{}]", pair);
+            }
+        }
+        return builder.build();
+    }
+
+    private static List<String> split(String value) {
+        return value.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(value.split(",")));
+    }
+}
@@ -0,0 +1,31 @@
+package github.javaguide.registry;
+
+import github.javaguide.config.RpcConfig;
+import github.javaguide.enums.RpcConfigEnum;
+import github.javaguide.enums.ServiceDiscoveryEnum;
+import github.javaguide.extension.ExtensionLoader;
+
+/**
+ * 按 rpc.registry 配置取服务注册和服务发现的实现，取值见 ServiceRegistryEnum / ServiceDiscoveryEnum，默认是 ZooKeeper
+ * get the configured registry, e.g. {@code rpc.registry=local}
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 18:50:00
+ */
+public final class RegistryFactory {
+
+    private RegistryFactory() {
+    }
+
+    public static ServiceRegistry getServiceRegistry() {
+        return ExtensionLoader.getExtensionLoader(ServiceRegistry.class).getExtension(getRegistryName());
+    }
+
+    public static ServiceDiscovery getServiceDiscovery() {
+        return ExtensionLoader.getExtensionLoader(ServiceDiscovery.class).getExtension(getRegistryName());
+    }
+
+    private static String getRegistryName() {
+        return RpcConfig.getInstance().getString(RpcConfigEnum.REGISTRY, ServiceDiscoveryEnum.ZK.getName());
+    }
+}
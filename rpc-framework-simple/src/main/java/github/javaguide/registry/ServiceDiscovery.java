@@ -3,7 +3,7 @@ package github.javaguide.registry;
 import github.javaguide.extension.SPI;
 import github.javaguide.remoting.dto.RpcRequest;
 
-import java.net.InetSocketAddress;
+import java.util.Set;
 
 /**
  * service discovery
@@ -17,7 +17,29 @@ public interface ServiceDiscovery {
      * lookup service by rpcServiceName
      *
      * @param rpcRequest rpc service pojo
-     * @return service address
+     * @return the selected service provider
      */
-    InetSocketAddress lookupService(RpcRequest rpcRequest);
+    Endpoint lookupService(RpcRequest rpcRequest);
+
+    /**
+     * 找一个不在 excludedAddresses 里的服务提供方，用于对冲请求和失败重试换一台机器
+     * lookup a provider other than the excluded ones
+     *
+     * @param rpcRequest        rpc service pojo
+     * @param excludedAddresses host:port of providers that must not be selected
+     * @return the selected service provider, null if every provider is excluded
+     */
+    default Endpoint lookupService(RpcRequest rpcRequest, Set<String> excludedAddresses) {
+        Endpoint endpoint = lookupService(rpcRequest);
+        return excludedAddresses.contains(endpoint.getAddress()) ? null : endpoint;
+    }
+
+    /**
+     * 提前准备好某个服务的提供方列表，客户端启动时对每个 @RpcReference 调用一次，第一次请求就不用再等注册中心
+     * prepare the providers of a service before its first call, a no-op by default
+     *
+     * @param rpcServiceName interface name + group + version
+     */
+    default void subscribe(String rpcServiceName) {
+    }
 }
@@ -3,6 +3,7 @@ package github.javaguide.registry;
 import github.javaguide.extension.SPI;
 
 import java.net.InetSocketAddress;
+import java.util.Map;
 
 /**
  * 向ZooKeeper注册服务
@@ -19,6 +20,28 @@ public interface ServiceRegistry {
      * @param rpcServiceName    rpc service name
      * @param inetSocketAddress service address
      */
-    void registerService(String rpcServiceName, InetSocketAddress inetSocketAddress);
+    default void registerService(String rpcServiceName, InetSocketAddress inetSocketAddress) {
+        registerService(rpcServiceName, inetSocketAddress, ProviderMetadata.EMPTY);
+    }
+
+    /**
+     * register service together with the provider metadata
+     *
+     * @param rpcServiceName    rpc service name
+     * @param inetSocketAddress service address
+     * @param metadata          weight, warm-up, zone etc. of this provider
+     */
+    void registerService(String rpcServiceName, InetSocketAddress inetSocketAddress, ProviderMetadata metadata);
+
+    /**
+     * register many services of the same provider at once, e.g. everything published before the server started.
+     * One by one by default, implementations talking to a remote registry should batch the round trips
+     *
+     * @param services          rpc service name to provider metadata
+     * @param inetSocketAddress service address
+     */
+    default void registerServices(Map<String, ProviderMetadata> services, InetSocketAddress inetSocketAddress) {
+        services.forEach((rpcServiceName, metadata) -> registerService(rpcServiceName, inetSocketAddress, metadata));
+    }
 
 }
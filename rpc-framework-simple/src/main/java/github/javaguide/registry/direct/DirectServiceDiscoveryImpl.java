@@ -0,0 +1,110 @@
+package github.javaguide.registry.direct;
+
+import github.javaguide.config.RpcConfig;
+import github.javaguide.enums.RpcConfigEnum;
+import github.javaguide.registry.AbstractServiceDiscovery;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.registry.ProviderMetadata;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 直连：服务提供方的地址是固定配置好的，不需要注册中心，适合压测和拓扑固定的部署
+ * <p>
+ * Addresses come from two places in rpc.properties:
+ * <pre>
+ *   rpc.registry.address=10.0.0.1:9998,10.0.0.2:9998      used for every service not listed in the file
+ *   rpc.registry.file=/etc/rpc/providers.properties       one line per service, reloaded when its mtime changes:
+ *       github.javaguide.HelloServicetest2version2=10.0.0.3:9998,10.0.0.4:9998
+ * </pre>
+ * The file is checked at most once per {@link #CHECK_INTERVAL_MILLIS}, the request path only compares two longs.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 18:40:00
+ */
+@Slf4j
+public class DirectServiceDiscoveryImpl extends AbstractServiceDiscovery {
+
+    static final long CHECK_INTERVAL_MILLIS = 1000;
+
+    /**
+     * providers of every service not in the file, empty if not configured
+     */
+    private final List<Endpoint> defaultEndpoints;
+    private final File file;
+    private volatile Map<String, List<Endpoint>> fileEndpoints = Collections.emptyMap();
+    private volatile long lastModified = -1;
+    private volatile long nextCheckMillis;
+
+    public DirectServiceDiscoveryImpl() {
+        this(RpcConfig.getInstance().getString(RpcConfigEnum.REGISTRY_ADDRESS), RpcConfig.getInstance().getString(RpcConfigEnum.REGISTRY_FILE));
+    }
+
+    DirectServiceDiscoveryImpl(String addresses, String file) {
+        this.defaultEndpoints = Endpoint.refresh(parseAddresses(addresses), Collections.emptyList());
+        this.file = file == null || file.trim().isEmpty() ? null : new File(file.trim());
+        reloadIfModified();
+    }
+
+    @Override
+    protected List<Endpoint> getEndpoints(String rpcServiceName) {
+        if (file != null && System.currentTimeMillis() >= nextCheckMillis) {
+            reloadIfModified();
+        }
+        List<Endpoint> endpoints = fileEndpoints.get(rpcServiceName);
+        return endpoints != null ? endpoints : defaultEndpoints;
+    }
+
+    private synchronized void reloadIfModified() {
+        if (file == null || System.currentTimeMillis() < nextCheckMillis) {
+            return;
+        }
+        nextCheckMillis = System.currentTimeMillis() + CHECK_INTERVAL_MILLIS;
+        long modified = file.lastModified();
+        if (modified == lastModified) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            // 文件暂时读不了（比如正在被替换），保留上一次的结果，下次再试
+            log.error("occur exception when read provider file [{}]", file, e);
+            return;
+        }
+        Map<String, List<Endpoint>> previous = fileEndpoints;
+        Map<String, List<Endpoint>> reloaded = new HashMap<>();
+        for (String rpcServiceName : properties.stringPropertyNames()) {
+            // 地址没变的 Endpoint 原样复用，已经建立的连接不会丢
+            reloaded.put(rpcServiceName, Endpoint.refresh(parseAddresses(properties.getProperty(rpcServiceName)),
+                    previous.getOrDefault(rpcServiceName, Collections.emptyList())));
+        }
+        fileEndpoints = Collections.unmodifiableMap(reloaded);
+        lastModified = modified;
+        log.info("Loaded providers of [{}] services from [{}]", reloaded.size(), file);
+    }
+
+    private static Map<String, ProviderMetadata> parseAddresses(String addresses) {
+        Map<String, ProviderMetadata> providers = new LinkedHashMap<>();
+        if (addresses != null) {
+            for (String address : addresses.split(",")) {
+                if (!address.trim().isEmpty()) {
+                    providers.put(address.trim(), ProviderMetadata.EMPTY);
+                }
+            }
+        }
+        return providers;
+    }
+}
@@ -0,0 +1,23 @@
+package github.javaguide.registry.direct;
+
+import github.javaguide.registry.ProviderMetadata;
+import github.javaguide.registry.ServiceRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 直连模式下没有注册中心，调用方的地址是配置好的（见 {@link DirectServiceDiscoveryImpl}），注册什么都不用做
+ * registry of the direct mode, publishing is a no-op
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 18:40:00
+ */
+@Slf4j
+public class DirectServiceRegistryImpl implements ServiceRegistry {
+
+    @Override
+    public void registerService(String rpcServiceName, InetSocketAddress inetSocketAddress, ProviderMetadata metadata) {
+        log.info("Direct mode, [{}] at [{}] is not published anywhere", rpcServiceName, inetSocketAddress);
+    }
+}
@@ -0,0 +1,21 @@
+package github.javaguide.registry.local;
+
+import github.javaguide.registry.AbstractServiceDiscovery;
+import github.javaguide.registry.Endpoint;
+
+import java.util.List;
+
+/**
+ * 从进程内的注册中心找服务，只能找到同一个 JVM 里通过 {@link LocalServiceRegistryImpl} 注册的提供方
+ * service discovery backed by {@link LocalServiceRegistryImpl}
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 18:30:00
+ */
+public class LocalServiceDiscoveryImpl extends AbstractServiceDiscovery {
+
+    @Override
+    protected List<Endpoint> getEndpoints(String rpcServiceName) {
+        return LocalServiceRegistryImpl.getEndpoints(rpcServiceName);
+    }
+}
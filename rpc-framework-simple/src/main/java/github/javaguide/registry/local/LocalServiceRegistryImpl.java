@@ -0,0 +1,40 @@
+package github.javaguide.registry.local;
+
+import github.javaguide.registry.Endpoint;
+import github.javaguide.registry.ProviderMetadata;
+import github.javaguide.registry.ServiceRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内的注册中心：服务提供方和调用方在同一个 JVM 里（单元测试、压测），不需要启动 ZooKeeper
+ * service registry kept in this JVM, read by {@link LocalServiceDiscoveryImpl}
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 18:30:00
+ */
+@Slf4j
+public class LocalServiceRegistryImpl implements ServiceRegistry {
+
+    /**
+     * key: rpc service name, value: immutable snapshot of its providers, replaced on every registration
+     */
+    private static final Map<String, List<Endpoint>> SERVICE_ENDPOINT_MAP = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerService(String rpcServiceName, InetSocketAddress inetSocketAddress, ProviderMetadata metadata) {
+        String address = inetSocketAddress.getHostString() + ":" + inetSocketAddress.getPort();
+        SERVICE_ENDPOINT_MAP.compute(rpcServiceName, (key, previous) ->
+                Endpoint.put(previous == null ? Collections.emptyList() : previous, address, metadata));
+        log.info("Registered [{}] at [{}] in the local registry", rpcServiceName, address);
+    }
+
+    static List<Endpoint> getEndpoints(String rpcServiceName) {
+        return SERVICE_ENDPOINT_MAP.get(rpcServiceName);
+    }
+}
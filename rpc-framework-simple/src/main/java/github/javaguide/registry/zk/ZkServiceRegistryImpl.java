@@ -1,11 +1,14 @@
 package github.javaguide.registry.zk;
 
+import github.javaguide.registry.ProviderMetadata;
 import github.javaguide.registry.ServiceRegistry;
 import github.javaguide.registry.zk.util.CuratorUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
 
 import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * 向ZooKeeper注册服务
@@ -19,18 +22,30 @@ import java.net.InetSocketAddress;
 public class ZkServiceRegistryImpl implements ServiceRegistry {
 
     @Override
-    public void registerService(String rpcServiceName, InetSocketAddress inetSocketAddress) {
+    public void registerService(String rpcServiceName, InetSocketAddress inetSocketAddress, ProviderMetadata metadata) {
         /*
-            注册节点：/my-rpc/rpcServiceName/SocketAddress，可以看到这个注册只有路径，没有值
+            注册节点：/my-rpc/rpcServiceName/SocketAddress，节点的值是服务提供方的元数据（权重、启动时间、机房等）
                 eg: /my-rpc/github.javaguide.HelloService/127.0.0.1:9999
             那么要获取某个服务的所有服务器IP列表怎么办呢？就是获得 /my-rpc/rpcServiceName 这个路径的所有子节点
             因为子节点的名称就是SocketAddress，直接获得名称即可
 
             通过这种方式就把某个服务器IP提供的某个服务注册到ZooKeeper里面了
+            节点是临时节点，提供方挂掉后随会话过期自动删除，会话重建后自动重新注册
          */
         String servicePath = CuratorUtils.ZK_REGISTER_ROOT_PATH + "/" + rpcServiceName + inetSocketAddress.toString();
         // 获取ZooKeeper客户端连接
         CuratorFramework zkClient = CuratorUtils.getZkClient();
-        CuratorUtils.createPersistentNode(zkClient, servicePath);
+        CuratorUtils.createEphemeralNode(zkClient, servicePath, metadata.encode());
+    }
+
+    /**
+     * 服务端启动时一次性注册全部服务，节点创建请求异步批量发送，几百个服务也只需要几个往返
+     */
+    @Override
+    public void registerServices(Map<String, ProviderMetadata> services, InetSocketAddress inetSocketAddress) {
+        Map<String, byte[]> nodes = new LinkedHashMap<>();
+        services.forEach((rpcServiceName, metadata) -> nodes.put(
+                CuratorUtils.ZK_REGISTER_ROOT_PATH + "/" + rpcServiceName + inetSocketAddress.toString(), metadata.encode()));
+        CuratorUtils.createEphemeralNodes(CuratorUtils.getZkClient(), nodes);
     }
 }
@@ -1,23 +1,36 @@
 package github.javaguide.registry.zk.util;
 
+import github.javaguide.config.RpcConfig;
 import github.javaguide.enums.RpcConfigEnum;
-import github.javaguide.utils.PropertiesFileUtil;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.registry.ProviderMetadata;
+import github.javaguide.utils.concurrent.threadpool.ThreadPoolFactoryUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.RetryPolicy;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.framework.imps.CuratorFrameworkState;
+import org.apache.curator.framework.recipes.cache.ChildData;
 import org.apache.curator.framework.recipes.cache.PathChildrenCache;
-import org.apache.curator.framework.recipes.cache.PathChildrenCacheListener;
+import org.apache.curator.framework.recipes.cache.PathChildrenCacheEvent;
+import org.apache.curator.framework.state.ConnectionState;
 import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.utils.CloseableUtils;
+import org.apache.curator.utils.ZKPaths;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
 
 import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -33,10 +46,18 @@ public final class CuratorUtils {
     private static final int BASE_SLEEP_TIME = 1000;
     private static final int MAX_RETRIES = 3;
     public static final String ZK_REGISTER_ROOT_PATH = "/my-rpc";   // 注册中心节点，所有数据放在这个节点下："create /path data"、"get /path"、"set /path data"
-    private static final Map<String, List<String>> SERVICE_ADDRESS_MAP = new ConcurrentHashMap<>(); // 缓存，第一次调用ZooKeeper查到某个服务的所有提供方之后就保存到这个Map中，后续直接从Map中拿，但是拿到了之后依然要根据负载均衡算法选一个
-    private static final Set<String> REGISTERED_PATH_SET = ConcurrentHashMap.newKeySet();   // 存储所有的ZooKeeper注册节点，用ZooKeeper客户端直接去检测也行：zkClient.checkExists().forPath(path)
-    private static CuratorFramework zkClient;   // CuratorFramework是Apache Curator库的核心组件，用于简化与Zookeeper的交互
+    private static final Map<String, List<Endpoint>> SERVICE_ENDPOINT_MAP = new ConcurrentHashMap<>(); // 缓存，每个服务当前全部提供方的不可变快照，随 ZooKeeper 事件替换，拿到之后依然要根据负载均衡算法选一个
+    private static final Map<String, PathChildrenCache> SERVICE_CACHE_MAP = new ConcurrentHashMap<>();  // 已经订阅的服务，每个服务只监听一次
+    private static final Map<String, SubscribeBackoff> SUBSCRIBE_BACKOFF_MAP = new ConcurrentHashMap<>();  // 订阅失败的服务，退避时间内不再去 ZooKeeper 查
+    private static final Map<String, byte[]> REGISTRATION_MAP = new ConcurrentHashMap<>();   // 当前进程要注册的节点和节点数据，会话重建后据此重新注册
+    private static final Set<String> REGISTERED_PATH_SET = ConcurrentHashMap.newKeySet();   // 当前会话下确实存在于ZooKeeper中的注册节点，会话过期时清空
+    private static volatile CuratorFramework zkClient;   // CuratorFramework是Apache Curator库的核心组件，用于简化与Zookeeper的交互
     private static final String DEFAULT_ZOOKEEPER_ADDRESS = "127.0.0.1:2181";   // 默认ZooKeeper地址
+    private static final int DEFAULT_SESSION_TIMEOUT_MS = 15000;   // 会话超时时间，被杀掉或者网络隔离的服务提供方最多这么久之后从注册中心消失
+    private static final int BATCH_TIMEOUT_SECONDS = 30;   // 批量注册时等待全部节点创建完成的最长时间
+    // 连接状态事件在单独的线程里按顺序处理，重新注册时不阻塞 Curator 的事件线程
+    private static final ExecutorService CONNECTION_STATE_EXECUTOR = Executors.newSingleThreadExecutor(
+            ThreadPoolFactoryUtil.createThreadFactory("zk-connection-state", true));
 
     private CuratorUtils() {
     }
@@ -48,61 +69,286 @@ public final class CuratorUtils {
      * @param path node path
      */
     public static void createPersistentNode(CuratorFramework zkClient, String path) {
+        createPersistentNode(zkClient, path, new byte[0]);
+    }
+
+    /**
+     * 增加一个永久性的节点，节点数据是服务提供方的元数据
+     * 节点已经存在（比如上一次启动留下的）时覆盖它的数据，保证启动时间等元数据是最新的
+     *
+     * @param path node path
+     * @param data node data
+     */
+    public static void createPersistentNode(CuratorFramework zkClient, String path, byte[] data) {
         try {
-            if (REGISTERED_PATH_SET.contains(path) || zkClient.checkExists().forPath(path) != null) {
-                // 如果该节点已经存在
-                log.info("The node already exists. The node is:[{}]", path);
+            if (zkClient.checkExists().forPath(path) != null) {
+                // 如果该节点已经存在，更新节点数据
+                zkClient.setData().forPath(path, data);
+                log.info("The node already exists, data updated. The node is:[{}]", path);
             } else {
-                // 不存在节点，新增一个
-                //eg: /my-rpc/github.javaguide.HelloService/127.0.0.1:9999
-                zkClient.create().creatingParentsIfNeeded().withMode(CreateMode.PERSISTENT).forPath(path);
+                zkClient.create().creatingParentsIfNeeded().withMode(CreateMode.PERSISTENT).forPath(path, data);
                 log.info("The node was created successfully. The node is:[{}]", path);
             }
-            REGISTERED_PATH_SET.add(path);
         } catch (Exception e) {
             log.error("create persistent node for path [{}] fail", path);
         }
     }
 
     /**
-     * 在ZooKeeper中，获取一个节点的全部子节点，这个方法是用来找某个服务的全部提供者IP
+     * 注册一个临时节点，节点数据是服务提供方的元数据，父节点（服务名）是永久节点
+     * 提供方进程被杀掉或者和 ZooKeeper 网络隔离时，会话过期后节点自动消失，客户端不会一直把请求发给一个死掉的地址；
+     * 会话过期后重新连上时由 {@link #getZkClient()} 里注册的连接状态监听器重新注册
+     * <p>
+     * Create an ephemeral node owned by the current session. It is remembered, so it is created again
+     * when the session is re-established after an expiry.
+     *
+     * @param path node path, eg: /my-rpc/github.javaguide.HelloService/127.0.0.1:9999
+     * @param data node data
+     */
+    public static void createEphemeralNode(CuratorFramework zkClient, String path, byte[] data) {
+        REGISTRATION_MAP.put(path, data);
+        try {
+            register(zkClient, path, data);
+            log.info("The ephemeral node was registered successfully. The node is:[{}]", path);
+        } catch (Exception e) {
+            // 记录下来了，下次会话重建时还会再试
+            log.error("create ephemeral node for path [{}] fail", path, e);
+        }
+    }
+
+    /**
+     * 批量注册临时节点：所有 create 请求异步地一次性发出去（pipelined），等全部返回，而不是每个节点串行地 checkExists + create 两次往返
+     * 已经存在的节点（上一个会话留下的）再逐个按 {@link #register(CuratorFramework, String, byte[])} 处理
+     * <p>
+     * Register many ephemeral nodes with pipelined asynchronous creates, e.g. all services of a provider at startup.
+     *
+     * @param nodes node path to node data
+     */
+    public static void createEphemeralNodes(CuratorFramework zkClient, Map<String, byte[]> nodes) {
+        REGISTRATION_MAP.putAll(nodes);
+        Set<String> existing = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch = new CountDownLatch(nodes.size());
+        nodes.forEach((path, data) -> {
+            try {
+                zkClient.create().creatingParentsIfNeeded().withMode(CreateMode.EPHEMERAL)
+                        .inBackground((client, event) -> {
+                            // 回调在 ZooKeeper 的事件线程里执行，这里不能再做同步调用
+                            if (event.getResultCode() == KeeperException.Code.OK.intValue()) {
+                                REGISTERED_PATH_SET.add(path);
+                            } else if (event.getResultCode() == KeeperException.Code.NODEEXISTS.intValue()) {
+                                existing.add(path);
+                            } else {
+                                log.error("create ephemeral node for path [{}] fail, code [{}]", path, event.getResultCode());
+                            }
+                            latch.countDown();
+                        }).forPath(path, data);
+            } catch (Exception e) {
+                log.error("create ephemeral node for path [{}] fail", path, e);
+                latch.countDown();
+            }
+        });
+        try {
+            if (!latch.await(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.error("Time out waiting to register [{}] nodes", latch.getCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (String path : existing) {
+            try {
+                register(zkClient, path, nodes.get(path));
+            } catch (Exception e) {
+                log.error("create ephemeral node for path [{}] fail", path, e);
+            }
+        }
+        // 失败的节点还记录在 REGISTRATION_MAP 里，会话重建时会再试
+        log.info("Registered [{}] of [{}] ephemeral nodes", nodes.keySet().stream().filter(REGISTERED_PATH_SET::contains).count(), nodes.size());
+    }
+
+    /**
+     * 保证节点存在且属于当前会话：已经是自己的就更新数据，上一个会话（比如进程快速重启）或者旧版本留下的永久节点先删掉再创建，
+     * 否则那个会话过期时会把刚注册的服务一起带走
+     */
+    private static void register(CuratorFramework zkClient, String path, byte[] data) throws Exception {
+        long sessionId = zkClient.getZookeeperClient().getZooKeeper().getSessionId();
+        Stat stat = zkClient.checkExists().forPath(path);
+        if (stat != null && stat.getEphemeralOwner() == sessionId) {
+            zkClient.setData().forPath(path, data);
+        } else {
+            if (stat != null) {
+                try {
+                    zkClient.delete().forPath(path);
+                } catch (KeeperException.NoNodeException ignored) {
+                    // the stale node went away on its own
+                }
+            }
+            zkClient.create().creatingParentsIfNeeded().withMode(CreateMode.EPHEMERAL).forPath(path, data);
+        }
+        REGISTERED_PATH_SET.add(path);
+    }
+
+    /**
+     * 连接状态变化：会话过期（LOST）时临时节点已经被 ZooKeeper 删掉了；重新连上（RECONNECTED）时逐个检查并补回缺失的节点
+     */
+    private static void onConnectionStateChanged(CuratorFramework zkClient, ConnectionState newState) {
+        if (newState == ConnectionState.LOST) {
+            REGISTERED_PATH_SET.clear();
+            log.warn("ZooKeeper session lost, [{}] registered nodes are gone", REGISTRATION_MAP.size());
+        } else if (newState == ConnectionState.RECONNECTED) {
+            // 只是短暂断开时会话还在，节点也还在；会话已经过期时要重新创建
+            REGISTRATION_MAP.forEach((path, data) -> {
+                try {
+                    register(zkClient, path, data);
+                } catch (Exception e) {
+                    REGISTERED_PATH_SET.remove(path);
+                    log.error("re-register node for path [{}] fail", path, e);
+                }
+            });
+            log.info("ZooKeeper reconnected, registered nodes:[{}]", REGISTERED_PATH_SET);
+        }
+    }
+
+    /**
+     * 在ZooKeeper中，获取一个节点的全部子节点并解析成 Endpoint，这个方法是用来找某个服务的全部提供者
      * 因为在存储所有服务提供方时，是通过节点存储的，就像一个树状结构：
      *      /my-rpc/github.javaguide.HelloServicetest2version/127.0.0.1:9999
      *      /my-rpc/github.javaguide.HelloServicetest2version/127.0.0.1:10000
      * 所以如果想要找到 github.javaguide.HelloServicetest2version 这个服务的所有提供方，就要找到
-     * /my-rpc/github.javaguide.HelloServicetest2version 的所有子节点，返回的List里面就是一堆的URL
+     * /my-rpc/github.javaguide.HelloServicetest2version 的所有子节点
+     * <p>
+     * 结果来自本地缓存，由 {@link #subscribe(CuratorFramework, String)} 建立并随 ZooKeeper 事件增量更新，
+     * 只有没有预热过的服务在第一次调用时才会去 ZooKeeper 查
      * <p>
      * 参数：
      *      zkClient：一个ZooKeeper连接
      *      rpcServiceName = interface name + version + group，例如：github.javaguide.HelloServicetest2version
      * <p>
-     * Gets the children under a node
+     * Gets the endpoints of the children under a node
      *
      * @param rpcServiceName rpc service name eg:github.javaguide.HelloServicetest2version1
-     * @return All child nodes under the specified node
+     * @return an immutable snapshot of the endpoints of all child nodes under the specified node, null if the lookup failed
      */
-    public static List<String> getChildrenNodes(CuratorFramework zkClient, String rpcServiceName) {
-        /*
-            这个SERVICE_ADDRESS_MAP是一个本地缓存，如果第一次调用ZooKeeper查到了这个服务的所有提供方IP
-            那么就保存到缓存中，后续直接从缓存中拿结果
-         */
-        if (SERVICE_ADDRESS_MAP.containsKey(rpcServiceName)) {
-            return SERVICE_ADDRESS_MAP.get(rpcServiceName);
-        }
-
-        /*
-            如果缓存中没有，去ZooKeeper中查，就要构造一个“父路径”：/my-rpc/方法标识
-         */
-        List<String> result = null;
+    public static List<Endpoint> getServiceEndpoints(CuratorFramework zkClient, String rpcServiceName) {
+        List<Endpoint> endpoints = SERVICE_ENDPOINT_MAP.get(rpcServiceName);
+        if (endpoints != null) {
+            return endpoints;
+        }
+        subscribe(zkClient, rpcServiceName);
+        return SERVICE_ENDPOINT_MAP.get(rpcServiceName);
+    }
+
+    /**
+     * 订阅一个服务：加载它当前的全部提供方放进缓存，之后由 PathChildrenCache 的事件逐个增加、更新、删除，不会再整体重新拉取
+     * 每次变化都生成一个新的不可变列表替换原来的（copy-on-write），正在使用旧列表的请求不受影响
+     * <p>
+     * Subscribes to a service once, later calls return immediately. Called at startup for every @RpcReference,
+     * so that the first request does not pay for the ZooKeeper round trips. The round trip is made outside of any
+     * lock, callers racing for the same service each load it and all but one close their cache again. A failed
+     * subscribe is not tried again before its back-off (1s, doubled per failure up to 30s) is over, requests in
+     * between find no provider instead of waiting for ZooKeeper each.
+     *
+     * @param rpcServiceName rpc service name eg:github.javaguide.HelloServicetest2version1
+     */
+    public static void subscribe(CuratorFramework zkClient, String rpcServiceName) {
+        if (SERVICE_CACHE_MAP.containsKey(rpcServiceName)) {
+            return;
+        }
+        SubscribeBackoff backoff = SUBSCRIBE_BACKOFF_MAP.get(rpcServiceName);
+        if (backoff != null && System.nanoTime() - backoff.nextAttemptNanos < 0) {
+            return;
+        }
+        // 监听 /my-rpc/github.javaguide.HelloServicetest2version 这个节点的子节点变更，同时缓存子节点的数据（服务提供方的元数据）
         String servicePath = ZK_REGISTER_ROOT_PATH + "/" + rpcServiceName;
+        PathChildrenCache pathChildrenCache = new PathChildrenCache(zkClient, servicePath, true);
+        // 先挂监听器再启动，启动过程中发生的变化也不会漏掉
+        pathChildrenCache.getListenable().addListener((curatorFramework, event) -> onChildEvent(rpcServiceName, event));
         try {
-            result = zkClient.getChildren().forPath(servicePath);
-            SERVICE_ADDRESS_MAP.put(rpcServiceName, result);    // 放入缓存中，方便下次查询
-            registerWatcher(rpcServiceName, zkClient);  // 注册一个监视器，监听信息变更，防止一直使用缓存数据，如果有服务方信息变更，要及时更新缓存
+            // 同步加载当前的全部子节点，返回时 getCurrentData() 已经是完整的
+            pathChildrenCache.start(PathChildrenCache.StartMode.BUILD_INITIAL_CACHE);
         } catch (Exception e) {
-            log.error("get children nodes for path [{}] fail", servicePath);
+            CloseableUtils.closeQuietly(pathChildrenCache);
+            SubscribeBackoff failed = SUBSCRIBE_BACKOFF_MAP.merge(rpcServiceName, SubscribeBackoff.first(),
+                    (previous, first) -> previous.next());
+            log.error("subscribe to path [{}] fail, retry in [{}] ms", servicePath,
+                    TimeUnit.NANOSECONDS.toMillis(failed.delayNanos), e);
+            return;
+        }
+        if (SERVICE_CACHE_MAP.putIfAbsent(rpcServiceName, pathChildrenCache) != null) {
+            // another caller subscribed at the same time, its cache keeps the list up to date and a snapshot taken
+            // here must not overwrite the events it has applied since
+            CloseableUtils.closeQuietly(pathChildrenCache);
+            return;
+        }
+        SUBSCRIBE_BACKOFF_MAP.remove(rpcServiceName);
+        // 启动过程中已经有事件先到的话，以完整的数据为准。快照在 compute 里面取，事件也在同一个 key 上 compute，
+        // 取完快照之后才处理的删除事件不会被一个更早的快照覆盖，已经下线的提供方不会又出现在列表里
+        SERVICE_ENDPOINT_MAP.compute(rpcServiceName, (key, previous) -> {
+            Map<String, ProviderMetadata> providers = new LinkedHashMap<>();
+            for (ChildData childData : pathChildrenCache.getCurrentData()) {
+                providers.put(ZKPaths.getNodeFromPath(childData.getPath()), ProviderMetadata.decode(childData.getData()));
+            }
+            return Endpoint.refresh(providers, previous == null ? Collections.emptyList() : previous);
+        });
+        log.info("Subscribed to [{}], providers:{}", rpcServiceName, SERVICE_ENDPOINT_MAP.get(rpcServiceName));
+    }
+
+    /**
+     * when a service whose subscribe failed may be tried again
+     */
+    private static final class SubscribeBackoff {
+        private static final long FIRST_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(BASE_SLEEP_TIME);
+        private static final long MAX_DELAY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+        private final long delayNanos;
+        private final long nextAttemptNanos;
+
+        private SubscribeBackoff(long delayNanos) {
+            this.delayNanos = delayNanos;
+            this.nextAttemptNanos = System.nanoTime() + delayNanos;
+        }
+
+        private static SubscribeBackoff first() {
+            return new SubscribeBackoff(FIRST_DELAY_NANOS);
+        }
+
+        private SubscribeBackoff next() {
+            return new SubscribeBackoff(Math.min(delayNanos * 2, MAX_DELAY_NANOS));
         }
-        return result;
+    }
+
+    /**
+     * 把一个子节点事件合并进缓存的服务列表，只处理变化的那一个提供方
+     */
+    private static void onChildEvent(String rpcServiceName, PathChildrenCacheEvent event) {
+        ChildData childData = event.getData();
+        switch (event.getType()) {
+            case CHILD_ADDED:
+            case CHILD_UPDATED:
+                String address = ZKPaths.getNodeFromPath(childData.getPath());
+                ProviderMetadata metadata = ProviderMetadata.decode(childData.getData());
+                SERVICE_ENDPOINT_MAP.compute(rpcServiceName, (key, previous) ->
+                        Endpoint.put(previous == null ? Collections.emptyList() : previous, address, metadata));
+                log.info("Provider [{}] of [{}] {}", address, rpcServiceName, event.getType());
+                break;
+            case CHILD_REMOVED:
+                String removed = ZKPaths.getNodeFromPath(childData.getPath());
+                SERVICE_ENDPOINT_MAP.computeIfPresent(rpcServiceName, (key, previous) -> Endpoint.remove(previous, removed));
+                log.info("Provider [{}] of [{}] removed", removed, rpcServiceName);
+                break;
+            default:
+                // 连接状态事件，PathChildrenCache 重新连上之后会自己补发 CHILD_ADDED/CHILD_REMOVED
+                break;
+        }
+    }
+
+    /**
+     * 当前进程是否向ZooKeeper注册过节点
+     *
+     * @return true if at least one node has been registered by this process
+     */
+    public static boolean hasRegisteredPath() {
+        return !REGISTRATION_MAP.isEmpty();
     }
 
     /**
@@ -110,16 +356,21 @@ public final class CuratorUtils {
      * Empty the registry of data
      */
     public static void clearRegistry(CuratorFramework zkClient, InetSocketAddress inetSocketAddress) {
-        REGISTERED_PATH_SET.stream().parallel().forEach(p -> {
+        REGISTRATION_MAP.keySet().stream().parallel().forEach(p -> {
             try {
                 if (p.endsWith(inetSocketAddress.toString())) {
+                    // 先移除，防止删除的同时连接状态监听器又把它注册回去
+                    REGISTRATION_MAP.remove(p);
+                    REGISTERED_PATH_SET.remove(p);
                     zkClient.delete().forPath(p);
                 }
+            } catch (KeeperException.NoNodeException ignored) {
+                // already removed together with an expired session
             } catch (Exception e) {
                 log.error("clear registry for path [{}] fail", p);
             }
         });
-        log.info("All registered services on the server are cleared:[{}]", REGISTERED_PATH_SET.toString());
+        log.info("All registered services on the server are cleared, remaining:[{}]", REGISTRATION_MAP.keySet());
     }
 
     /**
@@ -127,56 +378,45 @@ public final class CuratorUtils {
      * @return
      */
     public static CuratorFramework getZkClient() {
-        // check if user has set zk address，这个其实就是去配置文件读rpc.properties的配置，返回一个Properties对象
-        Properties properties = PropertiesFileUtil.readPropertiesFile(RpcConfigEnum.RPC_CONFIG_PATH.getPropertyValue());
-        // 尝试从properties文件中获取rpc.zookeeper.address属性，如果没有设置，就返回一个默认的ZooKeeper地址，默认的是"127.0.0.1:2181"
-        String zookeeperAddress = properties != null && properties.getProperty(RpcConfigEnum.ZK_ADDRESS.getPropertyValue()) != null ? properties.getProperty(RpcConfigEnum.ZK_ADDRESS.getPropertyValue()) : DEFAULT_ZOOKEEPER_ADDRESS;
-
         // if zkClient has been started, return directly
-        // zkClient就是一个ZooKeeper客户端，如果客户端已经被启动了（zkClient != null），就直接返回客户端连接
+        // zkClient就是一个ZooKeeper客户端，如果客户端已经被启动了（zkClient != null），就直接返回客户端连接，不用每次都去读配置文件
+        CuratorFramework client = zkClient;
+        if (client != null && client.getState() == CuratorFrameworkState.STARTED) {
+            return client;
+        }
+        return createZkClient();
+    }
+
+    private static synchronized CuratorFramework createZkClient() {
         if (zkClient != null && zkClient.getState() == CuratorFrameworkState.STARTED) {
             return zkClient;
         }
+        // check if user has set zk address，尝试从配置中获取rpc.zookeeper.address属性，如果没有设置，就返回一个默认的ZooKeeper地址，默认的是"127.0.0.1:2181"
+        RpcConfig rpcConfig = RpcConfig.getInstance();
+        String zookeeperAddress = rpcConfig.getString(RpcConfigEnum.ZK_ADDRESS, DEFAULT_ZOOKEEPER_ADDRESS);
+        int sessionTimeoutMs = rpcConfig.getInt(RpcConfigEnum.ZK_SESSION_TIMEOUT, DEFAULT_SESSION_TIMEOUT_MS);
 
         // 如果没有ZooKeeper客户端，就新建一个连接
         // Retry strategy. Retry 3 times, and will increase the sleep time between retries.
         RetryPolicy retryPolicy = new ExponentialBackoffRetry(BASE_SLEEP_TIME, MAX_RETRIES);
-        zkClient = CuratorFrameworkFactory.builder()
+        CuratorFramework client = CuratorFrameworkFactory.builder()
                 // the server to connect to (can be a server list)
                 .connectString(zookeeperAddress)
                 .retryPolicy(retryPolicy)
+                .sessionTimeoutMs(sessionTimeoutMs)
                 .build();
-        zkClient.start();
+        client.getConnectionStateListenable().addListener(CuratorUtils::onConnectionStateChanged, CONNECTION_STATE_EXECUTOR);
+        client.start();
+        zkClient = client;
         try {
             // wait 30s until connect to the zookeeper
-            if (!zkClient.blockUntilConnected(30, TimeUnit.SECONDS)) {
+            if (!client.blockUntilConnected(30, TimeUnit.SECONDS)) {
                 throw new RuntimeException("Time out waiting to connect to ZK!");
             }
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
-        return zkClient;
-    }
-
-    /**
-     * 注册一个ZooKeeper的监听器，监听某个服务的子节点是否会发生变更，变更时也就意味着服务提供方IP变了，要及时更新缓存SERVICE_ADDRESS_MAP
-     * Registers to listen for changes to the specified node
-     *
-     * @param rpcServiceName rpc service name eg:github.javaguide.HelloServicetest2version
-     */
-    private static void registerWatcher(String rpcServiceName, CuratorFramework zkClient) throws Exception {
-        // 监听 /my-rpc/github.javaguide.HelloServicetest2version 这个节点的子节点变更
-        String servicePath = ZK_REGISTER_ROOT_PATH + "/" + rpcServiceName;
-        PathChildrenCache pathChildrenCache = new PathChildrenCache(zkClient, servicePath, true);
-
-        PathChildrenCacheListener pathChildrenCacheListener = (curatorFramework, pathChildrenCacheEvent) -> {
-            // 监听到子节点变更之后，更新缓存 SERVICE_ADDRESS_MAP
-            List<String> serviceAddresses = curatorFramework.getChildren().forPath(servicePath);
-            SERVICE_ADDRESS_MAP.put(rpcServiceName, serviceAddresses);
-        };
-
-        pathChildrenCache.getListenable().addListener(pathChildrenCacheListener);
-        pathChildrenCache.start();  // 开启监听线程
+        return client;
     }
 
 }
@@ -0,0 +1,82 @@
+package github.javaguide.remoting;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 当前线程正在处理的 RPC 请求的上下文：服务端执行一个请求时设置，方法里再发起的 RPC 调用从这里继承剩余的超时时间，
+ * 调用方已经放弃的请求，下游也不用再做了
+ * <p>
+ * Set by the server around the execution of a request, read by the client proxy of nested calls. Attachments
+ * (e.g. a trace id) are received from and sent to v2 providers along with the calls, v1 providers never see them.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 22:40:00
+ */
+public final class RpcContext {
+
+    private static final ThreadLocal<RpcContext> CONTEXT = ThreadLocal.withInitial(RpcContext::new);
+
+    /**
+     * {@link System#nanoTime()} at which the caller of the current request gives up, 0 means never
+     */
+    private long deadlineNanos;
+    private Map<String, String> attachments = Collections.emptyMap();
+
+    private RpcContext() {
+    }
+
+    public static RpcContext getContext() {
+        return CONTEXT.get();
+    }
+
+    public static void removeContext() {
+        CONTEXT.remove();
+    }
+
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    public void setDeadlineNanos(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @return the attachments of the current request, also sent with every call made from this thread
+     */
+    public Map<String, String> getAttachments() {
+        return attachments;
+    }
+
+    public String getAttachment(String key) {
+        return attachments.get(key);
+    }
+
+    public RpcContext setAttachment(String key, String value) {
+        if (attachments.isEmpty()) {
+            attachments = new HashMap<>();
+        }
+        attachments.put(key, value);
+        return this;
+    }
+
+    public void setAttachments(Map<String, String> attachments) {
+        this.attachments = attachments == null ? Collections.emptyMap() : attachments;
+    }
+
+    /**
+     * @param timeoutMillis timeout of the call being made, 0 or less for none
+     * @return the earlier of the call's own deadline and the one inherited from the current request, 0 if neither
+     */
+    public static long deadlineNanos(long timeoutMillis) {
+        long inherited = CONTEXT.get().deadlineNanos;
+        if (timeoutMillis <= 0) {
+            return inherited;
+        }
+        long own = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        return inherited != 0 && inherited - own < 0 ? inherited : own;
+    }
+}
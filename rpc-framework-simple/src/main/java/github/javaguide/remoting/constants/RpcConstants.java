@@ -17,6 +17,10 @@ public class RpcConstants {
     public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
     //version information
     public static final byte VERSION = 1;
+    /**
+     * v2 adds a flags byte and a binary attachment map between the v1 header and the body
+     */
+    public static final byte VERSION_2 = 2;
     public static final byte TOTAL_LENGTH = 16;
     public static final byte REQUEST_TYPE = 1;
     public static final byte RESPONSE_TYPE = 2;
@@ -24,7 +28,50 @@ public class RpcConstants {
     public static final byte HEARTBEAT_REQUEST_TYPE = 3;
     //pong
     public static final byte HEARTBEAT_RESPONSE_TYPE = 4;
+    //v2 only: several requests in one frame, body is RpcRequest[]
+    public static final byte BATCH_REQUEST_TYPE = 5;
+    //v2 only: the responses of a batch, body is RpcResponse[]
+    public static final byte BATCH_RESPONSE_TYPE = 6;
+    //v2 only: the next items of a stream, body is Object[]
+    public static final byte STREAM_ITEMS_TYPE = 7;
+    //v2 only: the receiver of a stream may be sent that many more items, no body
+    public static final byte STREAM_CREDIT_TYPE = 8;
     public static final int HEAD_LENGTH = 16;
+    /**
+     * v1 header + flags(1B) + attachments length(2B)
+     */
+    public static final int V2_HEAD_LENGTH = 19;
+    public static final int MAX_ATTACHMENTS_LENGTH = 0xFFFF;
+    //v2 flags
+    public static final byte FLAG_ONEWAY = 0x01;
+    public static final byte FLAG_COMPRESSED = 0x02;
+    public static final byte FLAG_HEARTBEAT = 0x04;
+    public static final byte FLAG_ERROR = 0x08;
+    /**
+     * v2 bodies shorter than this are sent uncompressed, gzip only adds bytes and CPU to them
+     */
+    public static final int COMPRESS_MIN_LENGTH = 1024;
+    /**
+     * attachment carrying the caller's remaining timeout in milliseconds
+     */
+    public static final String TIMEOUT_KEY = "timeout";
+    /**
+     * attachment of stream frames: the requestId of the call the stream belongs to
+     */
+    public static final String STREAM_ID_KEY = "stream";
+    /**
+     * attachment of credit frames, and of requests whose result is streamed: how many more items may be sent,
+     * negative to cancel the stream
+     */
+    public static final String STREAM_CREDIT_KEY = "credit";
+    /**
+     * attachment of a request: index of the parameter whose items follow the request as a stream
+     */
+    public static final String STREAM_PARAMETER_KEY = "stream.parameter";
+    /**
+     * attachment of the last items frame a sender writes
+     */
+    public static final String STREAM_END_KEY = "end";
     public static final String PING = "ping";
     public static final String PONG = "pong";
     public static final int MAX_FRAME_LENGTH = 8 * 1024 * 1024;
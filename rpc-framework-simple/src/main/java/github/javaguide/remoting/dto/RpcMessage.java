@@ -1,6 +1,7 @@
 package github.javaguide.remoting.dto;
 
-
+import github.javaguide.limiter.ConcurrencyLimiter;
+import github.javaguide.remoting.transport.netty.server.BatchResponseCollector;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -8,6 +9,8 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
+import java.util.Map;
+
 /**
  * @author wangtao
  * @createTime 2020年10月2日 12:33
@@ -20,6 +23,18 @@ import lombok.ToString;
 @ToString
 public class RpcMessage {
 
+    /**
+     * protocol version the frame is (to be) written in, 0 is the same as {@link github.javaguide.remoting.constants.RpcConstants#VERSION}
+     */
+    private byte version;
+    /**
+     * v2 flags, see RpcConstants.FLAG_*. The encoder sets COMPRESSED, HEARTBEAT and ERROR itself
+     */
+    private byte flags;
+    /**
+     * v2 attachments, readable without deserializing the body. Dropped when written as v1
+     */
+    private Map<String, String> attachments;
     /**
      * rpc message type
      */
@@ -40,5 +55,20 @@ public class RpcMessage {
      * request data
      */
     private Object data;
+    /**
+     * {@link System#nanoTime()} when the frame was decoded, local to this process and never written to the wire
+     */
+    private long receivedNanos;
+    /**
+     * the limiter that admitted the request, released when it has been executed. Local, never written to the wire
+     */
+    @ToString.Exclude
+    private ConcurrencyLimiter concurrencyLimiter;
+    /**
+     * the batch a request was unpacked from, its response goes into the batch's single response frame. Local,
+     * never written to the wire
+     */
+    @ToString.Exclude
+    private BatchResponseCollector batchResponseCollector;
 
 }
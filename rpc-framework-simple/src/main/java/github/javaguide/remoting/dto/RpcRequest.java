@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * 一个RPC请求的所有参数
@@ -19,7 +20,7 @@ import java.io.Serializable;
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
-@Builder
+@Builder(toBuilder = true)
 @ToString
 public class RpcRequest implements Serializable {
     private static final long serialVersionUID = 1905122041950251207L;
@@ -30,6 +31,24 @@ public class RpcRequest implements Serializable {
     private Class<?>[] paramTypes;
     private String version;
     private String group;
+    /**
+     * 发送时剩余的超时时间（毫秒），服务端据此丢弃调用方已经放弃等待的请求，0 表示没有超时
+     * remaining time budget in milliseconds when the request was sent, 0 means no deadline
+     */
+    private long timeout;
+    /**
+     * {@link System#nanoTime()} at which the caller gives up, 0 means never. Local to the client, never serialized
+     */
+    private transient long deadlineNanos;
+    /**
+     * attachments of {@link github.javaguide.remoting.RpcContext} when the call was made, written into the v2 frame
+     * header instead of the body, null if there are none
+     */
+    private transient Map<String, String> attachments;
+    /**
+     * may be packed into one frame together with other requests to the same provider
+     */
+    private transient boolean batch;
 
     /**
      * 返回值示例：github.javaguide.HelloServicetest2version
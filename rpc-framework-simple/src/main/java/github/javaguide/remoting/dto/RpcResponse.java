@@ -56,4 +56,10 @@ public class RpcResponse<T> implements Serializable {
         return response;
     }
 
+    public static <T> RpcResponse<T> fail(RpcResponseCodeEnum rpcResponseCodeEnum, String requestId) {
+        RpcResponse<T> response = fail(rpcResponseCodeEnum);
+        response.setRequestId(requestId);
+        return response;
+    }
+
 }
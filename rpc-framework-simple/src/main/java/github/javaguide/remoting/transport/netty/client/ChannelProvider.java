@@ -16,35 +16,34 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class ChannelProvider {
 
-    private final Map<String, Channel> channelMap;
+    /**
+     * InetSocketAddress has a value based equals/hashCode, no need to build a string key per lookup
+     */
+    private final Map<InetSocketAddress, Channel> channelMap;
 
     public ChannelProvider() {
         channelMap = new ConcurrentHashMap<>();
     }
 
     public Channel get(InetSocketAddress inetSocketAddress) {
-        String key = inetSocketAddress.toString();
         // determine if there is a connection for the corresponding address
-        if (channelMap.containsKey(key)) {
-            Channel channel = channelMap.get(key);
+        Channel channel = channelMap.get(inetSocketAddress);
+        if (channel != null) {
             // if so, determine if the connection is available, and if so, get it directly
-            if (channel != null && channel.isActive()) {
+            if (channel.isActive()) {
                 return channel;
-            } else {
-                channelMap.remove(key);
             }
+            channelMap.remove(inetSocketAddress, channel);
         }
         return null;
     }
 
     public void set(InetSocketAddress inetSocketAddress, Channel channel) {
-        String key = inetSocketAddress.toString();
-        channelMap.put(key, channel);
+        channelMap.put(inetSocketAddress, channel);
     }
 
     public void remove(InetSocketAddress inetSocketAddress) {
-        String key = inetSocketAddress.toString();
-        channelMap.remove(key);
+        channelMap.remove(inetSocketAddress);
         log.info("Channel map size :[{}]", channelMap.size());
     }
 }
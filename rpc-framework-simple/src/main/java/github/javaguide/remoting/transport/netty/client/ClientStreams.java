@@ -0,0 +1,43 @@
+package github.javaguide.remoting.transport.netty.client;
+
+import github.javaguide.remoting.transport.netty.stream.StreamReceiver;
+import github.javaguide.remoting.transport.netty.stream.StreamSender;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 客户端正在进行的流式调用，key 是 requestId：服务端发回来的元素交给 receiver，服务端给的额度交给 sender
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月20日 00:30:00
+ */
+final class ClientStreams {
+
+    private static final Map<String, StreamReceiver<Object>> RECEIVERS = new ConcurrentHashMap<>();
+    private static final Map<String, StreamSender> SENDERS = new ConcurrentHashMap<>();
+
+    private ClientStreams() {
+    }
+
+    static void putReceiver(String requestId, StreamReceiver<Object> receiver) {
+        RECEIVERS.put(requestId, receiver);
+    }
+
+    static StreamReceiver<Object> getReceiver(String requestId) {
+        return requestId == null ? null : RECEIVERS.get(requestId);
+    }
+
+    static void putSender(String requestId, StreamSender sender) {
+        SENDERS.put(requestId, sender);
+    }
+
+    static StreamSender getSender(String requestId) {
+        return requestId == null ? null : SENDERS.get(requestId);
+    }
+
+    static void remove(String requestId) {
+        RECEIVERS.remove(requestId);
+        SENDERS.remove(requestId);
+    }
+}
@@ -1,11 +1,22 @@
 package github.javaguide.remoting.transport.netty.client;
 
 
+import github.javaguide.cluster.CircuitBreaker;
+import github.javaguide.cluster.Invoker;
+import github.javaguide.cluster.RetryBudget;
+import github.javaguide.config.RpcConfig;
 import github.javaguide.enums.CompressTypeEnum;
+import github.javaguide.enums.RpcConfigEnum;
+import github.javaguide.enums.RpcErrorMessageEnum;
+import github.javaguide.enums.RpcResponseCodeEnum;
 import github.javaguide.enums.SerializationTypeEnum;
-import github.javaguide.enums.ServiceDiscoveryEnum;
-import github.javaguide.extension.ExtensionLoader;
+import github.javaguide.exception.RequestNotSentException;
+import github.javaguide.exception.RpcException;
 import github.javaguide.factory.SingletonFactory;
+import github.javaguide.loadbalance.EndpointStats;
+import github.javaguide.metrics.RpcMetrics;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.registry.RegistryFactory;
 import github.javaguide.registry.ServiceDiscovery;
 import github.javaguide.remoting.constants.RpcConstants;
 import github.javaguide.remoting.dto.RpcMessage;
@@ -14,16 +25,23 @@ import github.javaguide.remoting.dto.RpcResponse;
 import github.javaguide.remoting.transport.RpcRequestTransport;
 import github.javaguide.remoting.transport.netty.codec.RpcMessageDecoder;
 import github.javaguide.remoting.transport.netty.codec.RpcMessageEncoder;
+import github.javaguide.remoting.transport.netty.stream.StreamReceiver;
+import github.javaguide.remoting.transport.netty.stream.StreamSender;
+import github.javaguide.utils.concurrent.threadpool.CustomThreadPoolConfig;
+import github.javaguide.utils.concurrent.threadpool.ThreadPoolFactoryUtil;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.EncoderException;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.timeout.IdleStateHandler;
@@ -31,7 +49,17 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -43,13 +71,42 @@ import java.util.concurrent.TimeUnit;
  */
 @Slf4j
 public final class NettyRpcClient implements RpcRequestTransport {
+    /**
+     * percentage of normal requests that may be followed by an extra (hedged or retried) request
+     */
+    private static final int DEFAULT_RETRY_BUDGET_PERCENT = 10;
+    private static final int RETRY_BUDGET_BURST = 100;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    private static final int DEFAULT_STREAM_WINDOW = 256;
     private final ServiceDiscovery serviceDiscovery;
     private final UnprocessedRequests unprocessedRequests;
     private final ChannelProvider channelProvider;
     private final Bootstrap bootstrap;
     private final EventLoopGroup eventLoopGroup;
+    private final RetryBudget retryBudget;
+    /**
+     * looks up and connects to the provider of a hedged request, both may block and must not run on an event loop
+     */
+    private final ExecutorService hedgeExecutor;
+    /**
+     * most requests packed into one batch frame, rpc.consumer.batch.size
+     */
+    private final int batchSize;
+    /**
+     * how long a batch waits for more requests, rpc.consumer.batch.delay in microseconds, 0 by default
+     */
+    private final long batchDelayNanos;
+    /**
+     * items of a streamed result the provider may send ahead of the caller, rpc.stream.window
+     */
+    private final int streamWindow;
+    private final Invoker invoker = new NettyInvoker(0);
 
     public NettyRpcClient() {
+        this(RegistryFactory.getServiceDiscovery());
+    }
+
+    public NettyRpcClient(ServiceDiscovery serviceDiscovery) {
         // initialize resources such as EventLoopGroup, Bootstrap
         eventLoopGroup = new NioEventLoopGroup();
         bootstrap = new Bootstrap();
@@ -70,9 +127,16 @@ public final class NettyRpcClient implements RpcRequestTransport {
                         p.addLast(new NettyRpcClientHandler());
                     }
                 });
-        this.serviceDiscovery = ExtensionLoader.getExtensionLoader(ServiceDiscovery.class).getExtension(ServiceDiscoveryEnum.ZK.getName());
+        this.serviceDiscovery = serviceDiscovery;
         this.unprocessedRequests = SingletonFactory.getInstance(UnprocessedRequests.class);
+        RpcMetrics.getInstance().getTransportMetrics().setPendingRequests(unprocessedRequests::size);
         this.channelProvider = SingletonFactory.getInstance(ChannelProvider.class);
+        int retryBudgetPercent = RpcConfig.getInstance().getInt(RpcConfigEnum.RETRY_BUDGET, DEFAULT_RETRY_BUDGET_PERCENT);
+        this.retryBudget = new RetryBudget(retryBudgetPercent / 100.0, RETRY_BUDGET_BURST);
+        this.hedgeExecutor = ThreadPoolFactoryUtil.createCustomThreadPoolIfAbsent(new CustomThreadPoolConfig(), "rpc-hedge", true);
+        this.batchSize = RpcConfig.getInstance().getInt(RpcConfigEnum.CONSUMER_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        this.batchDelayNanos = TimeUnit.MICROSECONDS.toNanos(RpcConfig.getInstance().getLong(RpcConfigEnum.CONSUMER_BATCH_DELAY, 0));
+        this.streamWindow = RpcConfig.getInstance().getInt(RpcConfigEnum.STREAM_WINDOW, DEFAULT_STREAM_WINDOW);
     }
 
     /**
@@ -89,7 +153,8 @@ public final class NettyRpcClient implements RpcRequestTransport {
                 log.info("The client has connected [{}] successful!", inetSocketAddress.toString());
                 completableFuture.complete(future.channel());
             } else {
-                throw new IllegalStateException();
+                // fail the caller instead of leaving it waiting forever, so that it can try another provider
+                completableFuture.completeExceptionally(future.cause());
             }
         });
         return completableFuture.get();
@@ -97,45 +162,420 @@ public final class NettyRpcClient implements RpcRequestTransport {
 
     @Override
     public Object sendRpcRequest(RpcRequest rpcRequest) {
-        // build return value
-        CompletableFuture<RpcResponse<Object>> resultFuture = new CompletableFuture<>();
         // get server address
-        InetSocketAddress inetSocketAddress = serviceDiscovery.lookupService(rpcRequest);
+        Endpoint endpoint = serviceDiscovery.lookupService(rpcRequest);
+        retryBudget.deposit();
+        return sendRpcRequest(rpcRequest, endpoint, 0);
+    }
+
+    /**
+     * @param hedgeDelayNanos 0 or less for no hedging, see {@link #sendRpcRequest(RpcRequest, Endpoint, long)}
+     * @return the client as seen by a cluster policy
+     */
+    public Invoker getInvoker(long hedgeDelayNanos) {
+        return hedgeDelayNanos > 0 ? new NettyInvoker(hedgeDelayNanos) : invoker;
+    }
+
+    /**
+     * 对冲请求：hedgeDelayNanos 之内没有响应，就把同一个请求（同一个 requestId）再发给另一个服务提供方，先到的响应完成 future，
+     * 后到的那个在 UnprocessedRequests 里已经找不到了，直接丢弃。额外的请求受 rpc.retry.budget 限制，下游变慢时不会把流量翻倍
+     * <p>
+     * Only for idempotent methods, the server may execute the request twice.
+     *
+     * @param hedgeDelayNanos how long to wait for the first provider, 0 or less sends a single request
+     */
+    public CompletableFuture<RpcResponse<Object>> sendRpcRequest(RpcRequest rpcRequest, Endpoint first, long hedgeDelayNanos) {
+        CompletableFuture<RpcResponse<Object>> resultFuture = new CompletableFuture<>();
+        if (!scheduleTimeout(rpcRequest, resultFuture)) {
+            return resultFuture;
+        }
+        try {
+            send(rpcRequest, first, resultFuture, true);
+        } catch (Exception e) {
+            // the future has been failed with it already
+            return resultFuture;
+        }
+        if (hedgeDelayNanos <= 0 || resultFuture.isDone()) {
+            return resultFuture;
+        }
+        ScheduledFuture<?> hedge = eventLoopGroup.schedule(() -> submitHedge(rpcRequest, first, resultFuture), hedgeDelayNanos, TimeUnit.NANOSECONDS);
+        resultFuture.whenComplete((rpcResponse, throwable) -> hedge.cancel(false));
+        return resultFuture;
+    }
+
+    /**
+     * 单向调用：请求写出去就算完成，不放进 UnprocessedRequests，服务端执行完也不回响应。没有重试，对方有没有执行成功调用方不知道
+     * <p>
+     * A v1 provider has no way to see the oneway flag and would answer anyway, so it is called the usual way
+     * and the future completes with its response.
+     *
+     * @return completed once the request has been flushed to the socket
+     */
+    public CompletableFuture<Void> sendOneway(RpcRequest rpcRequest) {
+        Endpoint endpoint = serviceDiscovery.lookupService(rpcRequest);
+        if (!supportsV2(endpoint)) {
+            return sendRpcRequest(rpcRequest, endpoint, 0).thenAccept(rpcResponse -> {
+                if (!isSuccess(rpcResponse)) {
+                    throw new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE, rpcRequest.getInterfaceName());
+                }
+            });
+        }
+        CompletableFuture<Void> sentFuture = new CompletableFuture<>();
+        if (!scheduleTimeout(rpcRequest, sentFuture)) {
+            return sentFuture;
+        }
+        Channel channel;
+        try {
+            channel = getChannel(endpoint);
+        } catch (Throwable e) {
+            sentFuture.completeExceptionally(e);
+            return sentFuture;
+        }
+        RpcMessage rpcMessage;
+        try {
+            rpcMessage = buildRequestMessage(rpcRequest, endpoint, false);
+        } catch (IllegalArgumentException e) {
+            sentFuture.completeExceptionally(new RequestNotSentException(endpoint.getAddress(), e));
+            return sentFuture;
+        }
+        rpcMessage.setFlags(RpcConstants.FLAG_ONEWAY);
+        channel.writeAndFlush(rpcMessage).addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                sentFuture.complete(null);
+            } else {
+                closeUnlessNothingWritten(future);
+                sentFuture.completeExceptionally(future.cause());
+                log.error("Send failed:", future.cause());
+            }
+        });
+        return sentFuture;
+    }
+
+    /**
+     * 流式调用：Iterator 类型的参数在请求之后按服务端给的额度分批发过去，返回 Iterator 的方法由服务端按客户端给的额度分批发回来，
+     * 两边内存里最多只有一个窗口的元素，结果也不再受单帧 8 MB 的限制。只支持 v2 的服务提供方，不走集群容错、对冲和批量
+     * <p>
+     * The timeout, if any, covers the whole call including the streams.
+     *
+     * @param streamParameterIndex index of the Iterator parameter streamed to the provider, -1 if there is none
+     * @param streamResult         whether the method returns an Iterator streamed back by the provider
+     * @return an Iterator over the streamed result, closing it cancels the stream; otherwise the returned value
+     */
+    public Object sendStreamRequest(RpcRequest rpcRequest, int streamParameterIndex, boolean streamResult) {
+        Endpoint endpoint = serviceDiscovery.lookupService(rpcRequest);
+        if (!supportsV2(endpoint)) {
+            throw new RpcException(RpcErrorMessageEnum.STREAM_NOT_SUPPORTED, endpoint.getAddress());
+        }
+        Channel channel = getChannel(endpoint);
+        String requestId = rpcRequest.getRequestId();
+        String interfaceName = rpcRequest.getInterfaceName();
+        Iterator<?> items = null;
+        if (streamParameterIndex >= 0) {
+            // the items follow the request, the parameter itself is sent as null
+            Object[] parameters = rpcRequest.getParameters().clone();
+            items = (Iterator<?>) parameters[streamParameterIndex];
+            parameters[streamParameterIndex] = null;
+            rpcRequest = rpcRequest.toBuilder().parameters(parameters).build();
+        }
+        CompletableFuture<RpcResponse<Object>> resultFuture = new CompletableFuture<>();
+        if (!scheduleTimeout(rpcRequest, resultFuture)) {
+            throw new RpcException(RpcErrorMessageEnum.REQUEST_TIMEOUT, requestId);
+        }
+        unprocessedRequests.put(requestId, resultFuture);
+        resultFuture.whenComplete((rpcResponse, throwable) -> {
+            unprocessedRequests.remove(requestId, resultFuture);
+            ClientStreams.remove(requestId);
+        });
+        RpcMessage rpcMessage;
+        try {
+            rpcMessage = buildRequestMessage(rpcRequest, endpoint, false);
+        } catch (IllegalArgumentException e) {
+            RequestNotSentException notSent = new RequestNotSentException(endpoint.getAddress(), e);
+            resultFuture.completeExceptionally(notSent);
+            throw notSent;
+        }
+        Map<String, String> attachments = rpcMessage.getAttachments() == null ? new HashMap<>(4) : new HashMap<>(rpcMessage.getAttachments());
+        StreamReceiver<Object> receiver = null;
+        if (streamResult) {
+            StreamReceiver<Object> streamReceiver = new StreamReceiver<>(channel, requestId, streamWindow);
+            attachments.put(RpcConstants.STREAM_CREDIT_KEY, Integer.toString(streamReceiver.getWindow()));
+            ClientStreams.putReceiver(requestId, streamReceiver);
+            // 服务端发完所有元素之后回复一个普通的响应，流在这里结束
+            resultFuture.whenComplete((rpcResponse, throwable) -> streamReceiver.onEnd(throwable != null ? throwable
+                    : isSuccess(rpcResponse) ? null : new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE, interfaceName)));
+            streamReceiver.setCloseListener(() -> resultFuture.completeExceptionally(new CancellationException(requestId)));
+            receiver = streamReceiver;
+        }
+        StreamSender sender = null;
+        if (items != null) {
+            // the provider grants the initial credit once it is ready for the items
+            sender = new StreamSender(channel, requestId, 0);
+            attachments.put(RpcConstants.STREAM_PARAMETER_KEY, Integer.toString(streamParameterIndex));
+            ClientStreams.putSender(requestId, sender);
+        }
+        rpcMessage.setAttachments(attachments);
+        channel.writeAndFlush(rpcMessage).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                closeUnlessNothingWritten(future);
+                resultFuture.completeExceptionally(future.cause());
+                log.error("Send failed:", future.cause());
+            }
+        });
+        if (sender != null) {
+            try {
+                sender.sendAll(items, resultFuture);
+            } catch (RuntimeException e) {
+                resultFuture.completeExceptionally(e);
+                throw e;
+            }
+        }
+        if (receiver != null) {
+            return receiver;
+        }
+        RpcResponse<Object> rpcResponse;
+        try {
+            rpcResponse = resultFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                    : new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE.getMessage(), e.getCause());
+        }
+        if (!isSuccess(rpcResponse)) {
+            throw new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE, interfaceName);
+        }
+        return rpcResponse.getData();
+    }
+
+    private static boolean isSuccess(RpcResponse<Object> rpcResponse) {
+        return rpcResponse != null && Integer.valueOf(RpcResponseCodeEnum.SUCCESS.getCode()).equals(rpcResponse.getCode());
+    }
+
+    /**
+     * 超时由客户端自己计时，剩余的时间随请求发给服务端
+     *
+     * @return false if the deadline of the request has passed already, the future is failed then
+     */
+    private boolean scheduleTimeout(RpcRequest rpcRequest, CompletableFuture<?> future) {
+        long deadlineNanos = rpcRequest.getDeadlineNanos();
+        if (deadlineNanos == 0) {
+            return true;
+        }
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        if (remainingNanos <= 0) {
+            future.completeExceptionally(new RpcException(RpcErrorMessageEnum.REQUEST_TIMEOUT, rpcRequest.getRequestId()));
+            return false;
+        }
+        ScheduledFuture<?> timeout = eventLoopGroup.schedule(() -> future.completeExceptionally(
+                new RpcException(RpcErrorMessageEnum.REQUEST_TIMEOUT, rpcRequest.getRequestId())), remainingNanos, TimeUnit.NANOSECONDS);
+        future.whenComplete((result, throwable) -> timeout.cancel(false));
+        return true;
+    }
+
+    /**
+     * runs on the event loop that timed the delay, the lookup may ask the registry and the send may connect, so the
+     * hedge itself is done on the hedge executor
+     */
+    private void submitHedge(RpcRequest rpcRequest, Endpoint first, CompletableFuture<RpcResponse<Object>> resultFuture) {
+        if (resultFuture.isDone()) {
+            return;
+        }
+        try {
+            hedgeExecutor.execute(() -> hedge(rpcRequest, first, resultFuture));
+        } catch (RejectedExecutionException e) {
+            log.warn("too many hedged requests, not hedging [{}]", rpcRequest.getRequestId());
+        }
+    }
+
+    private void hedge(RpcRequest rpcRequest, Endpoint first, CompletableFuture<RpcResponse<Object>> resultFuture) {
+        if (resultFuture.isDone() || !retryBudget.tryWithdraw()) {
+            return;
+        }
+        Endpoint second;
+        try {
+            second = serviceDiscovery.lookupService(rpcRequest, Collections.singleton(first.getAddress()));
+        } catch (Exception e) {
+            log.warn("no provider to hedge [{}] to", rpcRequest.getRequestId(), e);
+            return;
+        }
+        if (second != null) {
+            log.debug("hedge request [{}] from [{}] to [{}]", rpcRequest.getRequestId(), first, second);
+            send(rpcRequest, second, resultFuture, false);
+        }
+    }
+
+    /**
+     * 发送一次请求
+     *
+     * @param primary false for a hedged copy: its failure is only logged, the first attempt may still succeed
+     */
+    private void send(RpcRequest rpcRequest, Endpoint endpoint, CompletableFuture<RpcResponse<Object>> resultFuture, boolean primary) {
+        // in-flight count and response time per address, read by the stats based load balancers
+        EndpointStats endpointStats = endpoint.getStats();
+        long beginNanos = endpointStats.begin();
+        // 对冲请求和原请求共用一个 future，只有原请求的耗时算作它那台机器的响应时间
+        resultFuture.whenComplete((rpcResponse, throwable) -> endpointStats.end(beginNanos, primary && throwable == null));
+        if (primary) {
+            CircuitBreaker circuitBreaker = CircuitBreaker.of(rpcRequest.getRpcServiceName(), endpoint.getAddress());
+            resultFuture.whenComplete((rpcResponse, throwable) -> {
+                // a failed or abandoned request must not stay in UnprocessedRequests
+                unprocessedRequests.remove(rpcRequest.getRequestId(), resultFuture);
+                // 对冲请求先返回时记的是整个请求的耗时，已经超过了对冲的 delay，慢调用照样能被熔断器发现
+                boolean success = throwable == null && rpcResponse != null
+                        && Integer.valueOf(RpcResponseCodeEnum.SUCCESS.getCode()).equals(rpcResponse.getCode());
+                circuitBreaker.record(System.nanoTime() - beginNanos, success);
+            });
+        }
         // get  server address related channel
-        Channel channel = getChannel(inetSocketAddress);
+        Channel channel;
+        try {
+            channel = getChannel(endpoint);
+        } catch (Throwable e) {
+            if (!primary) {
+                log.warn("hedge request to [{}] failed", endpoint, e);
+                return;
+            }
+            // doConnect may sneaky throw checked exceptions as well
+            RequestNotSentException notSent = new RequestNotSentException(endpoint.getAddress(), e);
+            resultFuture.completeExceptionally(notSent);
+            throw notSent;
+        }
         if (channel.isActive()) {
+            // 批量请求只能发给 v2 的服务提供方，RpcContext 的附件要放在帧头里，带附件的请求单独发
+            boolean batch = rpcRequest.isBatch() && supportsV2(endpoint) && rpcRequest.getAttachments() == null;
+            RpcMessage rpcMessage;
+            try {
+                rpcMessage = buildRequestMessage(rpcRequest, endpoint, batch);
+            } catch (IllegalArgumentException e) {
+                if (!primary) {
+                    // the first attempt has failed the same way
+                    return;
+                }
+                RequestNotSentException notSent = new RequestNotSentException(endpoint.getAddress(), e);
+                resultFuture.completeExceptionally(notSent);
+                throw notSent;
+            }
             // put unprocessed request
             unprocessedRequests.put(rpcRequest.getRequestId(), resultFuture);
-            RpcMessage rpcMessage = RpcMessage.builder().data(rpcRequest)
-                    .codec(SerializationTypeEnum.HESSIAN.getCode())
-                    .compress(CompressTypeEnum.GZIP.getCode())
-                    .messageType(RpcConstants.REQUEST_TYPE).build();
-            channel.writeAndFlush(rpcMessage).addListener((ChannelFutureListener) future -> {
+            if (resultFuture.isDone()) {
+                // the other attempt won in the meantime, do not leave the future behind
+                unprocessedRequests.remove(rpcRequest.getRequestId(), resultFuture);
+                return;
+            }
+            ChannelPromise promise = channel.newPromise();
+            if (batch) {
+                RequestBatcher.of(channel, batchSize, batchDelayNanos).add(rpcMessage, promise);
+            } else {
+                channel.writeAndFlush(rpcMessage, promise);
+            }
+            promise.addListener((ChannelFutureListener) future -> {
                 if (future.isSuccess()) {
                     log.info("client send message: [{}]", rpcMessage);
                 } else {
-                    future.channel().close();
-                    resultFuture.completeExceptionally(future.cause());
+                    closeUnlessNothingWritten(future);
+                    if (primary) {
+                        // a frame that was not written completely cannot be decoded, let alone executed
+                        resultFuture.completeExceptionally(new RequestNotSentException(endpoint.getAddress(), future.cause()));
+                    }
                     log.error("Send failed:", future.cause());
                 }
             });
-        } else {
-            throw new IllegalStateException();
+        } else if (primary) {
+            RequestNotSentException e = new RequestNotSentException(endpoint.getAddress(), null);
+            resultFuture.completeExceptionally(e);
+            throw e;
         }
+    }
 
-        return resultFuture;
+    /**
+     * v2 frames only go to providers that published protocol 2, everything else gets v1. The remaining timeout is
+     * computed per send, so a hedged copy carries what is actually left
+     *
+     * @param batch the request is going into a batch frame, whose requests carry their timeout in the body
+     * @throws IllegalArgumentException if the attachments do not fit in the v2 header
+     */
+    private static RpcMessage buildRequestMessage(RpcRequest rpcRequest, Endpoint endpoint, boolean batch) {
+        boolean v2 = supportsV2(endpoint);
+        long timeoutMillis = 0;
+        if (rpcRequest.getDeadlineNanos() != 0) {
+            timeoutMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(rpcRequest.getDeadlineNanos() - System.nanoTime()), 1);
+        }
+        Map<String, String> attachments = null;
+        if (v2 && !batch) {
+            // v2 的超时时间和 RpcContext 的附件放在帧头里，服务端不用反序列化 body 就能读到
+            if (timeoutMillis > 0) {
+                attachments = rpcRequest.getAttachments() == null ? new HashMap<>(2) : new HashMap<>(rpcRequest.getAttachments());
+                attachments.put(RpcConstants.TIMEOUT_KEY, Long.toString(timeoutMillis));
+            } else {
+                attachments = rpcRequest.getAttachments();
+            }
+            RpcMessageEncoder.checkAttachments(attachments);
+        } else if (rpcRequest.getTimeout() != timeoutMillis) {
+            // v1 和批量请求的超时时间在 body 里，每次发送用一个副本，对冲请求和批量队列里的请求还在用原来那个对象
+            rpcRequest = rpcRequest.toBuilder().timeout(timeoutMillis).build();
+        }
+        return RpcMessage.builder().data(rpcRequest)
+                .version(v2 ? RpcConstants.VERSION_2 : RpcConstants.VERSION)
+                .attachments(attachments)
+                .codec(SerializationTypeEnum.HESSIAN.getCode())
+                .compress(CompressTypeEnum.GZIP.getCode())
+                .messageType(RpcConstants.REQUEST_TYPE).build();
     }
 
-    public Channel getChannel(InetSocketAddress inetSocketAddress) {
-        Channel channel = channelProvider.get(inetSocketAddress);
+    /**
+     * 编码失败的时候帧一个字节都没有写出去，连接上的其他请求不受影响，不用关连接
+     */
+    private static void closeUnlessNothingWritten(ChannelFuture future) {
+        if (!(future.cause() instanceof EncoderException)) {
+            future.channel().close();
+        }
+    }
+
+    private static boolean supportsV2(Endpoint endpoint) {
+        return endpoint.getMetadata().getProtocol() >= RpcConstants.VERSION_2;
+    }
+
+    public Channel getChannel(Endpoint endpoint) {
+        // fast path: the channel cached on the endpoint itself
+        Channel channel = endpoint.getChannel();
+        if (channel != null && channel.isActive()) {
+            return channel;
+        }
+        InetSocketAddress inetSocketAddress = endpoint.getInetSocketAddress();
+        channel = channelProvider.get(inetSocketAddress);
         if (channel == null) {
             channel = doConnect(inetSocketAddress);
             channelProvider.set(inetSocketAddress, channel);
         }
+        endpoint.setChannel(channel);
         return channel;
     }
 
     public void close() {
         eventLoopGroup.shutdownGracefully();
     }
+
+    private final class NettyInvoker implements Invoker {
+        private final long hedgeDelayNanos;
+
+        private NettyInvoker(long hedgeDelayNanos) {
+            this.hedgeDelayNanos = hedgeDelayNanos;
+        }
+
+        @Override
+        public Endpoint select(RpcRequest rpcRequest, Set<String> excludedAddresses) {
+            return serviceDiscovery.lookupService(rpcRequest, excludedAddresses);
+        }
+
+        @Override
+        public CompletableFuture<RpcResponse<Object>> invoke(RpcRequest rpcRequest, Endpoint endpoint) {
+            return sendRpcRequest(rpcRequest, endpoint, hedgeDelayNanos);
+        }
+
+        @Override
+        public RetryBudget getRetryBudget() {
+            return retryBudget;
+        }
+    }
 }
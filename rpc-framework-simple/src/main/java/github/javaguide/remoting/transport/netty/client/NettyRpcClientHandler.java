@@ -6,6 +6,9 @@ import github.javaguide.factory.SingletonFactory;
 import github.javaguide.remoting.constants.RpcConstants;
 import github.javaguide.remoting.dto.RpcMessage;
 import github.javaguide.remoting.dto.RpcResponse;
+import github.javaguide.remoting.transport.netty.stream.StreamFrames;
+import github.javaguide.remoting.transport.netty.stream.StreamReceiver;
+import github.javaguide.remoting.transport.netty.stream.StreamSender;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
@@ -16,8 +19,6 @@ import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.util.ReferenceCountUtil;
 import lombok.extern.slf4j.Slf4j;
 
-import java.net.InetSocketAddress;
-
 /**
  * Customize the client ChannelHandler to process the data sent by the server
  *
@@ -31,11 +32,9 @@ import java.net.InetSocketAddress;
 @Slf4j
 public class NettyRpcClientHandler extends ChannelInboundHandlerAdapter {
     private final UnprocessedRequests unprocessedRequests;
-    private final NettyRpcClient nettyRpcClient;
 
     public NettyRpcClientHandler() {
         this.unprocessedRequests = SingletonFactory.getInstance(UnprocessedRequests.class);
-        this.nettyRpcClient = SingletonFactory.getInstance(NettyRpcClient.class);
     }
 
     /**
@@ -53,6 +52,20 @@ public class NettyRpcClientHandler extends ChannelInboundHandlerAdapter {
                 } else if (messageType == RpcConstants.RESPONSE_TYPE) {
                     RpcResponse<Object> rpcResponse = (RpcResponse<Object>) tmp.getData();
                     unprocessedRequests.complete(rpcResponse);
+                } else if (messageType == RpcConstants.BATCH_RESPONSE_TYPE) {
+                    for (RpcResponse<Object> rpcResponse : (RpcResponse<Object>[]) tmp.getData()) {
+                        unprocessedRequests.complete(rpcResponse);
+                    }
+                } else if (messageType == RpcConstants.STREAM_ITEMS_TYPE) {
+                    StreamReceiver<Object> receiver = ClientStreams.getReceiver(StreamFrames.getStreamId(tmp));
+                    if (receiver != null) {
+                        receiver.onItems((Object[]) tmp.getData());
+                    }
+                } else if (messageType == RpcConstants.STREAM_CREDIT_TYPE) {
+                    StreamSender sender = ClientStreams.getSender(StreamFrames.getStreamId(tmp));
+                    if (sender != null) {
+                        sender.addCredit(StreamFrames.getCredit(tmp));
+                    }
                 }
             }
         } finally {
@@ -66,7 +79,8 @@ public class NettyRpcClientHandler extends ChannelInboundHandlerAdapter {
             IdleState state = ((IdleStateEvent) evt).state();
             if (state == IdleState.WRITER_IDLE) {
                 log.info("write idle happen [{}]", ctx.channel().remoteAddress());
-                Channel channel = nettyRpcClient.getChannel((InetSocketAddress) ctx.channel().remoteAddress());
+                // the idle channel itself, no need to look it up by its remote address
+                Channel channel = ctx.channel();
                 RpcMessage rpcMessage = new RpcMessage();
                 rpcMessage.setCodec(SerializationTypeEnum.PROTOSTUFF.getCode());
                 rpcMessage.setCompress(CompressTypeEnum.GZIP.getCode());
@@ -0,0 +1,129 @@
+package github.javaguide.remoting.transport.netty.client;
+
+import github.javaguide.enums.CompressTypeEnum;
+import github.javaguide.enums.SerializationTypeEnum;
+import github.javaguide.remoting.constants.RpcConstants;
+import github.javaguide.remoting.dto.RpcMessage;
+import github.javaguide.remoting.dto.RpcRequest;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.AttributeKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 批量发送：同一个连接上攒一会儿（默认是到 IO 线程下一次处理任务为止，不额外等待）的请求打包成一帧发出去，
+ * 服务端也用一帧回复所有响应，省掉每个请求各自的帧头、序列化外壳、压缩、flush 和系统调用
+ * <p>
+ * One batcher per channel, kept as a channel attribute. Any thread may add, the flush runs on the channel's event
+ * loop. A batch of one is sent as a plain request frame.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 23:50:00
+ */
+final class RequestBatcher {
+
+    private static final AttributeKey<RequestBatcher> BATCHER = AttributeKey.valueOf("requestBatcher");
+
+    private final Channel channel;
+    private final int maxSize;
+    private final long delayNanos;
+    private final Queue<PendingRequest> pendingRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private RequestBatcher(Channel channel, int maxSize, long delayNanos) {
+        this.channel = channel;
+        this.maxSize = Math.max(maxSize, 1);
+        this.delayNanos = delayNanos;
+    }
+
+    /**
+     * @param maxSize    most requests packed into one frame
+     * @param delayNanos how long the first request of a batch waits for others, 0 means only until the event loop
+     *                   gets to the flush
+     */
+    static RequestBatcher of(Channel channel, int maxSize, long delayNanos) {
+        RequestBatcher batcher = channel.attr(BATCHER).get();
+        if (batcher == null) {
+            RequestBatcher created = new RequestBatcher(channel, maxSize, delayNanos);
+            batcher = channel.attr(BATCHER).setIfAbsent(created);
+            if (batcher == null) {
+                batcher = created;
+            }
+        }
+        return batcher;
+    }
+
+    /**
+     * @param promise completed when the frame carrying the request has been written, or failed to
+     */
+    void add(RpcMessage rpcMessage, ChannelPromise promise) {
+        pendingRequests.add(new PendingRequest(rpcMessage, promise));
+        if (flushScheduled.compareAndSet(false, true)) {
+            if (delayNanos > 0) {
+                channel.eventLoop().schedule(this::flush, delayNanos, TimeUnit.NANOSECONDS);
+            } else {
+                channel.eventLoop().execute(this::flush);
+            }
+        }
+    }
+
+    private void flush() {
+        // cleared before draining: a request added from now on schedules another flush, at worst an empty one
+        flushScheduled.set(false);
+        List<PendingRequest> batch = new ArrayList<>();
+        PendingRequest pendingRequest;
+        while ((pendingRequest = pendingRequests.poll()) != null) {
+            batch.add(pendingRequest);
+            if (batch.size() == maxSize) {
+                write(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+        channel.flush();
+    }
+
+    private void write(List<PendingRequest> batch) {
+        if (batch.size() == 1) {
+            channel.write(batch.get(0).rpcMessage, batch.get(0).promise);
+            return;
+        }
+        RpcRequest[] rpcRequests = new RpcRequest[batch.size()];
+        for (int i = 0; i < rpcRequests.length; i++) {
+            rpcRequests[i] = (RpcRequest) batch.get(i).rpcMessage.getData();
+        }
+        RpcMessage rpcMessage = RpcMessage.builder().data(rpcRequests)
+                .version(RpcConstants.VERSION_2)
+                .codec(SerializationTypeEnum.HESSIAN.getCode())
+                .compress(CompressTypeEnum.GZIP.getCode())
+                .messageType(RpcConstants.BATCH_REQUEST_TYPE).build();
+        channel.write(rpcMessage).addListener((ChannelFutureListener) future -> {
+            for (PendingRequest request : batch) {
+                if (future.isSuccess()) {
+                    request.promise.trySuccess();
+                } else {
+                    request.promise.tryFailure(future.cause());
+                }
+            }
+        });
+    }
+
+    private static final class PendingRequest {
+        private final RpcMessage rpcMessage;
+        private final ChannelPromise promise;
+
+        private PendingRequest(RpcMessage rpcMessage, ChannelPromise promise) {
+            this.rpcMessage = rpcMessage;
+            this.promise = promise;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package github.javaguide.remoting.transport.netty.client;
 
 import github.javaguide.remoting.dto.RpcResponse;
+import lombok.extern.slf4j.Slf4j;
 
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -12,6 +13,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * @author shuang.kou
  * @createTime 2020年06月04日 17:30:00
  */
+@Slf4j
 public class UnprocessedRequests {
     private static final Map<String, CompletableFuture<RpcResponse<Object>>> UNPROCESSED_RESPONSE_FUTURES = new ConcurrentHashMap<>();
 
@@ -24,7 +26,22 @@ public class UnprocessedRequests {
         if (null != future) {
             future.complete(rpcResponse);
         } else {
-            throw new IllegalStateException();
+            // the loser of a hedged request, or a response that arrived after its request was given up
+            log.debug("ignore the response of a finished request [{}]", rpcResponse.getRequestId());
         }
     }
+
+    /**
+     * forget a request that will not wait for its response any more, only if the same future is still registered
+     */
+    public void remove(String requestId, CompletableFuture<RpcResponse<Object>> future) {
+        UNPROCESSED_RESPONSE_FUTURES.remove(requestId, future);
+    }
+
+    /**
+     * @return number of requests still waiting for their response
+     */
+    public int size() {
+        return UNPROCESSED_RESPONSE_FUTURES.size();
+    }
 }
@@ -4,6 +4,8 @@ import github.javaguide.compress.Compress;
 import github.javaguide.enums.CompressTypeEnum;
 import github.javaguide.enums.SerializationTypeEnum;
 import github.javaguide.extension.ExtensionLoader;
+import github.javaguide.metrics.RpcMetrics;
+import github.javaguide.metrics.TransportMetrics;
 import github.javaguide.remoting.constants.RpcConstants;
 import github.javaguide.remoting.dto.RpcMessage;
 import github.javaguide.remoting.dto.RpcRequest;
@@ -15,6 +17,9 @@ import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * custom protocol decoder
@@ -33,6 +38,16 @@ import java.util.Arrays;
  * body（object类型数据）
  * </pre>
  * <p>
+ * v2（version = 2）在 v1 的头部之后、body 之前多了 flags 和附件，附件不用反序列化 body 就能读到，服务端可以据此提前做决定
+ * <pre>
+ *   +----------- v1 header, version = 2 -----------+-------+--------------------+---------------------+------+
+ *   |                       16B                    | flags | attachments length |     attachments     | body |
+ *   +----------------------------------------------+-------+--------------------+---------------------+------+
+ * 1B flags: 0x01 oneway, 0x02 compressed (body is compressed with the compress type), 0x04 heartbeat, 0x08 error
+ * 2B attachments length, then per entry: 1B key length + UTF-8 key + 2B value length + UTF-8 value
+ * </pre>
+ * v1 and v2 frames are both accepted, the full length sits at offset 5 in either.
+ * <p>
  * {@link LengthFieldBasedFrameDecoder} is a length-based decoder , used to solve TCP unpacking and sticking problems.
  * </p>
  *
@@ -42,6 +57,8 @@ import java.util.Arrays;
  */
 @Slf4j
 public class RpcMessageDecoder extends LengthFieldBasedFrameDecoder {
+    private final TransportMetrics transportMetrics = RpcMetrics.getInstance().getTransportMetrics();
+
     public RpcMessageDecoder() {
         // lengthFieldOffset: magic code is 4B, and version is 1B, and then full length. so value is 5
         // lengthFieldLength: full length is 4B. so value is 4
@@ -89,7 +106,7 @@ public class RpcMessageDecoder extends LengthFieldBasedFrameDecoder {
     private Object decodeFrame(ByteBuf in) {
         // note: must read ByteBuf in order
         checkMagicNumber(in);
-        checkVersion(in);
+        byte version = checkVersion(in);
         int fullLength = in.readInt();
         // build RpcMessage object
         byte messageType = in.readByte();
@@ -97,26 +114,44 @@ public class RpcMessageDecoder extends LengthFieldBasedFrameDecoder {
         byte compressType = in.readByte();
         int requestId = in.readInt();
         RpcMessage rpcMessage = RpcMessage.builder()
+                .version(version)
                 .codec(codecType)
+                .compress(compressType)
                 .requestId(requestId)
+                .receivedNanos(System.nanoTime())
                 .messageType(messageType).build();
+        int headLength = RpcConstants.HEAD_LENGTH;
+        boolean compressed = true;
+        if (version == RpcConstants.VERSION_2) {
+            byte flags = in.readByte();
+            int attachmentsLength = in.readUnsignedShort();
+            rpcMessage.setFlags(flags);
+            rpcMessage.setAttachments(readAttachments(in, attachmentsLength));
+            headLength = RpcConstants.V2_HEAD_LENGTH + attachmentsLength;
+            compressed = (flags & RpcConstants.FLAG_COMPRESSED) != 0;
+        }
         if (messageType == RpcConstants.HEARTBEAT_REQUEST_TYPE) {
+            transportMetrics.recordDecode(fullLength, 0, 0);
             rpcMessage.setData(RpcConstants.PING);
             return rpcMessage;
         }
         if (messageType == RpcConstants.HEARTBEAT_RESPONSE_TYPE) {
+            transportMetrics.recordDecode(fullLength, 0, 0);
             rpcMessage.setData(RpcConstants.PONG);
             return rpcMessage;
         }
-        int bodyLength = fullLength - RpcConstants.HEAD_LENGTH;
+        int bodyLength = fullLength - headLength;
         if (bodyLength > 0) {
             byte[] bs = new byte[bodyLength];
             in.readBytes(bs);
-            // decompress the bytes
-            String compressName = CompressTypeEnum.getName(compressType);
-            Compress compress = ExtensionLoader.getExtensionLoader(Compress.class)
-                    .getExtension(compressName);
-            bs = compress.decompress(bs);
+            if (compressed) {
+                // decompress the bytes
+                String compressName = CompressTypeEnum.getName(compressType);
+                Compress compress = ExtensionLoader.getExtensionLoader(Compress.class)
+                        .getExtension(compressName);
+                bs = compress.decompress(bs);
+            }
+            transportMetrics.recordDecode(fullLength, bs.length, bodyLength);
             // deserialize the object
             String codecName = SerializationTypeEnum.getName(rpcMessage.getCodec());
             log.info("codec name: [{}] ", codecName);
@@ -125,6 +160,12 @@ public class RpcMessageDecoder extends LengthFieldBasedFrameDecoder {
             if (messageType == RpcConstants.REQUEST_TYPE) {
                 RpcRequest tmpValue = serializer.deserialize(bs, RpcRequest.class);
                 rpcMessage.setData(tmpValue);
+            } else if (messageType == RpcConstants.BATCH_REQUEST_TYPE) {
+                rpcMessage.setData(serializer.deserialize(bs, RpcRequest[].class));
+            } else if (messageType == RpcConstants.STREAM_ITEMS_TYPE) {
+                rpcMessage.setData(serializer.deserialize(bs, Object[].class));
+            } else if (messageType == RpcConstants.BATCH_RESPONSE_TYPE) {
+                rpcMessage.setData(serializer.deserialize(bs, RpcResponse[].class));
             } else {
                 RpcResponse tmpValue = serializer.deserialize(bs, RpcResponse.class);
                 rpcMessage.setData(tmpValue);
@@ -134,12 +175,30 @@ public class RpcMessageDecoder extends LengthFieldBasedFrameDecoder {
 
     }
 
-    private void checkVersion(ByteBuf in) {
-        // read the version and compare
+    private byte checkVersion(ByteBuf in) {
+        // read the version and compare, v1 peers are still accepted
         byte version = in.readByte();
-        if (version != RpcConstants.VERSION) {
+        if (version != RpcConstants.VERSION && version != RpcConstants.VERSION_2) {
             throw new RuntimeException("version isn't compatible" + version);
         }
+        return version;
+    }
+
+    private static Map<String, String> readAttachments(ByteBuf in, int length) {
+        if (length == 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> attachments = new HashMap<>();
+        int end = in.readerIndex() + length;
+        while (in.readerIndex() < end) {
+            String key = in.readCharSequence(in.readUnsignedByte(), RpcConstants.DEFAULT_CHARSET).toString();
+            String value = in.readCharSequence(in.readUnsignedShort(), RpcConstants.DEFAULT_CHARSET).toString();
+            attachments.put(key, value);
+        }
+        if (in.readerIndex() != end) {
+            throw new IllegalArgumentException("attachments overrun their length " + length);
+        }
+        return attachments;
     }
 
     private void checkMagicNumber(ByteBuf in) {
@@ -3,16 +3,22 @@ package github.javaguide.remoting.transport.netty.codec;
 
 import github.javaguide.compress.Compress;
 import github.javaguide.enums.CompressTypeEnum;
+import github.javaguide.enums.RpcResponseCodeEnum;
 import github.javaguide.enums.SerializationTypeEnum;
 import github.javaguide.extension.ExtensionLoader;
+import github.javaguide.metrics.RpcMetrics;
+import github.javaguide.metrics.TransportMetrics;
 import github.javaguide.remoting.constants.RpcConstants;
 import github.javaguide.remoting.dto.RpcMessage;
+import github.javaguide.remoting.dto.RpcResponse;
 import github.javaguide.serialize.Serializer;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToByteEncoder;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -34,6 +40,17 @@ import java.util.concurrent.atomic.AtomicInteger;
  * 1B compress（压缩类型） 1B codec（序列化类型）    4B  requestId（请求的Id）
  * body（object类型数据）
  * </pre>
+ * <p>
+ * v2（version = 2）在 v1 的头部之后、body 之前多了 flags 和附件，附件不用反序列化 body 就能读到，服务端可以据此提前做决定
+ * <pre>
+ *   +----------- v1 header, version = 2 -----------+-------+--------------------+---------------------+------+
+ *   |                       16B                    | flags | attachments length |     attachments     | body |
+ *   +----------------------------------------------+-------+--------------------+---------------------+------+
+ * 1B flags: 0x01 oneway, 0x02 compressed (body is compressed with the compress type), 0x04 heartbeat, 0x08 error
+ * 2B attachments length, then per entry: 1B key length + UTF-8 key + 2B value length + UTF-8 value
+ * </pre>
+ * v2 bodies shorter than {@link RpcConstants#COMPRESS_MIN_LENGTH} are not compressed. The full length still
+ * sits at offset 5, so one {@link RpcMessageDecoder} frames both versions.
  *
  * @author WangTao
  * @createTime on 2020/10/2
@@ -43,50 +60,129 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Slf4j
 public class RpcMessageEncoder extends MessageToByteEncoder<RpcMessage> {
     private static final AtomicInteger ATOMIC_INTEGER = new AtomicInteger(0);
+    private final TransportMetrics transportMetrics = RpcMetrics.getInstance().getTransportMetrics();
 
     @Override
     protected void encode(ChannelHandlerContext ctx, RpcMessage rpcMessage, ByteBuf out) {
+        int startIndex = out.writerIndex();
         try {
+            boolean v2 = rpcMessage.getVersion() == RpcConstants.VERSION_2;
             out.writeBytes(RpcConstants.MAGIC_NUMBER);
-            out.writeByte(RpcConstants.VERSION);
+            out.writeByte(v2 ? RpcConstants.VERSION_2 : RpcConstants.VERSION);
             // leave a place to write the value of full length
             out.writerIndex(out.writerIndex() + 4);
             byte messageType = rpcMessage.getMessageType();
             out.writeByte(messageType);
             out.writeByte(rpcMessage.getCodec());
+            int compressIndex = out.writerIndex();
             out.writeByte(CompressTypeEnum.GZIP.getCode());
             out.writeInt(ATOMIC_INTEGER.getAndIncrement());
+            int flagsIndex = out.writerIndex();
+            if (v2) {
+                // flags are known once the body is built
+                out.writeByte(0);
+                writeAttachments(rpcMessage.getAttachments(), out);
+            }
+            int flags = rpcMessage.getFlags();
             // build full length
             byte[] bodyBytes = null;
-            int fullLength = RpcConstants.HEAD_LENGTH;
-            // if messageType is not heartbeat message,fullLength = head length + body length
-            if (messageType != RpcConstants.HEARTBEAT_REQUEST_TYPE
-                    && messageType != RpcConstants.HEARTBEAT_RESPONSE_TYPE) {
+            int uncompressedLength = 0;
+            boolean heartbeat = messageType == RpcConstants.HEARTBEAT_REQUEST_TYPE
+                    || messageType == RpcConstants.HEARTBEAT_RESPONSE_TYPE;
+            // if messageType is not heartbeat message,fullLength = head length + body length. Stream credits have no body
+            if (!heartbeat && rpcMessage.getData() != null) {
                 // serialize the object
                 String codecName = SerializationTypeEnum.getName(rpcMessage.getCodec());
                 log.info("codec name: [{}] ", codecName);
                 Serializer serializer = ExtensionLoader.getExtensionLoader(Serializer.class)
                         .getExtension(codecName);
                 bodyBytes = serializer.serialize(rpcMessage.getData());
-                // compress the bytes
-                String compressName = CompressTypeEnum.getName(rpcMessage.getCompress());
-                Compress compress = ExtensionLoader.getExtensionLoader(Compress.class)
-                        .getExtension(compressName);
-                bodyBytes = compress.compress(bodyBytes);
-                fullLength += bodyBytes.length;
-            }
-
-            if (bodyBytes != null) {
+                uncompressedLength = bodyBytes.length;
+                // v1 always compresses, v2 says whether it did in the flags
+                if (!v2 || bodyBytes.length >= RpcConstants.COMPRESS_MIN_LENGTH) {
+                    // compress the bytes
+                    String compressName = CompressTypeEnum.getName(rpcMessage.getCompress());
+                    Compress compress = ExtensionLoader.getExtensionLoader(Compress.class)
+                            .getExtension(compressName);
+                    bodyBytes = compress.compress(bodyBytes);
+                    flags |= RpcConstants.FLAG_COMPRESSED;
+                    out.setByte(compressIndex, rpcMessage.getCompress());
+                }
+                if (rpcMessage.getData() instanceof RpcResponse
+                        && !Integer.valueOf(RpcResponseCodeEnum.SUCCESS.getCode()).equals(((RpcResponse<?>) rpcMessage.getData()).getCode())) {
+                    flags |= RpcConstants.FLAG_ERROR;
+                }
                 out.writeBytes(bodyBytes);
+            } else if (heartbeat) {
+                flags |= RpcConstants.FLAG_HEARTBEAT;
+            }
+            if (v2) {
+                out.setByte(flagsIndex, flags);
             }
-            int writeIndex = out.writerIndex();
-            out.writerIndex(writeIndex - fullLength + RpcConstants.MAGIC_NUMBER.length + 1);
-            out.writeInt(fullLength);
-            out.writerIndex(writeIndex);
+            int fullLength = out.writerIndex() - startIndex;
+            out.setInt(startIndex + RpcConstants.MAGIC_NUMBER.length + 1, fullLength);
+            transportMetrics.recordEncode(fullLength, uncompressedLength, bodyBytes == null ? 0 : bodyBytes.length);
         } catch (Exception e) {
             log.error("Encode request error!", e);
+            // never leave half a frame on the wire, the next frame could not be decoded
+            out.writerIndex(startIndex);
+            // fail the write promise, otherwise the caller waits for a response to a request that was never sent
+            throw new EncoderException(e);
+        }
+
+    }
+
+    /**
+     * 检查附件能不能放进 v2 的帧头，发送之前调用，不合格的请求不用等到编码的时候才失败
+     *
+     * @throws IllegalArgumentException if a key is longer than 255 bytes or the attachments are longer than
+     *                                  {@link RpcConstants#MAX_ATTACHMENTS_LENGTH} bytes once encoded
+     */
+    public static void checkAttachments(Map<String, String> attachments) {
+        if (attachments == null || attachments.isEmpty()) {
+            return;
+        }
+        int length = 0;
+        for (Map.Entry<String, String> entry : attachments.entrySet()) {
+            int keyLength = entry.getKey().getBytes(RpcConstants.DEFAULT_CHARSET).length;
+            if (keyLength > 0xFF) {
+                throw new IllegalArgumentException("attachment [" + entry.getKey() + "] is too long");
+            }
+            length += 1 + keyLength + 2;
+            if (entry.getValue() != null) {
+                length += entry.getValue().getBytes(RpcConstants.DEFAULT_CHARSET).length;
+            }
+        }
+        if (length > RpcConstants.MAX_ATTACHMENTS_LENGTH) {
+            throw new IllegalArgumentException("attachments are longer than " + RpcConstants.MAX_ATTACHMENTS_LENGTH + " bytes");
         }
+    }
 
+    /**
+     * 2B total length, then per entry 1B key length + UTF-8 key + 2B value length + UTF-8 value
+     */
+    private static void writeAttachments(Map<String, String> attachments, ByteBuf out) {
+        int lengthIndex = out.writerIndex();
+        out.writeShort(0);
+        if (attachments == null || attachments.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, String> entry : attachments.entrySet()) {
+            byte[] key = entry.getKey().getBytes(RpcConstants.DEFAULT_CHARSET);
+            byte[] value = entry.getValue() == null ? new byte[0] : entry.getValue().getBytes(RpcConstants.DEFAULT_CHARSET);
+            if (key.length > 0xFF || value.length > RpcConstants.MAX_ATTACHMENTS_LENGTH) {
+                throw new IllegalArgumentException("attachment [" + entry.getKey() + "] is too long");
+            }
+            out.writeByte(key.length);
+            out.writeBytes(key);
+            out.writeShort(value.length);
+            out.writeBytes(value);
+        }
+        int length = out.writerIndex() - lengthIndex - 2;
+        if (length > RpcConstants.MAX_ATTACHMENTS_LENGTH) {
+            throw new IllegalArgumentException("attachments are longer than " + RpcConstants.MAX_ATTACHMENTS_LENGTH + " bytes");
+        }
+        out.setShort(lengthIndex, length);
     }
 
 
@@ -0,0 +1,43 @@
+package github.javaguide.remoting.transport.netty.server;
+
+import github.javaguide.remoting.constants.RpcConstants;
+import github.javaguide.remoting.dto.RpcMessage;
+import github.javaguide.remoting.dto.RpcRequest;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * 把一个批量请求拆成单个的请求往后传，限流、并发限制和执行都和单独发过来的请求一样，响应由 {@link BatchResponseCollector} 合成一帧
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 23:50:00
+ */
+@ChannelHandler.Sharable
+public class BatchRequestHandler extends ChannelInboundHandlerAdapter {
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof RpcMessage) || ((RpcMessage) msg).getMessageType() != RpcConstants.BATCH_REQUEST_TYPE) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        RpcMessage batch = (RpcMessage) msg;
+        RpcRequest[] rpcRequests = (RpcRequest[]) batch.getData();
+        if (rpcRequests == null || rpcRequests.length == 0) {
+            return;
+        }
+        BatchResponseCollector collector = new BatchResponseCollector(ctx.channel(), batch.getVersion(), rpcRequests.length);
+        for (RpcRequest rpcRequest : rpcRequests) {
+            ctx.fireChannelRead(RpcMessage.builder()
+                    .version(batch.getVersion())
+                    .codec(batch.getCodec())
+                    .compress(batch.getCompress())
+                    .messageType(RpcConstants.REQUEST_TYPE)
+                    .receivedNanos(batch.getReceivedNanos())
+                    .data(rpcRequest)
+                    .batchResponseCollector(collector)
+                    .build());
+        }
+    }
+}
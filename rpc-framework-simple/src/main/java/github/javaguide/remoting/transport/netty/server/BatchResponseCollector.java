@@ -0,0 +1,76 @@
+package github.javaguide.remoting.transport.netty.server;
+
+import github.javaguide.enums.CompressTypeEnum;
+import github.javaguide.enums.SerializationTypeEnum;
+import github.javaguide.remoting.constants.RpcConstants;
+import github.javaguide.remoting.dto.RpcMessage;
+import github.javaguide.remoting.dto.RpcResponse;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量请求拆开之后，各个请求的响应先攒在这里，每个请求都有了结果（执行完、被拒绝或者被丢弃）再用一帧写回去
+ * <p>
+ * Requests are completed from the IO thread (rejections) and the business thread, hence the lock-free queue.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 23:50:00
+ */
+public final class BatchResponseCollector {
+
+    private final Channel channel;
+    private final byte version;
+    private final Queue<RpcResponse<?>> responses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger remaining;
+
+    BatchResponseCollector(Channel channel, byte version, int size) {
+        this.channel = channel;
+        this.version = version;
+        this.remaining = new AtomicInteger(size);
+    }
+
+    /**
+     * @param rpcResponse null if the request gets no response, e.g. its caller has given up
+     */
+    private void complete(RpcResponse<?> rpcResponse) {
+        if (rpcResponse != null) {
+            responses.add(rpcResponse);
+        }
+        if (remaining.decrementAndGet() == 0 && !responses.isEmpty()) {
+            RpcMessage rpcMessage = new RpcMessage();
+            rpcMessage.setVersion(version);
+            rpcMessage.setCodec(SerializationTypeEnum.HESSIAN.getCode());
+            rpcMessage.setCompress(CompressTypeEnum.GZIP.getCode());
+            rpcMessage.setMessageType(RpcConstants.BATCH_RESPONSE_TYPE);
+            rpcMessage.setData(responses.toArray(new RpcResponse<?>[0]));
+            channel.writeAndFlush(rpcMessage).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+        }
+    }
+
+    /**
+     * 写回一个请求的响应：普通请求直接写，批量请求里的交给它所在的批
+     */
+    static void respond(ChannelHandlerContext ctx, RpcMessage request, RpcMessage response) {
+        BatchResponseCollector collector = request.getBatchResponseCollector();
+        if (collector == null) {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+        } else {
+            collector.complete((RpcResponse<?>) response.getData());
+        }
+    }
+
+    /**
+     * a request that will not be answered, its batch must not wait for it
+     */
+    static void noResponse(RpcMessage request) {
+        BatchResponseCollector collector = request.getBatchResponseCollector();
+        if (collector != null) {
+            collector.complete(null);
+        }
+    }
+}
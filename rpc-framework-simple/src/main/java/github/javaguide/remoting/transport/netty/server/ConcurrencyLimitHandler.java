@@ -0,0 +1,61 @@
+package github.javaguide.remoting.transport.netty.server;
+
+import github.javaguide.enums.CompressTypeEnum;
+import github.javaguide.enums.RpcResponseCodeEnum;
+import github.javaguide.enums.SerializationTypeEnum;
+import github.javaguide.limiter.ConcurrencyLimiter;
+import github.javaguide.remoting.constants.RpcConstants;
+import github.javaguide.remoting.dto.RpcMessage;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 在 IO 线程上做并发限制：超过服务当前并发上限的请求直接回复 OVERLOADED，不进业务线程池排队，
+ * 客户端（failover）可以马上换一台机器重试；放行的请求由 {@link NettyRpcServerHandler} 执行完之后释放
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 21:40:00
+ */
+@Slf4j
+@ChannelHandler.Sharable
+public class ConcurrencyLimitHandler extends ChannelInboundHandlerAdapter {
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof RpcMessage && ((RpcMessage) msg).getMessageType() == RpcConstants.REQUEST_TYPE) {
+            RpcMessage rpcMessage = (RpcMessage) msg;
+            RpcRequest rpcRequest = (RpcRequest) rpcMessage.getData();
+            ConcurrencyLimiter concurrencyLimiter = ConcurrencyLimiter.of(rpcRequest.getRpcServiceName());
+            if (!concurrencyLimiter.tryAcquire()) {
+                log.debug("reject [{}], [{}] requests of [{}] in flight", rpcRequest.getRequestId(),
+                        concurrencyLimiter.getLimit(), rpcRequest.getRpcServiceName());
+                reject(ctx, rpcMessage, RpcResponseCodeEnum.OVERLOADED);
+                return;
+            }
+            rpcMessage.setConcurrencyLimiter(concurrencyLimiter);
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    /**
+     * answer a request that will not be executed, right from the IO thread. Oneway requests are dropped silently
+     */
+    static void reject(ChannelHandlerContext ctx, RpcMessage request, RpcResponseCodeEnum rpcResponseCodeEnum) {
+        if ((request.getFlags() & RpcConstants.FLAG_ONEWAY) != 0) {
+            BatchResponseCollector.noResponse(request);
+            return;
+        }
+        RpcRequest rpcRequest = (RpcRequest) request.getData();
+        RpcMessage response = new RpcMessage();
+        response.setVersion(request.getVersion());
+        response.setCodec(SerializationTypeEnum.HESSIAN.getCode());
+        response.setCompress(CompressTypeEnum.GZIP.getCode());
+        response.setMessageType(RpcConstants.RESPONSE_TYPE);
+        response.setData(RpcResponse.fail(rpcResponseCodeEnum, rpcRequest.getRequestId()));
+        BatchResponseCollector.respond(ctx, request, response);
+    }
+}
@@ -1,7 +1,9 @@
 package github.javaguide.remoting.transport.netty.server;
 
 import github.javaguide.config.CustomShutdownHook;
+import github.javaguide.config.RpcConfig;
 import github.javaguide.config.RpcServiceConfig;
+import github.javaguide.enums.RpcConfigEnum;
 import github.javaguide.factory.SingletonFactory;
 import github.javaguide.provider.ServiceProvider;
 import github.javaguide.provider.impl.ZkServiceProviderImpl;
@@ -27,6 +29,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -52,6 +55,10 @@ public class NettyRpcServer {
     public void start() {
         CustomShutdownHook.getCustomShutdownHook().clearAll();
         String host = InetAddress.getLocalHost().getHostAddress();
+        // 自适应并发限制，默认打开，超过上限的请求在 IO 线程上直接拒绝
+        boolean adaptiveLimit = RpcConfig.getInstance().getBoolean(RpcConfigEnum.PROVIDER_ADAPTIVE_LIMIT, true);
+        ConcurrencyLimitHandler concurrencyLimitHandler = new ConcurrencyLimitHandler();
+        BatchRequestHandler batchRequestHandler = new BatchRequestHandler();
         EventLoopGroup bossGroup = new NioEventLoopGroup(1);
         EventLoopGroup workerGroup = new NioEventLoopGroup();
         DefaultEventExecutorGroup serviceHandlerGroup = new DefaultEventExecutorGroup(
@@ -78,12 +85,20 @@ public class NettyRpcServer {
                             p.addLast(new IdleStateHandler(30, 0, 0, TimeUnit.SECONDS));
                             p.addLast(new RpcMessageEncoder());
                             p.addLast(new RpcMessageDecoder());
+                            p.addLast(batchRequestHandler);
+                            p.addLast(new RateLimitHandler());
+                            if (adaptiveLimit) {
+                                p.addLast(concurrencyLimitHandler);
+                            }
+                            p.addLast(new StreamHandler());
                             p.addLast(serviceHandlerGroup, new NettyRpcServerHandler());
                         }
                     });
 
             // 绑定端口，同步等待绑定成功
             ChannelFuture f = b.bind(host, PORT).sync();
+            // 端口已经在监听了，这时候再把服务注册到注册中心，客户端不会连到一个还没打开的端口
+            serviceProvider.exportServices(new InetSocketAddress(host, PORT));
             // 等待服务端监听端口关闭
             f.channel().closeFuture().sync();
         } catch (InterruptedException e) {
@@ -4,11 +4,19 @@ import github.javaguide.enums.CompressTypeEnum;
 import github.javaguide.enums.RpcResponseCodeEnum;
 import github.javaguide.enums.SerializationTypeEnum;
 import github.javaguide.factory.SingletonFactory;
+import github.javaguide.limiter.ConcurrencyLimiter;
+import github.javaguide.metrics.MethodMetrics;
+import github.javaguide.metrics.RpcMetrics;
+import github.javaguide.remoting.RpcContext;
 import github.javaguide.remoting.constants.RpcConstants;
 import github.javaguide.remoting.dto.RpcMessage;
 import github.javaguide.remoting.dto.RpcRequest;
 import github.javaguide.remoting.dto.RpcResponse;
 import github.javaguide.remoting.handler.RpcRequestHandler;
+import github.javaguide.remoting.transport.netty.stream.StreamFrames;
+import github.javaguide.remoting.transport.netty.stream.StreamReceiver;
+import github.javaguide.remoting.transport.netty.stream.StreamSender;
+import github.javaguide.utils.concurrent.threadpool.ThreadPoolFactoryUtil;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -18,6 +26,15 @@ import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.util.ReferenceCountUtil;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Customize the ChannelHandler of the server to process the data sent by the client.
  * <p>
@@ -31,6 +48,10 @@ import lombok.extern.slf4j.Slf4j;
 public class NettyRpcServerHandler extends ChannelInboundHandlerAdapter {
 
     private final RpcRequestHandler rpcRequestHandler;
+    /**
+     * results being streamed on this connection, only touched on the executor of this handler
+     */
+    private final Map<String, StreamSender> streamSenders = new HashMap<>();
 
     public NettyRpcServerHandler() {
         this.rpcRequestHandler = SingletonFactory.getInstance(RpcRequestHandler.class);
@@ -41,29 +62,29 @@ public class NettyRpcServerHandler extends ChannelInboundHandlerAdapter {
         try {
             if (msg instanceof RpcMessage) {
                 log.info("server receive msg: [{}] ", msg);
-                byte messageType = ((RpcMessage) msg).getMessageType();
-                RpcMessage rpcMessage = new RpcMessage();
-                rpcMessage.setCodec(SerializationTypeEnum.HESSIAN.getCode());
-                rpcMessage.setCompress(CompressTypeEnum.GZIP.getCode());
+                RpcMessage request = (RpcMessage) msg;
+                byte messageType = request.getMessageType();
+                if (messageType == RpcConstants.STREAM_CREDIT_TYPE) {
+                    StreamSender streamSender = streamSenders.get(StreamFrames.getStreamId(request));
+                    if (streamSender != null) {
+                        streamSender.addCredit(StreamFrames.getCredit(request));
+                    }
+                    return;
+                }
                 if (messageType == RpcConstants.HEARTBEAT_REQUEST_TYPE) {
+                    RpcMessage rpcMessage = newResponseMessage(request);
                     rpcMessage.setMessageType(RpcConstants.HEARTBEAT_RESPONSE_TYPE);
                     rpcMessage.setData(RpcConstants.PONG);
-                } else {
-                    RpcRequest rpcRequest = (RpcRequest) ((RpcMessage) msg).getData();
-                    // Execute the target method (the method the client needs to execute) and return the method result
-                    Object result = rpcRequestHandler.handle(rpcRequest);
-                    log.info(String.format("server get result: %s", result.toString()));
-                    rpcMessage.setMessageType(RpcConstants.RESPONSE_TYPE);
-                    if (ctx.channel().isActive() && ctx.channel().isWritable()) {
-                        RpcResponse<Object> rpcResponse = RpcResponse.success(result, rpcRequest.getRequestId());
-                        rpcMessage.setData(rpcResponse);
-                    } else {
-                        RpcResponse<Object> rpcResponse = RpcResponse.fail(RpcResponseCodeEnum.FAIL);
-                        rpcMessage.setData(rpcResponse);
-                        log.error("not writable now, message dropped");
-                    }
+                    BatchResponseCollector.respond(ctx, request, rpcMessage);
+                    return;
                 }
-                ctx.writeAndFlush(rpcMessage).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+                RpcRequest rpcRequest = (RpcRequest) request.getData();
+                if (hasStreamParameter(rpcRequest)) {
+                    // 读流式参数的方法会一直阻塞到客户端发完，不能占着这个连接唯一的业务线程
+                    handleOnStreamExecutor(ctx, request, rpcRequest);
+                    return;
+                }
+                handleRequest(ctx, request, rpcRequest);
             }
         } finally {
             //Ensure that ByteBuf is released, otherwise there may be memory leaks
@@ -71,6 +92,193 @@ public class NettyRpcServerHandler extends ChannelInboundHandlerAdapter {
         }
     }
 
+    private void handleOnStreamExecutor(ChannelHandlerContext ctx, RpcMessage request, RpcRequest rpcRequest) {
+        try {
+            // the methods reading a streamed parameter get their own pool, shared by all connections
+            ExecutorService streamExecutor = ThreadPoolFactoryUtil.createCustomThreadPoolIfAbsent("stream-handler");
+            streamExecutor.execute(() -> {
+                try {
+                    handleRequest(ctx, request, rpcRequest);
+                } catch (Throwable e) {
+                    exceptionCaught(ctx, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("too many streamed calls, reject [{}]", rpcRequest.getRequestId());
+            closeStreamParameters(rpcRequest);
+            ConcurrencyLimiter concurrencyLimiter = request.getConcurrencyLimiter();
+            if (concurrencyLimiter != null) {
+                concurrencyLimiter.release(System.nanoTime() - request.getReceivedNanos(), false);
+            }
+            ConcurrencyLimitHandler.reject(ctx, request, RpcResponseCodeEnum.OVERLOADED);
+        }
+    }
+
+    /**
+     * runs on the executor of this handler, or on the stream executor for a method reading a streamed parameter
+     */
+    private void handleRequest(ChannelHandlerContext ctx, RpcMessage request, RpcRequest rpcRequest) {
+        MethodMetrics methodMetrics = RpcMetrics.getInstance().serverMethod(rpcRequest.getRpcServiceName(), rpcRequest.getMethodName());
+        long receivedNanos = request.getReceivedNanos();
+        ConcurrencyLimiter concurrencyLimiter = request.getConcurrencyLimiter();
+        // time between the decoder (io thread) and now (business thread)
+        methodMetrics.recordQueueWait(System.nanoTime() - receivedNanos);
+        // 调用方剩余的超时时间从收到请求时开始算，排队期间已经超时的请求不再执行，调用方早就不等了
+        Map<String, String> attachments = request.getAttachments();
+        long timeout = getTimeout(rpcRequest, attachments);
+        long deadlineNanos = timeout > 0 ? receivedNanos + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+        if (isExpired(deadlineNanos)) {
+            log.debug("drop [{}] of [{}], its caller gave up while it was queued", rpcRequest.getRequestId(), rpcRequest.getRpcServiceName());
+            closeStreamParameters(rpcRequest);
+            if (concurrencyLimiter != null) {
+                // the queueing is exactly what the limiter should see
+                concurrencyLimiter.release(System.nanoTime() - receivedNanos, true);
+            }
+            BatchResponseCollector.noResponse(request);
+            return;
+        }
+        long begin = methodMetrics.begin();
+        boolean success = false;
+        Object result;
+        RpcContext rpcContext = RpcContext.getContext();
+        rpcContext.setDeadlineNanos(deadlineNanos);
+        if (attachments != null && !attachments.isEmpty()) {
+            Map<String, String> received = new HashMap<>(attachments);
+            // nested calls carry their own remaining timeout
+            received.remove(RpcConstants.TIMEOUT_KEY);
+            rpcContext.setAttachments(received);
+        }
+        try {
+            // Execute the target method (the method the client needs to execute) and return the method result
+            result = rpcRequestHandler.handle(rpcRequest);
+            success = true;
+        } finally {
+            closeStreamParameters(rpcRequest);
+            RpcContext.removeContext();
+            methodMetrics.end(begin, success);
+            if (concurrencyLimiter != null) {
+                concurrencyLimiter.release(System.nanoTime() - receivedNanos, success);
+            }
+        }
+        if ((request.getFlags() & RpcConstants.FLAG_ONEWAY) != 0) {
+            // 单向调用，调用方不等响应
+            BatchResponseCollector.noResponse(request);
+            return;
+        }
+        if (isExpired(deadlineNanos)) {
+            log.debug("skip the response of [{}], its caller has given up", rpcRequest.getRequestId());
+            BatchResponseCollector.noResponse(request);
+            return;
+        }
+        long credit = StreamFrames.getCredit(request);
+        if (result instanceof Iterator && credit > 0) {
+            // 流式返回：按客户端给的额度一帧一帧地发，发完再回复一个普通的响应。streamSenders 只在这个 handler 的线程上访问
+            Iterator<?> items = (Iterator<?>) result;
+            if (ctx.executor().inEventLoop()) {
+                startStream(ctx, request, rpcRequest.getRequestId(), items, credit);
+            } else {
+                ctx.executor().execute(() -> startStream(ctx, request, rpcRequest.getRequestId(), items, credit));
+            }
+            return;
+        }
+        log.info(String.format("server get result: %s", result));
+        RpcMessage rpcMessage = newResponseMessage(request);
+        rpcMessage.setMessageType(RpcConstants.RESPONSE_TYPE);
+        if (ctx.channel().isActive() && ctx.channel().isWritable()) {
+            RpcResponse<Object> rpcResponse = RpcResponse.success(result, rpcRequest.getRequestId());
+            rpcMessage.setData(rpcResponse);
+        } else {
+            RpcResponse<Object> rpcResponse = RpcResponse.fail(RpcResponseCodeEnum.FAIL, rpcRequest.getRequestId());
+            rpcMessage.setData(rpcResponse);
+            log.error("not writable now, message dropped");
+        }
+        BatchResponseCollector.respond(ctx, request, rpcMessage);
+    }
+
+    /**
+     * answer in the version the request came in
+     */
+    private static RpcMessage newResponseMessage(RpcMessage request) {
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setVersion(request.getVersion());
+        rpcMessage.setCodec(SerializationTypeEnum.HESSIAN.getCode());
+        rpcMessage.setCompress(CompressTypeEnum.GZIP.getCode());
+        return rpcMessage;
+    }
+
+    private void startStream(ChannelHandlerContext ctx, RpcMessage request, String requestId, Iterator<?> items, long credit) {
+        StreamSender streamSender = new StreamSender(ctx.channel(), requestId, credit);
+        streamSenders.put(requestId, streamSender);
+        streamSender.start(items, ctx.executor(), cause -> {
+            streamSenders.remove(requestId);
+            if (cause instanceof CancellationException) {
+                log.debug("stream [{}] cancelled by its receiver", requestId);
+                return;
+            }
+            if (cause != null) {
+                log.error("stream [{}] failed", requestId, cause);
+            }
+            RpcMessage response = newResponseMessage(request);
+            response.setMessageType(RpcConstants.RESPONSE_TYPE);
+            response.setData(cause == null ? RpcResponse.success(null, requestId) : RpcResponse.fail(RpcResponseCodeEnum.FAIL, requestId));
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+        });
+    }
+
+    private static boolean hasStreamParameter(RpcRequest rpcRequest) {
+        if (rpcRequest.getParameters() == null) {
+            return false;
+        }
+        for (Object parameter : rpcRequest.getParameters()) {
+            if (parameter instanceof StreamReceiver) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * items the method did not read are not wanted, the client stops sending them and {@link StreamHandler}
+     * forgets the stream
+     */
+    private static void closeStreamParameters(RpcRequest rpcRequest) {
+        if (rpcRequest.getParameters() == null) {
+            return;
+        }
+        for (Object parameter : rpcRequest.getParameters()) {
+            if (parameter instanceof StreamReceiver) {
+                ((StreamReceiver<?>) parameter).close();
+            }
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        for (StreamSender streamSender : new ArrayList<>(streamSenders.values())) {
+            streamSender.cancel();
+        }
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * v2 callers put the remaining timeout in the attachments, v1 callers in the request body
+     */
+    private static long getTimeout(RpcRequest rpcRequest, Map<String, String> attachments) {
+        String timeout = attachments == null ? null : attachments.get(RpcConstants.TIMEOUT_KEY);
+        if (timeout != null) {
+            try {
+                return Long.parseLong(timeout);
+            } catch (NumberFormatException e) {
+                log.warn("ignore invalid timeout attachment [{}]", timeout);
+            }
+        }
+        return rpcRequest.getTimeout();
+    }
+
+    private static boolean isExpired(long deadlineNanos) {
+        return deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0;
+    }
+
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof IdleStateEvent) {
@@ -0,0 +1,50 @@
+package github.javaguide.remoting.transport.netty.server;
+
+import github.javaguide.enums.RpcResponseCodeEnum;
+import github.javaguide.limiter.ServiceRateLimiter;
+import github.javaguide.remoting.constants.RpcConstants;
+import github.javaguide.remoting.dto.RpcMessage;
+import github.javaguide.remoting.dto.RpcRequest;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * 在 IO 线程上按服务、方法、调用方限流，超过限制的请求直接回复 RATE_LIMITED，不占用业务线程
+ * One instance per connection, the caller is the IP address of the connection
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 22:10:00
+ */
+@Slf4j
+public class RateLimitHandler extends ChannelInboundHandlerAdapter {
+
+    private String caller;
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof RpcMessage && ((RpcMessage) msg).getMessageType() == RpcConstants.REQUEST_TYPE) {
+            RpcRequest rpcRequest = (RpcRequest) ((RpcMessage) msg).getData();
+            ServiceRateLimiter rateLimiter = ServiceRateLimiter.get(rpcRequest.getRpcServiceName());
+            if (rateLimiter != null && !rateLimiter.tryAcquire(rpcRequest.getMethodName(), getCaller(ctx))) {
+                log.debug("reject [{}] of [{}] from [{}], over the rate limit", rpcRequest.getRequestId(),
+                        rpcRequest.getRpcServiceName(), caller);
+                ConcurrencyLimitHandler.reject(ctx, (RpcMessage) msg, RpcResponseCodeEnum.RATE_LIMITED);
+                return;
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private String getCaller(ChannelHandlerContext ctx) {
+        if (caller == null) {
+            SocketAddress remoteAddress = ctx.channel().remoteAddress();
+            caller = remoteAddress instanceof InetSocketAddress
+                    ? ((InetSocketAddress) remoteAddress).getAddress().getHostAddress() : String.valueOf(remoteAddress);
+        }
+        return caller;
+    }
+}
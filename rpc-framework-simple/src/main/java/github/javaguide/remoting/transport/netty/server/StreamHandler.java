@@ -0,0 +1,78 @@
+package github.javaguide.remoting.transport.netty.server;
+
+import github.javaguide.config.RpcConfig;
+import github.javaguide.enums.RpcConfigEnum;
+import github.javaguide.enums.RpcErrorMessageEnum;
+import github.javaguide.exception.RpcException;
+import github.javaguide.remoting.constants.RpcConstants;
+import github.javaguide.remoting.dto.RpcMessage;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.transport.netty.stream.StreamFrames;
+import github.javaguide.remoting.transport.netty.stream.StreamReceiver;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 在 IO 线程上接收客户端流式发送的参数：带着 stream.parameter 的请求把对应参数换成一个 {@link StreamReceiver}，
+ * 之后的 items 帧直接放进它的队列。方法在单独的流式线程池里执行，从参数里一个个取，取的时候才给客户端额度
+ * <p>
+ * It sits behind the rate and concurrency limiters, a rejected request never gets a receiver nor any credit.
+ * Receivers are forgotten when their end frame arrives or when the server closes them (the method returned or
+ * the request was dropped). One instance per channel, the map is only touched on the IO thread.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月20日 00:30:00
+ */
+@Slf4j
+public class StreamHandler extends ChannelInboundHandlerAdapter {
+
+    private static final int DEFAULT_STREAM_WINDOW = 256;
+
+    private final int window = RpcConfig.getInstance().getInt(RpcConfigEnum.STREAM_WINDOW, DEFAULT_STREAM_WINDOW);
+    private final Map<String, StreamReceiver<Object>> receivers = new HashMap<>();
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof RpcMessage) {
+            RpcMessage rpcMessage = (RpcMessage) msg;
+            if (rpcMessage.getMessageType() == RpcConstants.STREAM_ITEMS_TYPE) {
+                String streamId = StreamFrames.getStreamId(rpcMessage);
+                StreamReceiver<Object> receiver = receivers.get(streamId);
+                if (receiver != null) {
+                    receiver.onItems((Object[]) rpcMessage.getData());
+                    if (StreamFrames.isEnd(rpcMessage)) {
+                        receivers.remove(streamId);
+                        receiver.onEnd(StreamFrames.isCancelled(rpcMessage)
+                                ? new RpcException(RpcErrorMessageEnum.STREAM_CANCELLED, streamId) : null);
+                    }
+                }
+                return;
+            }
+            if (rpcMessage.getMessageType() == RpcConstants.REQUEST_TYPE && rpcMessage.getAttachments() != null) {
+                String index = rpcMessage.getAttachments().get(RpcConstants.STREAM_PARAMETER_KEY);
+                if (index != null) {
+                    RpcRequest rpcRequest = (RpcRequest) rpcMessage.getData();
+                    StreamReceiver<Object> receiver = new StreamReceiver<>(ctx.channel(), rpcRequest.getRequestId(), window);
+                    rpcRequest.getParameters()[Integer.parseInt(index)] = receiver;
+                    receivers.put(rpcRequest.getRequestId(), receiver);
+                    receiver.setCloseListener(() -> ctx.executor().execute(() -> receivers.remove(rpcRequest.getRequestId(), receiver)));
+                    receiver.grant(receiver.getWindow());
+                }
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        for (Map.Entry<String, StreamReceiver<Object>> entry : receivers.entrySet()) {
+            entry.getValue().onEnd(new RpcException(RpcErrorMessageEnum.STREAM_BROKEN, entry.getKey()));
+        }
+        receivers.clear();
+        super.channelInactive(ctx);
+    }
+}
@@ -0,0 +1,90 @@
+package github.javaguide.remoting.transport.netty.stream;
+
+import github.javaguide.enums.CompressTypeEnum;
+import github.javaguide.enums.SerializationTypeEnum;
+import github.javaguide.remoting.constants.RpcConstants;
+import github.javaguide.remoting.dto.RpcMessage;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 流式调用用到的两种帧：items 帧带着若干个元素，credit 帧告诉发送方还可以再发多少个。两种帧都用附件里的 requestId 找到所属的调用，
+ * 不用反序列化 body
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月20日 00:30:00
+ */
+public final class StreamFrames {
+
+    private static final String END_COMPLETED = "completed";
+    private static final String END_CANCELLED = "cancelled";
+
+    private StreamFrames() {
+    }
+
+    static RpcMessage items(String streamId, Object[] items) {
+        return items(streamId, items, null);
+    }
+
+    /**
+     * the last frame of a stream, without items
+     *
+     * @param cancelled the sender gave up before sending all items
+     */
+    static RpcMessage end(String streamId, boolean cancelled) {
+        return items(streamId, new Object[0], cancelled ? END_CANCELLED : END_COMPLETED);
+    }
+
+    private static RpcMessage items(String streamId, Object[] items, String end) {
+        Map<String, String> attachments = new HashMap<>(4);
+        attachments.put(RpcConstants.STREAM_ID_KEY, streamId);
+        if (end != null) {
+            attachments.put(RpcConstants.STREAM_END_KEY, end);
+        }
+        return RpcMessage.builder().version(RpcConstants.VERSION_2)
+                .messageType(RpcConstants.STREAM_ITEMS_TYPE)
+                .codec(SerializationTypeEnum.HESSIAN.getCode())
+                .compress(CompressTypeEnum.GZIP.getCode())
+                .attachments(attachments)
+                .data(items).build();
+    }
+
+    /**
+     * @param credit more items the sender may send, negative to cancel the stream
+     */
+    static RpcMessage credit(String streamId, long credit) {
+        Map<String, String> attachments = new HashMap<>(4);
+        attachments.put(RpcConstants.STREAM_ID_KEY, streamId);
+        attachments.put(RpcConstants.STREAM_CREDIT_KEY, Long.toString(credit));
+        return RpcMessage.builder().version(RpcConstants.VERSION_2)
+                .messageType(RpcConstants.STREAM_CREDIT_TYPE)
+                .codec(SerializationTypeEnum.HESSIAN.getCode())
+                .compress(CompressTypeEnum.GZIP.getCode())
+                .attachments(attachments).build();
+    }
+
+    public static String getStreamId(RpcMessage rpcMessage) {
+        return rpcMessage.getAttachments() == null ? null : rpcMessage.getAttachments().get(RpcConstants.STREAM_ID_KEY);
+    }
+
+    public static boolean isEnd(RpcMessage rpcMessage) {
+        return rpcMessage.getAttachments() != null && rpcMessage.getAttachments().containsKey(RpcConstants.STREAM_END_KEY);
+    }
+
+    public static boolean isCancelled(RpcMessage rpcMessage) {
+        return rpcMessage.getAttachments() != null && END_CANCELLED.equals(rpcMessage.getAttachments().get(RpcConstants.STREAM_END_KEY));
+    }
+
+    /**
+     * @return the credit carried by a credit frame or a request, 0 if there is none
+     */
+    public static long getCredit(RpcMessage rpcMessage) {
+        String credit = rpcMessage.getAttachments() == null ? null : rpcMessage.getAttachments().get(RpcConstants.STREAM_CREDIT_KEY);
+        try {
+            return credit == null ? 0 : Long.parseLong(credit);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package github.javaguide.remoting.transport.netty.stream;
+
+import github.javaguide.enums.RpcErrorMessageEnum;
+import github.javaguide.exception.RpcException;
+import io.netty.channel.Channel;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接收一个流：收到的元素放进队列，调用方用 Iterator 的方式一个个取，每取走半个窗口就再给发送方同样多的额度，
+ * 所以队列里最多只有一个窗口的元素，发送方再快也不会把接收方的内存撑爆
+ * <p>
+ * Items are added from the IO thread, iterated by a single consumer thread. Closing it before the end cancels the
+ * stream on the sending side.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月20日 00:30:00
+ */
+public final class StreamReceiver<T> implements Iterator<T>, Closeable {
+
+    private static final Object END = new Object();
+    private static final Object NULL = new Object();
+    private static final long POLL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Channel channel;
+    private final String streamId;
+    private final int window;
+    private final BlockingQueue<Object> items = new LinkedBlockingQueue<>();
+    private volatile Throwable error;
+    private volatile boolean closed;
+    private volatile Runnable closeListener;
+    // consumer thread only
+    private Object next;
+    private int consumed;
+
+    /**
+     * @param window items the sender may send ahead of the consumer
+     */
+    public StreamReceiver(Channel channel, String streamId, int window) {
+        this.channel = channel;
+        this.streamId = streamId;
+        this.window = Math.max(window, 2);
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * give the sender credit for more items, the initial window for senders that were not told in the request
+     */
+    public void grant(long credit) {
+        channel.writeAndFlush(StreamFrames.credit(streamId, credit));
+    }
+
+    public void onItems(Object[] received) {
+        if (closed || received == null) {
+            return;
+        }
+        for (Object item : received) {
+            items.add(item == null ? NULL : item);
+        }
+    }
+
+    /**
+     * @param cause null if the stream ended normally
+     */
+    public void onEnd(Throwable cause) {
+        this.error = cause;
+        items.add(END);
+    }
+
+    /**
+     * @param closeListener run once when the consumer closes the stream before its end
+     */
+    public void setCloseListener(Runnable closeListener) {
+        this.closeListener = closeListener;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (next == null) {
+            next = take();
+        }
+        if (next == END) {
+            if (error != null) {
+                throw error instanceof RuntimeException ? (RuntimeException) error
+                        : new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE.getMessage(), error);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object item = next;
+        next = null;
+        if (++consumed >= window / 2) {
+            grant(consumed);
+            consumed = 0;
+        }
+        return item == NULL ? null : (T) item;
+    }
+
+    private Object take() {
+        if (closed) {
+            return END;
+        }
+        try {
+            while (true) {
+                Object item = items.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (item != null) {
+                    return item;
+                }
+                if (!channel.isActive()) {
+                    onEnd(new RpcException(RpcErrorMessageEnum.STREAM_BROKEN, streamId));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE.getMessage(), e);
+        }
+    }
+
+    /**
+     * stop consuming, the sender is told to stop as well unless the stream has ended already
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (next != END && !items.contains(END)) {
+            grant(-1);
+        }
+        items.clear();
+        next = END;
+        Runnable listener = closeListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package github.javaguide.remoting.transport.netty.stream;
+
+import github.javaguide.enums.RpcErrorMessageEnum;
+import github.javaguide.exception.RpcException;
+import io.netty.channel.Channel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * 发送一个流：只在接收方给了额度的时候才从 Iterator 里取元素，每帧最多 {@link #MAX_CHUNK} 个，取完了或者接收方取消了就停下来
+ * <p>
+ * The client streams a parameter with {@link #sendAll} on the calling thread, the server streams a result with
+ * {@link #start} on the executor of the connection, giving other requests a turn after every frame.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月20日 00:30:00
+ */
+@Slf4j
+public final class StreamSender {
+
+    static final int MAX_CHUNK = 64;
+    private static final long WAIT_MILLIS = 1000;
+
+    private final Channel channel;
+    private final String streamId;
+    // guarded by this
+    private long credit;
+    private boolean cancelled;
+    private boolean waitingForCredit;
+    // set by start, used on the executor only
+    private Iterator<?> items;
+    private Executor executor;
+    private Consumer<Throwable> completionListener;
+
+    /**
+     * @param credit items that may be sent before the receiver grants more
+     */
+    public StreamSender(Channel channel, String streamId, long credit) {
+        this.channel = channel;
+        this.streamId = streamId;
+        this.credit = Math.max(credit, 0);
+    }
+
+    /**
+     * called for every credit frame of the receiver
+     *
+     * @param more a negative value cancels the stream
+     */
+    public void addCredit(long more) {
+        boolean resume;
+        synchronized (this) {
+            if (more < 0) {
+                cancelled = true;
+            } else {
+                credit += more;
+            }
+            resume = waitingForCredit;
+            waitingForCredit = false;
+            notifyAll();
+        }
+        if (resume) {
+            executor.execute(this::pump);
+        }
+    }
+
+    /**
+     * 同步发送：在调用线程上把 items 发完，没有额度的时候等着，最后发一个 end 帧
+     *
+     * @param call stops sending once it is done, e.g. timed out or answered before reading all items
+     */
+    public void sendAll(Iterator<?> items, Future<?> call) {
+        boolean completed = false;
+        try {
+            while (items.hasNext()) {
+                int size = awaitCredit(call);
+                if (size == 0) {
+                    return;
+                }
+                channel.writeAndFlush(StreamFrames.items(streamId, take(items, size)));
+            }
+            completed = true;
+        } finally {
+            // a receiver that is still reading must not take a cut-off stream for a complete one
+            channel.writeAndFlush(StreamFrames.end(streamId, !completed));
+        }
+    }
+
+    private synchronized int awaitCredit(Future<?> call) {
+        while (credit == 0 && !cancelled && !call.isDone()) {
+            if (!channel.isActive()) {
+                throw new RpcException(RpcErrorMessageEnum.STREAM_BROKEN, streamId);
+            }
+            try {
+                wait(WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE.getMessage(), e);
+            }
+        }
+        if (cancelled || call.isDone()) {
+            return 0;
+        }
+        int size = (int) Math.min(credit, MAX_CHUNK);
+        credit -= size;
+        return size;
+    }
+
+    /**
+     * 异步发送：在 executor 上一帧一帧地发，没有额度就先停下，收到额度再继续
+     *
+     * @param completionListener called once on the executor: with null when all items have been sent, with a
+     *                           {@link CancellationException} when the receiver cancelled, with the failure otherwise
+     */
+    public void start(Iterator<?> items, Executor executor, Consumer<Throwable> completionListener) {
+        this.items = items;
+        this.executor = executor;
+        this.completionListener = completionListener;
+        pump();
+    }
+
+    private void pump() {
+        Object[] chunk;
+        try {
+            if (!items.hasNext()) {
+                complete(null);
+                return;
+            }
+            int size;
+            synchronized (this) {
+                if (cancelled || !channel.isActive()) {
+                    complete(new CancellationException(streamId));
+                    return;
+                }
+                size = (int) Math.min(credit, MAX_CHUNK);
+                if (size == 0) {
+                    waitingForCredit = true;
+                    return;
+                }
+                credit -= size;
+            }
+            chunk = take(items, size);
+        } catch (Exception e) {
+            complete(e);
+            return;
+        }
+        channel.writeAndFlush(StreamFrames.items(streamId, chunk));
+        // one frame at a time, other requests of the connection run on the same executor
+        executor.execute(this::pump);
+    }
+
+    private void complete(Throwable cause) {
+        if (items instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) items).close();
+            } catch (Exception e) {
+                log.warn("close the items of stream [{}] failed", streamId, e);
+            }
+        }
+        completionListener.accept(cause);
+    }
+
+    /**
+     * cancel a stream whose connection has gone
+     */
+    public void cancel() {
+        addCredit(-1);
+    }
+
+    private static Object[] take(Iterator<?> items, int size) {
+        List<Object> chunk = new ArrayList<>(size);
+        while (chunk.size() < size && items.hasNext()) {
+            chunk.add(items.next());
+        }
+        return chunk.toArray();
+    }
+}
@@ -1,8 +1,7 @@
 package github.javaguide.remoting.transport.socket;
 
-import github.javaguide.enums.ServiceDiscoveryEnum;
 import github.javaguide.exception.RpcException;
-import github.javaguide.extension.ExtensionLoader;
+import github.javaguide.registry.RegistryFactory;
 import github.javaguide.registry.ServiceDiscovery;
 import github.javaguide.remoting.dto.RpcRequest;
 import github.javaguide.remoting.transport.RpcRequestTransport;
@@ -29,13 +28,13 @@ public class SocketRpcClient implements RpcRequestTransport {
     private final ServiceDiscovery serviceDiscovery;
 
     public SocketRpcClient() {
-        this.serviceDiscovery = ExtensionLoader.getExtensionLoader(ServiceDiscovery.class).getExtension(ServiceDiscoveryEnum.ZK.getName());
+        this.serviceDiscovery = RegistryFactory.getServiceDiscovery();
     }
 
     @Override
     public Object sendRpcRequest(RpcRequest rpcRequest) {
         // 从ZooKeeper（或缓存中）中拿到服务列表，经过负载均衡后返回一个可用的服务器URL
-        InetSocketAddress inetSocketAddress = serviceDiscovery.lookupService(rpcRequest);
+        InetSocketAddress inetSocketAddress = serviceDiscovery.lookupService(rpcRequest).getInetSocketAddress();
         // 新建一个socket连接
         try (Socket socket = new Socket()) {
             socket.connect(inetSocketAddress);
@@ -0,0 +1,24 @@
+package github.javaguide.router;
+
+import github.javaguide.extension.SPI;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.remoting.dto.RpcRequest;
+
+import java.util.List;
+
+/**
+ * 路由，在负载均衡之前先把不合适的服务提供方过滤掉，负载均衡只在路由的结果里选
+ * Narrows the providers of a request down before the load balancer picks one of them
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 17:40:00
+ */
+@SPI
+public interface Router {
+    /**
+     * @param endpoints  all providers of the service, never empty
+     * @param rpcRequest the request being routed
+     * @return the providers the load balancer may choose from, never empty
+     */
+    List<Endpoint> route(List<Endpoint> endpoints, RpcRequest rpcRequest);
+}
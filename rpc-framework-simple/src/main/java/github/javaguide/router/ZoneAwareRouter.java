@@ -0,0 +1,135 @@
+package github.javaguide.router;
+
+import github.javaguide.config.RpcConfig;
+import github.javaguide.enums.RpcConfigEnum;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.remoting.dto.RpcRequest;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 同机房优先的路由：优先把请求发给和调用方在同一个 zone 的服务提供方，跨机房会多一跳延迟和带宽费用
+ * <p>
+ * The caller's zone is {@code rpc.consumer.zone}, falling back to {@code rpc.provider.zone}. Providers in that zone
+ * are used as long as at least {@code rpc.router.zone.minproviders} (default 1) of them still have capacity,
+ * i.e. have fewer in-flight requests than the max concurrency they published. Otherwise the request spills over to
+ * every zone. Without a local zone, or without local providers, nothing is filtered.
+ * <p>
+ * The result stays the same list object while neither the provider list nor the set of full local providers
+ * changes, the consistent hash load balancer keeps its ring as long as it sees the same list.
+ *
+ * @author shuang.kou
+ * @createTime 2026年10月19日 17:40:00
+ */
+public class ZoneAwareRouter implements Router {
+    private static final int DEFAULT_MIN_PROVIDERS = 1;
+
+    private final String zone;
+    private final int minProviders;
+    /**
+     * rpcServiceName -> providers split by zone, recomputed only when the provider list changes
+     */
+    private final ConcurrentHashMap<String, ZoneSplit> splits = new ConcurrentHashMap<>();
+
+    public ZoneAwareRouter() {
+        RpcConfig rpcConfig = RpcConfig.getInstance();
+        this.zone = rpcConfig.getString(RpcConfigEnum.CONSUMER_ZONE, rpcConfig.getString(RpcConfigEnum.PROVIDER_ZONE, ""));
+        this.minProviders = Math.max(rpcConfig.getInt(RpcConfigEnum.ROUTER_ZONE_MIN_PROVIDERS, DEFAULT_MIN_PROVIDERS), 1);
+    }
+
+    ZoneAwareRouter(String zone, int minProviders) {
+        this.zone = zone;
+        this.minProviders = minProviders;
+    }
+
+    @Override
+    public List<Endpoint> route(List<Endpoint> endpoints, RpcRequest rpcRequest) {
+        if (zone.isEmpty()) {
+            return endpoints;
+        }
+        String rpcServiceName = rpcRequest.getRpcServiceName();
+        ZoneSplit split = splits.get(rpcServiceName);
+        if (split == null || split.source != endpoints) {
+            split = new ZoneSplit(endpoints, zone);
+            splits.put(rpcServiceName, split);
+        }
+        List<Endpoint> local = split.local;
+        if (local.size() < minProviders) {
+            return endpoints;
+        }
+        if (!split.capacityLimited) {
+            return local;
+        }
+        // some local providers published a max concurrency, skip the ones that are full
+        Saturation saturation = split.saturation;
+        if (saturation == null || !saturation.matches(local)) {
+            saturation = new Saturation(split, minProviders);
+            split.saturation = saturation;
+        }
+        return saturation.routed;
+    }
+
+    private static boolean isSaturated(Endpoint endpoint) {
+        int maxConcurrency = endpoint.getMetadata().getMaxConcurrency();
+        return maxConcurrency > 0 && endpoint.getStats().getActive() >= maxConcurrency;
+    }
+
+    private static final class ZoneSplit {
+        private final List<Endpoint> source;
+        private final List<Endpoint> local;
+        private final boolean capacityLimited;
+        /**
+         * the routing for the full providers seen last
+         */
+        private volatile Saturation saturation;
+
+        private ZoneSplit(List<Endpoint> source, String zone) {
+            List<Endpoint> sameZone = new ArrayList<>();
+            boolean limited = false;
+            for (Endpoint endpoint : source) {
+                if (zone.equals(endpoint.getMetadata().getZone())) {
+                    sameZone.add(endpoint);
+                    limited = limited || endpoint.getMetadata().getMaxConcurrency() > 0;
+                }
+            }
+            this.source = source;
+            this.local = Collections.unmodifiableList(sameZone);
+            this.capacityLimited = limited;
+        }
+    }
+
+    private static final class Saturation {
+        private final BitSet saturated = new BitSet();
+        private final List<Endpoint> routed;
+
+        private Saturation(ZoneSplit split, int minProviders) {
+            List<Endpoint> available = new ArrayList<>(split.local.size());
+            for (int i = 0; i < split.local.size(); i++) {
+                Endpoint endpoint = split.local.get(i);
+                if (isSaturated(endpoint)) {
+                    saturated.set(i);
+                } else {
+                    available.add(endpoint);
+                }
+            }
+            if (saturated.isEmpty()) {
+                routed = split.local;
+            } else {
+                routed = available.size() >= minProviders ? Collections.unmodifiableList(available) : split.source;
+            }
+        }
+
+        private boolean matches(List<Endpoint> local) {
+            for (int i = 0; i < local.size(); i++) {
+                if (isSaturated(local.get(i)) != saturated.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -9,6 +9,8 @@ import github.javaguide.factory.SingletonFactory;
 import github.javaguide.provider.ServiceProvider;
 import github.javaguide.provider.impl.ZkServiceProviderImpl;
 import github.javaguide.proxy.RpcClientProxy;
+import github.javaguide.registry.RegistryFactory;
+import github.javaguide.registry.ServiceDiscovery;
 import github.javaguide.remoting.transport.RpcRequestTransport;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -33,10 +35,12 @@ public class SpringBeanPostProcessor implements BeanPostProcessor {
 
     private final ServiceProvider serviceProvider;
     private final RpcRequestTransport rpcClient;
+    private final ServiceDiscovery serviceDiscovery;
 
     public SpringBeanPostProcessor() {
         this.serviceProvider = SingletonFactory.getInstance(ZkServiceProviderImpl.class);
         this.rpcClient = ExtensionLoader.getExtensionLoader(RpcRequestTransport.class).getExtension(RpcRequestTransportEnum.NETTY.getName());
+        this.serviceDiscovery = RegistryFactory.getServiceDiscovery();
     }
 
     @SneakyThrows
@@ -51,6 +55,10 @@ public class SpringBeanPostProcessor implements BeanPostProcessor {
             RpcServiceConfig rpcServiceConfig = RpcServiceConfig.builder()
                     .group(rpcService.group())
                     .version(rpcService.version())
+                    .weight(rpcService.weight())
+                    .rateLimit(rpcService.rateLimit())
+                    .callerRateLimit(rpcService.callerRateLimit())
+                    .methodRateLimits(rpcService.methodRateLimits())
                     .service(bean).build();
             // 发布提供的服务，将服务放入自己的Map注册表中，同时注册到ZooKeeper，供服务端调用
             serviceProvider.publishService(rpcServiceConfig);
@@ -67,7 +75,17 @@ public class SpringBeanPostProcessor implements BeanPostProcessor {
             if (rpcReference != null) {
                 RpcServiceConfig rpcServiceConfig = RpcServiceConfig.builder()
                         .group(rpcReference.group())
-                        .version(rpcReference.version()).build();
+                        .version(rpcReference.version())
+                        .timeout(rpcReference.timeout())
+                        .hedge(rpcReference.hedge())
+                        .hedgeDelay(rpcReference.hedgeDelay())
+                        .hedgeMethods(rpcReference.hedgeMethods())
+                        .oneway(rpcReference.oneway())
+                        .onewayMethods(rpcReference.onewayMethods())
+                        .batch(rpcReference.batch())
+                        .cluster(rpcReference.cluster())
+                        .retries(rpcReference.retries())
+                        .forks(rpcReference.forks()).build();
                 RpcClientProxy rpcClientProxy = new RpcClientProxy(rpcClient, rpcServiceConfig);
                 Object clientProxy = rpcClientProxy.getProxy(declaredField.getType());
                 declaredField.setAccessible(true);
@@ -76,6 +94,14 @@ public class SpringBeanPostProcessor implements BeanPostProcessor {
                 } catch (IllegalAccessException e) {
                     e.printStackTrace();
                 }
+                // 预热：启动时就订阅这个服务的提供方列表，第一次调用不用再等注册中心
+                String rpcServiceName = declaredField.getType().getName() + rpcReference.group() + rpcReference.version();
+                try {
+                    serviceDiscovery.subscribe(rpcServiceName);
+                } catch (Exception e) {
+                    // 注册中心暂时不可用不影响启动，第一次调用时还会再查
+                    log.warn("subscribe to [{}] fail", rpcServiceName, e);
+                }
             }
 
         }
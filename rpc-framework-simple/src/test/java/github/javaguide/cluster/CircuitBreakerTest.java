@@ -0,0 +1,66 @@
+package github.javaguide.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("demo@10.0.7.1:9998", 10, 50,
+            TimeUnit.MILLISECONDS.toNanos(100), 80, 5 * SECOND);
+
+    @Test
+    void opensOnErrorRateAndClosesAfterSuccessfulProbes() {
+        long now = 100 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.record(FAST, true, now);
+        }
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.record(FAST, false, now);
+        }
+        // below mincalls
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.record(FAST, false, now);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.isAvailable(now + SECOND));
+
+        assertTrue(circuitBreaker.isAvailable(now + 5 * SECOND));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.record(FAST, true, now + 5 * SECOND);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        // the window was reset, the old failures do not count any more
+        circuitBreaker.record(FAST, false, now + 5 * SECOND);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void failedProbeOpensAgainAndOldBucketsExpire() {
+        long now = 100 * SECOND;
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.record(TimeUnit.MILLISECONDS.toNanos(200), true, now);
+        }
+        // slow calls only
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.isAvailable(now + 5 * SECOND));
+        circuitBreaker.record(FAST, false, now + 5 * SECOND);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.isAvailable(now + 9 * SECOND));
+
+        CircuitBreaker other = new CircuitBreaker("demo@10.0.7.2:9998", 10, 50, SECOND, 80, 5 * SECOND);
+        for (int i = 0; i < 9; i++) {
+            other.record(FAST, false, now);
+        }
+        // ten seconds later the failures have left the window
+        other.record(FAST, false, now + 11 * SECOND);
+        assertEquals(CircuitBreaker.State.CLOSED, other.getState());
+    }
+}
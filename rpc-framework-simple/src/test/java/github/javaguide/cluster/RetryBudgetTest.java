@@ -0,0 +1,32 @@
+package github.javaguide.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTest {
+
+    @Test
+    void extraRequestsAreCappedByRatioOfNormalRequests() {
+        RetryBudget retryBudget = new RetryBudget(0.1, 2);
+        // the initial balance allows a small burst
+        assertTrue(retryBudget.tryWithdraw());
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+        for (int i = 0; i < 9; i++) {
+            retryBudget.deposit();
+        }
+        assertFalse(retryBudget.tryWithdraw());
+        retryBudget.deposit();
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+        // the balance never grows past maxBalance
+        for (int i = 0; i < 100; i++) {
+            retryBudget.deposit();
+        }
+        assertTrue(retryBudget.tryWithdraw());
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+    }
+}
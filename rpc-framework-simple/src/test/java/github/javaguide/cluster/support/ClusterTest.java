@@ -0,0 +1,116 @@
+package github.javaguide.cluster.support;
+
+import github.javaguide.cluster.Invoker;
+import github.javaguide.cluster.RetryBudget;
+import github.javaguide.config.RpcServiceConfig;
+import github.javaguide.enums.RpcErrorMessageEnum;
+import github.javaguide.exception.RequestNotSentException;
+import github.javaguide.exception.RpcException;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClusterTest {
+
+    private final RpcRequest rpcRequest = RpcRequest.builder().requestId("1").interfaceName("Demo").group("").version("").build();
+
+    @Test
+    void retriesOnProvidersNotTriedYet() {
+        FakeInvoker invoker = new FakeInvoker(new RetryBudget(0.1, 10), "10.0.6.1:9998", "10.0.6.2:9998", "10.0.6.3:9998");
+        invoker.failing.add("10.0.6.1:9998");
+        invoker.failing.add("10.0.6.2:9998");
+        RpcServiceConfig rpcServiceConfig = RpcServiceConfig.builder().retries(2).build();
+
+        RpcResponse<Object> rpcResponse = new FailoverCluster().invoke(rpcRequest, invoker, rpcServiceConfig);
+
+        assertEquals("10.0.6.3:9998", rpcResponse.getData());
+        assertEquals(Arrays.asList("10.0.6.1:9998", "10.0.6.2:9998", "10.0.6.3:9998"), invoker.invoked);
+    }
+
+    @Test
+    void stopsWhenTheRetryBudgetIsExhausted() {
+        FakeInvoker invoker = new FakeInvoker(new RetryBudget(0, 1), "10.0.6.1:9998", "10.0.6.2:9998", "10.0.6.3:9998");
+        invoker.failing.addAll(Arrays.asList("10.0.6.1:9998", "10.0.6.2:9998", "10.0.6.3:9998"));
+        RpcServiceConfig rpcServiceConfig = RpcServiceConfig.builder().retries(2).build();
+
+        assertThrows(RequestNotSentException.class, () -> new FailoverCluster().invoke(rpcRequest, invoker, rpcServiceConfig));
+        // the first attempt plus the single token of the budget
+        assertEquals(2, invoker.invoked.size());
+    }
+
+    @Test
+    void retriesOnlyWhatWasNeverExecuted() {
+        FakeInvoker invoker = new FakeInvoker(new RetryBudget(0.1, 10), "10.0.6.1:9998", "10.0.6.2:9998");
+        invoker.timingOut.add("10.0.6.1:9998");
+        RpcServiceConfig rpcServiceConfig = RpcServiceConfig.builder().retries(2).build();
+
+        // the request may have run on the first provider, it must not run again on the second
+        assertThrows(RpcException.class, () -> new FailoverCluster().invoke(rpcRequest, invoker, rpcServiceConfig));
+        assertEquals(Collections.singletonList("10.0.6.1:9998"), invoker.invoked);
+    }
+
+    @Test
+    void forkingTakesTheFirstSuccessfulResponse() {
+        FakeInvoker invoker = new FakeInvoker(new RetryBudget(0.1, 10), "10.0.6.1:9998", "10.0.6.2:9998");
+        invoker.failing.add("10.0.6.1:9998");
+
+        RpcResponse<Object> rpcResponse = new ForkingCluster().invoke(rpcRequest, invoker, new RpcServiceConfig());
+
+        assertEquals("10.0.6.2:9998", rpcResponse.getData());
+        assertEquals("1", rpcResponse.getRequestId());
+    }
+
+    /**
+     * selects providers in order, fails the ones in {@link #failing} without sending and times out the ones in
+     * {@link #timingOut}, answers with the address otherwise
+     */
+    private static final class FakeInvoker implements Invoker {
+        private final RetryBudget retryBudget;
+        private final List<Endpoint> endpoints = new ArrayList<>();
+        private final List<String> failing = new ArrayList<>();
+        private final List<String> timingOut = new ArrayList<>();
+        private final List<String> invoked = new ArrayList<>();
+
+        private FakeInvoker(RetryBudget retryBudget, String... addresses) {
+            this.retryBudget = retryBudget;
+            for (String address : addresses) {
+                endpoints.add(Endpoint.parse(address));
+            }
+        }
+
+        @Override
+        public Endpoint select(RpcRequest rpcRequest, Set<String> excludedAddresses) {
+            return endpoints.stream().filter(e -> !excludedAddresses.contains(e.getAddress())).findFirst().orElse(null);
+        }
+
+        @Override
+        public CompletableFuture<RpcResponse<Object>> invoke(RpcRequest rpcRequest, Endpoint endpoint) {
+            invoked.add(endpoint.getAddress());
+            CompletableFuture<RpcResponse<Object>> future = new CompletableFuture<>();
+            if (failing.contains(endpoint.getAddress())) {
+                future.completeExceptionally(new RequestNotSentException(endpoint.getAddress(), null));
+            } else if (timingOut.contains(endpoint.getAddress())) {
+                future.completeExceptionally(new RpcException(RpcErrorMessageEnum.REQUEST_TIMEOUT, rpcRequest.getRequestId()));
+            } else {
+                future.complete(RpcResponse.success(endpoint.getAddress(), rpcRequest.getRequestId()));
+            }
+            return future;
+        }
+
+        @Override
+        public RetryBudget getRetryBudget() {
+            return retryBudget;
+        }
+    }
+}
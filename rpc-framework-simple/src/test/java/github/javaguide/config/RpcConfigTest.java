@@ -0,0 +1,30 @@
+package github.javaguide.config;
+
+import github.javaguide.enums.RpcConfigEnum;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RpcConfigTest {
+
+    @Test
+    void systemPropertyOverridesAndTypedGettersFallBack() {
+        RpcConfig rpcConfig = RpcConfig.getInstance();
+        String name = RpcConfigEnum.ROUTER_ZONE_MIN_PROVIDERS.getPropertyValue();
+        try {
+            assertNull(rpcConfig.getString(RpcConfigEnum.ROUTER_ZONE_MIN_PROVIDERS));
+            assertEquals(1, rpcConfig.getInt(RpcConfigEnum.ROUTER_ZONE_MIN_PROVIDERS, 1));
+            System.setProperty(name, " 3 ");
+            assertEquals("3", rpcConfig.getString(RpcConfigEnum.ROUTER_ZONE_MIN_PROVIDERS));
+            assertEquals(3, rpcConfig.getInt(RpcConfigEnum.ROUTER_ZONE_MIN_PROVIDERS, 1));
+            assertEquals(3L, rpcConfig.getLong(RpcConfigEnum.ROUTER_ZONE_MIN_PROVIDERS, 1L));
+            System.setProperty(name, "three");
+            assertEquals(1, rpcConfig.getInt(RpcConfigEnum.ROUTER_ZONE_MIN_PROVIDERS, 1));
+            System.setProperty(name, "");
+            assertEquals("2", rpcConfig.getString(RpcConfigEnum.ROUTER_ZONE_MIN_PROVIDERS, "2"));
+        } finally {
+            System.clearProperty(name);
+        }
+    }
+}
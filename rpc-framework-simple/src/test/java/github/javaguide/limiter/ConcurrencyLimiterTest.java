@@ -0,0 +1,73 @@
+package github.javaguide.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTest {
+
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void rejectsAboveTheLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("demo", 1, 2, 0);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        limiter.release(1000, false, 0);
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void admitsABurstWhenFresh() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("demo", 20, 1000, 0);
+        for (int i = 0; i < 64; i++) {
+            assertTrue(limiter.tryAcquire(), "request " + i);
+        }
+        assertEquals(1000, limiter.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesAndGrowsBackWhenItRecovers() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("demo", 4, 100, 0);
+        long now = 0;
+        for (int i = 0; i < 30; i++) {
+            now += WINDOW;
+            runWindow(limiter, TimeUnit.MILLISECONDS.toNanos(1), now);
+        }
+        assertEquals(100, limiter.getLimit());
+        for (int i = 0; i < 30; i++) {
+            now += WINDOW;
+            runWindow(limiter, TimeUnit.MILLISECONDS.toNanos(10), now);
+        }
+        int low = limiter.getLimit();
+        assertTrue(low < 50, "limit " + low);
+        for (int i = 0; i < 30; i++) {
+            now += WINDOW;
+            runWindow(limiter, TimeUnit.MILLISECONDS.toNanos(1), now);
+        }
+        assertTrue(limiter.getLimit() > low, "limit " + limiter.getLimit());
+    }
+
+    /**
+     * fill the current limit, then complete everything with the same latency
+     */
+    private static void runWindow(ConcurrencyLimiter limiter, long latencyNanos, long now) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        // enough samples to close the window
+        for (int i = 0; i < Math.max(acquired, 10); i++) {
+            if (i >= acquired) {
+                limiter.tryAcquire();
+            }
+            limiter.release(latencyNanos, true, now);
+        }
+    }
+}
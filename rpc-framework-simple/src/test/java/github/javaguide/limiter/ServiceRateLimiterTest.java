@@ -0,0 +1,57 @@
+package github.javaguide.limiter;
+
+import github.javaguide.DemoRpcServiceImpl;
+import github.javaguide.config.RpcServiceConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServiceRateLimiterTest {
+
+    @Test
+    void limitsEachCallerOfAMethodSeparately() {
+        RpcServiceConfig rpcServiceConfig = RpcServiceConfig.builder()
+                .group("ratelimit").version("1")
+                .methodRateLimits(new String[]{"hello=100/2", "invalid"})
+                .service(new DemoRpcServiceImpl()).build();
+        ServiceRateLimiter.register(rpcServiceConfig);
+        ServiceRateLimiter rateLimiter = ServiceRateLimiter.get(rpcServiceConfig.getRpcServiceName());
+
+        assertTrue(rateLimiter.tryAcquire("hello", "10.0.8.1"));
+        assertTrue(rateLimiter.tryAcquire("hello", "10.0.8.1"));
+        assertFalse(rateLimiter.tryAcquire("hello", "10.0.8.1"));
+        assertTrue(rateLimiter.tryAcquire("hello", "10.0.8.2"));
+        // other methods have no limit
+        assertTrue(rateLimiter.tryAcquire("bye", "10.0.8.1"));
+    }
+
+    @Test
+    void rejectedRequestsUseNoTokens() {
+        RpcServiceConfig rpcServiceConfig = RpcServiceConfig.builder()
+                .group("ratelimit-refund").version("1").callerRateLimit(2)
+                .methodRateLimits(new String[]{"hello=1"})
+                .service(new DemoRpcServiceImpl()).build();
+        ServiceRateLimiter.register(rpcServiceConfig);
+        ServiceRateLimiter rateLimiter = ServiceRateLimiter.get(rpcServiceConfig.getRpcServiceName());
+
+        assertTrue(rateLimiter.tryAcquire("hello", "10.0.8.1"));
+        // rejected by the method bucket after the caller bucket let them through
+        for (int i = 0; i < 5; i++) {
+            assertFalse(rateLimiter.tryAcquire("hello", "10.0.8.1"));
+        }
+        // the caller still has its second token
+        assertTrue(rateLimiter.tryAcquire("bye", "10.0.8.1"));
+        assertFalse(rateLimiter.tryAcquire("bye", "10.0.8.1"));
+    }
+
+    @Test
+    void serviceWithoutLimitsHasNoLimiter() {
+        RpcServiceConfig rpcServiceConfig = RpcServiceConfig.builder()
+                .group("nolimit").version("1")
+                .service(new DemoRpcServiceImpl()).build();
+        ServiceRateLimiter.register(rpcServiceConfig);
+        assertNull(ServiceRateLimiter.get(rpcServiceConfig.getRpcServiceName()));
+    }
+}
@@ -0,0 +1,42 @@
+package github.javaguide.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void burstOfOneSecondThenRefillsAtTheRate() {
+        long now = -5 * SECOND;
+        TokenBucket tokenBucket = new TokenBucket(4, now);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(tokenBucket.tryAcquire(now));
+        }
+        assertFalse(tokenBucket.tryAcquire(now));
+        assertFalse(tokenBucket.tryAcquire(now + SECOND / 8));
+        assertTrue(tokenBucket.tryAcquire(now + SECOND / 4));
+        assertFalse(tokenBucket.tryAcquire(now + SECOND / 4));
+        // idle time refills up to the capacity only
+        long later = now + 10 * SECOND;
+        for (int i = 0; i < 4; i++) {
+            assertTrue(tokenBucket.tryAcquire(later));
+        }
+        assertFalse(tokenBucket.tryAcquire(later));
+    }
+
+    @Test
+    void refundedTokenCanBeTakenAgain() {
+        long now = -5 * SECOND;
+        TokenBucket tokenBucket = new TokenBucket(1, now);
+        assertTrue(tokenBucket.tryAcquire(now));
+        assertFalse(tokenBucket.tryAcquire(now));
+        tokenBucket.refund();
+        assertTrue(tokenBucket.tryAcquire(now));
+    }
+}
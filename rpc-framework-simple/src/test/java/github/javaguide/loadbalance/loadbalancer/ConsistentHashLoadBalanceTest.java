@@ -5,35 +5,94 @@ import github.javaguide.DemoRpcServiceImpl;
 import github.javaguide.config.RpcServiceConfig;
 import github.javaguide.extension.ExtensionLoader;
 import github.javaguide.loadbalance.LoadBalance;
+import github.javaguide.registry.Endpoint;
 import github.javaguide.remoting.dto.RpcRequest;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 
 class ConsistentHashLoadBalanceTest {
+    private final LoadBalance loadBalance = ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension("loadBalance");
+    private final RpcServiceConfig rpcServiceConfig = RpcServiceConfig.builder()
+            .group("test2").version("version2").service(new DemoRpcServiceImpl()).build();
+
     @Test
     void TestConsistentHashLoadBalance() {
-        LoadBalance loadBalance = ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension("loadBalance");
-        List<String> serviceUrlList = new ArrayList<>(Arrays.asList("127.0.0.1:9997", "127.0.0.1:9998", "127.0.0.1:9999"));
+        List<Endpoint> serviceUrlList = new ArrayList<>(endpoints("127.0.0.1:9997", "127.0.0.1:9998", "127.0.0.1:9999"));
+        String userServiceAddress = loadBalance.selectServiceAddress(serviceUrlList, request("user-1")).getAddress();
+        for (int i = 0; i < 100; i++) {
+            // same argument, a fresh request id and even a new address list instance must stick to the same provider
+            List<Endpoint> refreshed = endpoints("127.0.0.1:9997", "127.0.0.1:9998", "127.0.0.1:9999");
+            assertEquals(userServiceAddress, loadBalance.selectServiceAddress(refreshed, request("user-1")).getAddress());
+        }
+    }
+
+    @Test
+    void spreadAcrossProviders() {
+        List<Endpoint> serviceUrlList = new ArrayList<>(endpoints("127.0.0.1:9997", "127.0.0.1:9998", "127.0.0.1:9999"));
+        Set<Endpoint> selected = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            selected.add(loadBalance.selectServiceAddress(serviceUrlList, request("user-" + i)));
+        }
+        assertEquals(new HashSet<>(serviceUrlList), selected);
+    }
+
+    @Test
+    void incrementalRebuildMatchesFullBuild() {
+        ConsistentHashLoadBalance.ConsistentHashSelector selector = ConsistentHashLoadBalance.ConsistentHashSelector
+                .of(endpoints("127.0.0.1:9997", "127.0.0.1:9998", "127.0.0.1:9999"), 160);
+        List<Endpoint> changed = endpoints("127.0.0.1:9997", "127.0.0.1:9999", "127.0.0.1:10000");
+        ConsistentHashLoadBalance.ConsistentHashSelector incremental = selector.withInvokers(changed);
+        ConsistentHashLoadBalance.ConsistentHashSelector full = ConsistentHashLoadBalance.ConsistentHashSelector.of(changed, 160);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(full.select("key-" + i).getAddress(), incremental.select("key-" + i).getAddress());
+        }
+    }
 
-        DemoRpcService demoRpcService = new DemoRpcServiceImpl();
-        RpcServiceConfig rpcServiceConfig = RpcServiceConfig.builder()
-                .group("test2").version("version2").service(demoRpcService).build();
+    @Test
+    void removedProviderIsNeverSelected() {
+        List<Endpoint> serviceUrlList = endpoints("127.0.0.1:9997", "127.0.0.1:9998", "127.0.0.1:9999");
+        for (int i = 0; i < 100; i++) {
+            loadBalance.selectServiceAddress(serviceUrlList, request("user-" + i));
+        }
+        // the ring is rebuilt in the background, requests in the meantime must skip the removed provider
+        List<Endpoint> shrunk = endpoints("127.0.0.1:9997", "127.0.0.1:9999");
+        for (int i = 0; i < 1000; i++) {
+            assertNotEquals("127.0.0.1:9998", loadBalance.selectServiceAddress(new ArrayList<>(shrunk), request("user-" + i)).getAddress());
+        }
+    }
+
+    @Test
+    void parseHashArguments() {
+        assertArrayEquals(new int[]{0}, ConsistentHashLoadBalance.parseHashArguments(null));
+        assertArrayEquals(new int[]{0, 2}, ConsistentHashLoadBalance.parseHashArguments(" 0, 2 "));
+        assertArrayEquals(new int[]{0}, ConsistentHashLoadBalance.parseHashArguments("a,-1"));
+    }
+
+    static List<Endpoint> endpoints(String... addresses) {
+        return Arrays.stream(addresses).map(Endpoint::parse).collect(Collectors.toList());
+    }
 
-        RpcRequest rpcRequest = RpcRequest.builder()
-                .parameters(demoRpcService.getClass().getTypeParameters())
+    private RpcRequest request(String argument) {
+        return RpcRequest.builder()
+                .methodName("hello")
+                .parameters(new Object[]{argument})
+                .paramTypes(new Class<?>[]{String.class})
                 .interfaceName(rpcServiceConfig.getServiceName())
                 .requestId(UUID.randomUUID().toString())
                 .group(rpcServiceConfig.getGroup())
                 .version(rpcServiceConfig.getVersion())
                 .build();
-        String userServiceAddress = loadBalance.selectServiceAddress(serviceUrlList, rpcRequest);
-        assertEquals("127.0.0.1:9998", userServiceAddress);
     }
-}
\ No newline at end of file
+}
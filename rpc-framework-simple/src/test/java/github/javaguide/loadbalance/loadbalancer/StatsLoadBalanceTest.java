@@ -0,0 +1,93 @@
+package github.javaguide.loadbalance.loadbalancer;
+
+import github.javaguide.extension.ExtensionLoader;
+import github.javaguide.loadbalance.EndpointStats;
+import github.javaguide.loadbalance.LoadBalance;
+import github.javaguide.registry.Endpoint;
+import github.javaguide.registry.ProviderMetadata;
+import github.javaguide.remoting.dto.RpcRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StatsLoadBalanceTest {
+
+    @Test
+    void leastActivePicksTheIdleProvider() {
+        List<Endpoint> serviceUrlList = ConsistentHashLoadBalanceTest.endpoints("10.0.0.1:9998", "10.0.0.2:9998", "10.0.0.3:9998");
+        EndpointStats.of("10.0.0.1:9998").begin();
+        EndpointStats.of("10.0.0.3:9998").begin();
+        LoadBalance loadBalance = ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension("leastActive");
+        for (int i = 0; i < 10; i++) {
+            assertEquals("10.0.0.2:9998", loadBalance.selectServiceAddress(serviceUrlList, request()).getAddress());
+        }
+    }
+
+    @Test
+    void shortestResponsePicksTheFastProvider() throws InterruptedException {
+        List<Endpoint> serviceUrlList = ConsistentHashLoadBalanceTest.endpoints("10.0.1.1:9998", "10.0.1.2:9998");
+        EndpointStats slow = EndpointStats.of("10.0.1.1:9998");
+        EndpointStats fast = EndpointStats.of("10.0.1.2:9998");
+        long slowBegin = slow.begin();
+        long fastBegin = fast.begin();
+        fast.end(fastBegin, true);
+        Thread.sleep(20);
+        slow.end(slowBegin, true);
+        LoadBalance loadBalance = ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension("shortestResponse");
+        for (int i = 0; i < 10; i++) {
+            assertEquals("10.0.1.2:9998", loadBalance.selectServiceAddress(serviceUrlList, request()).getAddress());
+        }
+    }
+
+    @Test
+    void p2cNeverPicksTheBusierOfTwo() {
+        List<Endpoint> serviceUrlList = ConsistentHashLoadBalanceTest.endpoints("10.0.3.1:9998", "10.0.3.2:9998");
+        EndpointStats.of("10.0.3.1:9998").begin();
+        LoadBalance loadBalance = ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension("p2c");
+        for (int i = 0; i < 10; i++) {
+            assertEquals("10.0.3.2:9998", loadBalance.selectServiceAddress(serviceUrlList, request()).getAddress());
+        }
+    }
+
+    @Test
+    void roundRobinSpreadsEvenly() {
+        List<Endpoint> serviceUrlList = ConsistentHashLoadBalanceTest.endpoints("10.0.2.1:9998", "10.0.2.2:9998", "10.0.2.3:9998");
+        LoadBalance loadBalance = ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension("roundRobin");
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            counts.merge(loadBalance.selectServiceAddress(serviceUrlList, request()).getAddress(), 1, Integer::sum);
+        }
+        serviceUrlList.forEach(endpoint -> assertEquals(100, counts.get(endpoint.getAddress())));
+    }
+
+    @Test
+    void warmingUpProviderGetsLessTraffic() {
+        ProviderMetadata warm = ProviderMetadata.builder().timestamp(System.currentTimeMillis() - 3600_000L).build();
+        ProviderMetadata cold = ProviderMetadata.builder().timestamp(System.currentTimeMillis()).build();
+        List<Endpoint> serviceUrlList = Arrays.asList(Endpoint.parse("10.0.4.1:9998", warm), Endpoint.parse("10.0.4.2:9998", cold));
+        LoadBalance loadBalance = ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension("roundRobin");
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            counts.merge(loadBalance.selectServiceAddress(serviceUrlList, request()).getAddress(), 1, Integer::sum);
+        }
+        assertEquals(99, counts.get("10.0.4.1:9998"));
+    }
+
+    private static RpcRequest request() {
+        return RpcRequest.builder()
+                .methodName("hello")
+                .parameters(new Object[0])
+                .paramTypes(new Class<?>[0])
+                .interfaceName("github.javaguide.DemoRpcService")
+                .requestId(UUID.randomUUID().toString())
+                .group("test")
+                .version("version1")
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package github.javaguide.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RpcMetricsTest {
+
+    @Test
+    void should_record_calls_per_service_method_and_expose_them_through_jmx() throws Exception {
+        RpcMetrics rpcMetrics = RpcMetrics.getInstance();
+        MethodMetrics methodMetrics = rpcMetrics.serverMethod("github.javaguide.DemoRpcServicetest1version1", "hello");
+        assertSame(methodMetrics, rpcMetrics.serverMethod("github.javaguide.DemoRpcServicetest1version1", "hello"));
+
+        long begin = methodMetrics.begin();
+        assertEquals(1, methodMetrics.getInFlight());
+        methodMetrics.end(begin, true);
+        methodMetrics.end(methodMetrics.begin(), false);
+        methodMetrics.recordQueueWait(2_000_000);
+
+        assertEquals(2, methodMetrics.getCalls());
+        assertEquals(1, methodMetrics.getErrors());
+        assertEquals(0, methodMetrics.getInFlight());
+        assertTrue(methodMetrics.getQueueWaitP99Micros() >= 1900);
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(RpcMetrics.JMX_DOMAIN + ":type=Method,side=server,service="
+                + ObjectName.quote("github.javaguide.DemoRpcServicetest1version1") + ",method=" + ObjectName.quote("hello"));
+        assertEquals(2L, mBeanServer.getAttribute(objectName, "Calls"));
+        assertTrue(mBeanServer.isRegistered(new ObjectName(RpcMetrics.JMX_DOMAIN + ":type=Transport")));
+    }
+
+    @Test
+    void recent_latency_only_holds_what_was_recorded_since_the_window_started() {
+        LatencyStats latencyStats = new LatencyStats();
+        latencyStats.record(1_000_000);
+        assertEquals(1, latencyStats.snapshot().getTotalCount());
+        // the window starts with the first read of it, values drained before only count in the totals
+        assertEquals(0, latencyStats.recentSnapshot().getTotalCount());
+        latencyStats.record(5_000_000);
+        latencyStats.record(5_000_000);
+        assertEquals(2, latencyStats.recentSnapshot().getTotalCount());
+        assertEquals(3, latencyStats.snapshot().getTotalCount());
+        latencyStats.reset();
+        assertEquals(0, latencyStats.recentSnapshot().getTotalCount());
+    }
+
+    @Test
+    void should_compute_compression_ratio() {
+        TransportMetrics transportMetrics = new TransportMetrics();
+        transportMetrics.recordEncode(116, 400, 100);
+        transportMetrics.recordDecode(16, 0, 0);
+        assertEquals(4.0, transportMetrics.getCompressionRatio());
+        assertEquals(2, transportMetrics.getEncodedFrames() + transportMetrics.getDecodedFrames());
+    }
+}
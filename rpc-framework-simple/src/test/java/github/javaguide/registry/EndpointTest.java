@@ -0,0 +1,40 @@
+package github.javaguide.registry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class EndpointTest {
+
+    @Test
+    void putAndRemoveCopyOnlyWhatChanged() {
+        Endpoint first = Endpoint.parse("10.0.5.1:9998");
+        Endpoint second = Endpoint.parse("10.0.5.2:9998");
+        List<Endpoint> endpoints = Arrays.asList(first, second);
+
+        assertSame(endpoints, Endpoint.put(endpoints, "10.0.5.1:9998", ProviderMetadata.EMPTY));
+        assertSame(endpoints, Endpoint.remove(endpoints, "10.0.5.3:9998"));
+
+        List<Endpoint> added = Endpoint.put(endpoints, "10.0.5.3:9998", ProviderMetadata.EMPTY);
+        assertEquals(3, added.size());
+        assertSame(first, added.get(0));
+        assertSame(second, added.get(1));
+
+        ProviderMetadata heavier = ProviderMetadata.builder().weight(200).build();
+        List<Endpoint> updated = Endpoint.put(added, "10.0.5.2:9998", heavier);
+        assertNotSame(second, updated.get(1));
+        assertEquals(200, updated.get(1).getWeight());
+        // the live load belongs to the address, not to one Endpoint object
+        assertSame(second.getStats(), updated.get(1).getStats());
+        assertEquals(3, added.size());
+
+        List<Endpoint> removed = Endpoint.remove(updated, "10.0.5.1:9998");
+        assertEquals(Arrays.asList("10.0.5.2:9998", "10.0.5.3:9998"),
+                Arrays.asList(removed.get(0).getAddress(), removed.get(1).getAddress()));
+    }
+}
@@ -0,0 +1,30 @@
+package github.javaguide.registry;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ProviderMetadataTest {
+
+    @Test
+    void encode_and_decode() {
+        ProviderMetadata metadata = ProviderMetadata.builder()
+                .weight(200).timestamp(1760860800000L).warmup(60000).zone("cn-east-1a")
+                .serializers(Arrays.asList("kyro", "hessian")).compressors(Arrays.asList("gzip"))
+                .maxConcurrency(64).protocol(2).build();
+        assertEquals(metadata, ProviderMetadata.decode(metadata.encode()));
+    }
+
+    @Test
+    void missing_and_unknown_keys_keep_defaults() {
+        assertSame(ProviderMetadata.EMPTY, ProviderMetadata.decode(new byte[0]));
+        ProviderMetadata metadata = ProviderMetadata.decode("zone=a&color=blue&weight=x".getBytes(StandardCharsets.UTF_8));
+        assertEquals("a", metadata.getZone());
+        assertEquals(ProviderMetadata.DEFAULT_WEIGHT, metadata.getWeight());
+        assertEquals(ProviderMetadata.DEFAULT_PROTOCOL, metadata.getProtocol());
+    }
+}
@@ -37,7 +37,7 @@ class ZkServiceRegistryImplTest {
                 .group(rpcServiceConfig.getGroup())
                 .version(rpcServiceConfig.getVersion())
                 .build();
-        InetSocketAddress acquiredInetSocketAddress = zkServiceDiscovery.lookupService(rpcRequest);
+        InetSocketAddress acquiredInetSocketAddress = zkServiceDiscovery.lookupService(rpcRequest).getInetSocketAddress();
         assertEquals(givenInetSocketAddress.toString(), acquiredInetSocketAddress.toString());
     }
 }
@@ -0,0 +1,47 @@
+package github.javaguide.registry.direct;
+
+import github.javaguide.registry.Endpoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DirectServiceDiscoveryImplTest {
+
+    private static final String SERVICE = "github.javaguide.HelloServicetest2version2";
+
+    @Test
+    void fileOverridesDefaultAndIsReloadedWhenModified(@TempDir Path dir) throws Exception {
+        File file = dir.resolve("providers.properties").toFile();
+        write(file, SERVICE + "=10.0.6.1:9998,10.0.6.2:9998", 1_000_000L);
+        DirectServiceDiscoveryImpl discovery = new DirectServiceDiscoveryImpl("10.0.6.9:9998", file.getPath());
+
+        assertEquals(Arrays.asList("10.0.6.1:9998", "10.0.6.2:9998"), addresses(discovery.getEndpoints(SERVICE)));
+        assertEquals(Arrays.asList("10.0.6.9:9998"), addresses(discovery.getEndpoints("other")));
+
+        Endpoint kept = discovery.getEndpoints(SERVICE).get(1);
+        write(file, SERVICE + "=10.0.6.2:9998,10.0.6.3:9998", 2_000_000L);
+        Thread.sleep(DirectServiceDiscoveryImpl.CHECK_INTERVAL_MILLIS + 100);
+        List<Endpoint> reloaded = discovery.getEndpoints(SERVICE);
+        assertEquals(Arrays.asList("10.0.6.2:9998", "10.0.6.3:9998"), addresses(reloaded));
+        assertSame(kept, reloaded.get(0));
+    }
+
+    private static void write(File file, String content, long lastModified) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(lastModified);
+    }
+
+    private static List<String> addresses(List<Endpoint> endpoints) {
+        return endpoints.stream().map(Endpoint::getAddress).collect(Collectors.toList());
+    }
+}
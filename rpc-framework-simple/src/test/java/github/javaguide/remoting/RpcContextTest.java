@@ -0,0 +1,27 @@
+package github.javaguide.remoting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RpcContextTest {
+
+    @Test
+    void nestedCallsInheritTheEarlierDeadline() {
+        assertEquals(0, RpcContext.deadlineNanos(0));
+        long inherited = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+        RpcContext.getContext().setDeadlineNanos(inherited);
+        try {
+            assertEquals(inherited, RpcContext.deadlineNanos(0));
+            assertEquals(inherited, RpcContext.deadlineNanos(1000));
+            long own = RpcContext.deadlineNanos(10);
+            assertTrue(own - inherited < 0);
+        } finally {
+            RpcContext.removeContext();
+        }
+        assertEquals(0, RpcContext.getContext().getDeadlineNanos());
+    }
+}
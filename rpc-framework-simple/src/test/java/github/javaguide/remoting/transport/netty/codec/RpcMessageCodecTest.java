@@ -0,0 +1,123 @@
+package github.javaguide.remoting.transport.netty.codec;
+
+import github.javaguide.enums.CompressTypeEnum;
+import github.javaguide.enums.RpcResponseCodeEnum;
+import github.javaguide.enums.SerializationTypeEnum;
+import github.javaguide.remoting.constants.RpcConstants;
+import github.javaguide.remoting.dto.RpcMessage;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.EncoderException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RpcMessageCodecTest {
+
+    @Test
+    void v1_frame_round_trip() {
+        RpcMessage decoded = roundTrip(request(RpcConstants.VERSION, Collections.singletonMap("trace", "t")));
+        assertEquals(RpcConstants.VERSION, decoded.getVersion());
+        // v1 has nowhere to put attachments
+        assertNull(decoded.getAttachments());
+        assertEquals("echo", ((RpcRequest) decoded.getData()).getMethodName());
+    }
+
+    @Test
+    void v2_frame_carries_flags_and_attachments() {
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put(RpcConstants.TIMEOUT_KEY, "250");
+        attachments.put("trace", "链路-1");
+        RpcMessage rpcMessage = request(RpcConstants.VERSION_2, attachments);
+        rpcMessage.setFlags(RpcConstants.FLAG_ONEWAY);
+        RpcMessage decoded = roundTrip(rpcMessage);
+        assertEquals(RpcConstants.VERSION_2, decoded.getVersion());
+        assertEquals(attachments, decoded.getAttachments());
+        assertTrue((decoded.getFlags() & RpcConstants.FLAG_ONEWAY) != 0);
+        // a small body is not worth compressing
+        assertEquals(0, decoded.getFlags() & RpcConstants.FLAG_COMPRESSED);
+        assertEquals("echo", ((RpcRequest) decoded.getData()).getMethodName());
+
+        RpcMessage heartbeat = RpcMessage.builder().version(RpcConstants.VERSION_2)
+                .messageType(RpcConstants.HEARTBEAT_REQUEST_TYPE).build();
+        decoded = roundTrip(heartbeat);
+        assertTrue((decoded.getFlags() & RpcConstants.FLAG_HEARTBEAT) != 0);
+        assertEquals(RpcConstants.PING, decoded.getData());
+    }
+
+    @Test
+    void v2_large_body_is_compressed() {
+        RpcMessage rpcMessage = request(RpcConstants.VERSION_2, null);
+        char[] chars = new char[4 * RpcConstants.COMPRESS_MIN_LENGTH];
+        Arrays.fill(chars, 'a');
+        ((RpcRequest) rpcMessage.getData()).getParameters()[0] = new String(chars);
+        RpcMessage decoded = roundTrip(rpcMessage);
+        assertTrue((decoded.getFlags() & RpcConstants.FLAG_COMPRESSED) != 0);
+        assertEquals(Collections.emptyMap(), decoded.getAttachments());
+        assertEquals(new String(chars), ((RpcRequest) decoded.getData()).getParameters()[0]);
+    }
+
+    @Test
+    void oversized_attachment_fails_the_write() {
+        char[] chars = new char[RpcConstants.MAX_ATTACHMENTS_LENGTH + 1];
+        Arrays.fill(chars, 'a');
+        Map<String, String> attachments = Collections.singletonMap("trace", new String(chars));
+        assertThrows(IllegalArgumentException.class, () -> RpcMessageEncoder.checkAttachments(attachments));
+
+        EmbeddedChannel encoder = new EmbeddedChannel(new RpcMessageEncoder());
+        ChannelFuture future = encoder.writeAndFlush(request(RpcConstants.VERSION_2, attachments));
+        assertFalse(future.isSuccess());
+        assertTrue(future.cause() instanceof EncoderException);
+        // nothing of the frame went out
+        assertNull(encoder.readOutbound());
+    }
+
+    @Test
+    void batch_frames_round_trip() {
+        RpcRequest[] rpcRequests = {(RpcRequest) request(RpcConstants.VERSION_2, null).getData(),
+                (RpcRequest) request(RpcConstants.VERSION_2, null).getData()};
+        RpcMessage decoded = roundTrip(RpcMessage.builder().version(RpcConstants.VERSION_2).data(rpcRequests)
+                .codec(SerializationTypeEnum.HESSIAN.getCode()).compress(CompressTypeEnum.GZIP.getCode())
+                .messageType(RpcConstants.BATCH_REQUEST_TYPE).build());
+        assertEquals(2, ((RpcRequest[]) decoded.getData()).length);
+
+        RpcResponse<?>[] rpcResponses = {RpcResponse.success("a", "1"), RpcResponse.fail(RpcResponseCodeEnum.OVERLOADED, "2")};
+        decoded = roundTrip(RpcMessage.builder().version(RpcConstants.VERSION_2).data(rpcResponses)
+                .codec(SerializationTypeEnum.HESSIAN.getCode()).compress(CompressTypeEnum.GZIP.getCode())
+                .messageType(RpcConstants.BATCH_RESPONSE_TYPE).build());
+        RpcResponse<?>[] decodedResponses = (RpcResponse<?>[]) decoded.getData();
+        assertEquals("a", decodedResponses[0].getData());
+        assertEquals(RpcResponseCodeEnum.OVERLOADED.getCode(), decodedResponses[1].getCode());
+    }
+
+    private static RpcMessage request(byte version, Map<String, String> attachments) {
+        RpcRequest rpcRequest = RpcRequest.builder().requestId("1").interfaceName("github.javaguide.Echo")
+                .methodName("echo").parameters(new Object[]{"hello"}).paramTypes(new Class<?>[]{String.class})
+                .group("").version("").build();
+        return RpcMessage.builder().version(version).attachments(attachments).data(rpcRequest)
+                .codec(SerializationTypeEnum.HESSIAN.getCode())
+                .compress(CompressTypeEnum.GZIP.getCode())
+                .messageType(RpcConstants.REQUEST_TYPE).build();
+    }
+
+    private static RpcMessage roundTrip(RpcMessage rpcMessage) {
+        EmbeddedChannel encoder = new EmbeddedChannel(new RpcMessageEncoder());
+        encoder.writeOutbound(rpcMessage);
+        ByteBuf frame = encoder.readOutbound();
+        EmbeddedChannel decoder = new EmbeddedChannel(new RpcMessageDecoder());
+        decoder.writeInbound(frame);
+        return decoder.readInbound();
+    }
+}
@@ -0,0 +1,96 @@
+package github.javaguide.remoting.transport.netty.server;
+
+import github.javaguide.enums.RpcResponseCodeEnum;
+import github.javaguide.remoting.constants.RpcConstants;
+import github.javaguide.remoting.dto.RpcMessage;
+import github.javaguide.remoting.dto.RpcRequest;
+import github.javaguide.remoting.dto.RpcResponse;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BatchRequestHandlerTest {
+
+    @Test
+    void one_response_frame_for_the_whole_batch() {
+        EmbeddedChannel channel = new EmbeddedChannel(new BatchRequestHandler(), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                RpcMessage request = (RpcMessage) msg;
+                RpcRequest rpcRequest = (RpcRequest) request.getData();
+                switch (rpcRequest.getRequestId()) {
+                    case "dropped":
+                        BatchResponseCollector.noResponse(request);
+                        break;
+                    case "rejected":
+                        ConcurrencyLimitHandler.reject(ctx, request, RpcResponseCodeEnum.OVERLOADED);
+                        break;
+                    default:
+                        RpcMessage response = new RpcMessage();
+                        response.setData(RpcResponse.success("ok", rpcRequest.getRequestId()));
+                        BatchResponseCollector.respond(ctx, request, response);
+                }
+            }
+        });
+        RpcRequest[] rpcRequests = {request("executed"), request("dropped"), request("rejected")};
+        channel.writeInbound(RpcMessage.builder().version(RpcConstants.VERSION_2)
+                .messageType(RpcConstants.BATCH_REQUEST_TYPE).data(rpcRequests).build());
+
+        RpcMessage response = channel.readOutbound();
+        assertEquals(RpcConstants.BATCH_RESPONSE_TYPE, response.getMessageType());
+        assertEquals(RpcConstants.VERSION_2, response.getVersion());
+        RpcResponse<?>[] rpcResponses = (RpcResponse<?>[]) response.getData();
+        assertEquals(2, rpcResponses.length);
+        assertEquals("executed", rpcResponses[0].getRequestId());
+        assertEquals(RpcResponseCodeEnum.OVERLOADED.getCode(), rpcResponses[1].getCode());
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    void a_batch_larger_than_the_minimum_limit_is_admitted() {
+        // every request of the batch is in flight at the same time, nothing completes before the last one is admitted
+        List<RpcMessage> inFlight = new ArrayList<>();
+        EmbeddedChannel channel = new EmbeddedChannel(new BatchRequestHandler(), new ConcurrencyLimitHandler(),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        inFlight.add((RpcMessage) msg);
+                    }
+                });
+        RpcRequest[] rpcRequests = new RpcRequest[64];
+        for (int i = 0; i < rpcRequests.length; i++) {
+            rpcRequests[i] = request(String.valueOf(i), "github.javaguide.BatchEcho");
+        }
+        channel.writeInbound(RpcMessage.builder().version(RpcConstants.VERSION_2)
+                .messageType(RpcConstants.BATCH_REQUEST_TYPE).data(rpcRequests).build());
+
+        assertEquals(rpcRequests.length, inFlight.size());
+        for (RpcMessage request : inFlight) {
+            request.getConcurrencyLimiter().release(1000, true);
+            RpcMessage response = new RpcMessage();
+            response.setData(RpcResponse.success("ok", ((RpcRequest) request.getData()).getRequestId()));
+            BatchResponseCollector.respond(channel.pipeline().lastContext(), request, response);
+        }
+        RpcMessage response = channel.readOutbound();
+        RpcResponse<?>[] rpcResponses = (RpcResponse<?>[]) response.getData();
+        assertEquals(rpcRequests.length, rpcResponses.length);
+        for (RpcResponse<?> rpcResponse : rpcResponses) {
+            assertEquals(RpcResponseCodeEnum.SUCCESS.getCode(), rpcResponse.getCode());
+        }
+    }
+
+    private static RpcRequest request(String requestId) {
+        return request(requestId, "github.javaguide.Echo");
+    }
+
+    private static RpcRequest request(String requestId, String interfaceName) {
+        return RpcRequest.builder().requestId(requestId).interfaceName(interfaceName).methodName("echo").build();
+    }
+}
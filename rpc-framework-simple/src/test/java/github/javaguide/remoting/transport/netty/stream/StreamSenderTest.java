@@ -0,0 +1,72 @@
+package github.javaguide.remoting.transport.netty.stream;
+
+import github.javaguide.remoting.constants.RpcConstants;
+import github.javaguide.remoting.dto.RpcMessage;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamSenderTest {
+
+    private static final Throwable RUNNING = new Throwable();
+
+    @Test
+    void sends_no_more_than_the_credit_and_resumes_on_more() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        StreamSender sender = new StreamSender(channel, "s1", 3);
+        AtomicReference<Throwable> completion = new AtomicReference<>(RUNNING);
+        sender.start(Arrays.asList(1, 2, 3, 4, 5).iterator(), channel.eventLoop(), completion::set);
+        channel.runPendingTasks();
+
+        RpcMessage first = channel.readOutbound();
+        assertEquals(RpcConstants.STREAM_ITEMS_TYPE, first.getMessageType());
+        assertEquals("s1", StreamFrames.getStreamId(first));
+        assertArrayEquals(new Object[]{1, 2, 3}, (Object[]) first.getData());
+        assertNull(channel.readOutbound());
+        assertEquals(RUNNING, completion.get());
+
+        sender.addCredit(2);
+        channel.runPendingTasks();
+        RpcMessage second = channel.readOutbound();
+        assertArrayEquals(new Object[]{4, 5}, (Object[]) second.getData());
+        assertNull(completion.get());
+    }
+
+    @Test
+    void negative_credit_cancels() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        StreamSender sender = new StreamSender(channel, "s2", 0);
+        AtomicReference<Throwable> completion = new AtomicReference<>(RUNNING);
+        sender.start(Arrays.asList(1, 2).iterator(), channel.eventLoop(), completion::set);
+        sender.addCredit(-1);
+        channel.runPendingTasks();
+        assertNull(channel.readOutbound());
+        assertTrue(completion.get() instanceof CancellationException);
+    }
+
+    @Test
+    void receiver_grants_credit_every_half_window_and_cancels_on_close() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        StreamReceiver<Integer> receiver = new StreamReceiver<>(channel, "s3", 4);
+        receiver.onItems(new Object[]{1, 2, 3});
+        assertEquals(1, receiver.next());
+        assertNull(channel.readOutbound());
+        assertEquals(2, receiver.next());
+        RpcMessage credit = channel.readOutbound();
+        assertEquals(RpcConstants.STREAM_CREDIT_TYPE, credit.getMessageType());
+        assertEquals(2, StreamFrames.getCredit(credit));
+
+        receiver.close();
+        assertEquals(-1, StreamFrames.getCredit(channel.readOutbound()));
+        assertFalse(receiver.hasNext());
+    }
+}
@@ -0,0 +1,63 @@
+package github.javaguide.router;
+
+import github.javaguide.registry.Endpoint;
+import github.javaguide.registry.ProviderMetadata;
+import github.javaguide.remoting.dto.RpcRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ZoneAwareRouterTest {
+    private final RpcRequest rpcRequest = RpcRequest.builder().interfaceName("github.javaguide.DemoRpcService")
+            .methodName("hello").group("test").version("version1").requestId(UUID.randomUUID().toString()).build();
+
+    @Test
+    void prefers_local_zone() {
+        Endpoint local = endpoint("10.1.0.1:9998", "a", 0);
+        List<Endpoint> endpoints = Arrays.asList(local, endpoint("10.1.0.2:9998", "b", 0));
+        assertEquals(Collections.singletonList(local), new ZoneAwareRouter("a", 1).route(endpoints, rpcRequest));
+    }
+
+    @Test
+    void spills_over_when_local_zone_is_too_small_or_full() {
+        Endpoint local = endpoint("10.1.1.1:9998", "a", 1);
+        List<Endpoint> endpoints = Arrays.asList(local, endpoint("10.1.1.2:9998", "b", 0));
+        assertSame(endpoints, new ZoneAwareRouter("a", 2).route(endpoints, rpcRequest));
+        ZoneAwareRouter router = new ZoneAwareRouter("a", 1);
+        assertEquals(Collections.singletonList(local), router.route(endpoints, rpcRequest));
+        local.getStats().begin();
+        assertSame(endpoints, router.route(endpoints, rpcRequest));
+    }
+
+    @Test
+    void same_list_while_the_full_providers_stay_the_same() {
+        Endpoint full = endpoint("10.1.3.1:9998", "a", 1);
+        List<Endpoint> endpoints = Arrays.asList(full, endpoint("10.1.3.2:9998", "a", 1), endpoint("10.1.3.3:9998", "b", 0));
+        ZoneAwareRouter router = new ZoneAwareRouter("a", 1);
+        List<Endpoint> local = router.route(endpoints, rpcRequest);
+        assertSame(local, router.route(endpoints, rpcRequest));
+        long begin = full.getStats().begin();
+        List<Endpoint> available = router.route(endpoints, rpcRequest);
+        assertEquals(Collections.singletonList(endpoints.get(1)), available);
+        assertSame(available, router.route(endpoints, rpcRequest));
+        full.getStats().end(begin, true);
+        assertSame(local, router.route(endpoints, rpcRequest));
+    }
+
+    @Test
+    void no_local_zone_keeps_everything() {
+        List<Endpoint> endpoints = Arrays.asList(endpoint("10.1.2.1:9998", "a", 0), endpoint("10.1.2.2:9998", "b", 0));
+        assertSame(endpoints, new ZoneAwareRouter("", 1).route(endpoints, rpcRequest));
+        assertSame(endpoints, new ZoneAwareRouter("c", 1).route(endpoints, rpcRequest));
+    }
+
+    private static Endpoint endpoint(String address, String zone, int maxConcurrency) {
+        return Endpoint.parse(address, ProviderMetadata.builder().zone(zone).maxConcurrency(maxConcurrency).build());
+    }
+}